@@ -2,7 +2,10 @@ module org.openjfx.javaproject {
     requires javafx.controls;
     requires javafx.fxml;
     requires org.json;
+    requires java.management;
+    requires jdk.management;
 
     opens org.openjfx.javaproject to javafx.fxml;
     exports org.openjfx.javaproject;
+    exports org.openjfx.javaproject.engine;
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+package org.openjfx.javaproject;
+
+import org.openjfx.javaproject.common.ConfigParser;
+import org.openjfx.javaproject.common.ConfigWriter;
+import org.openjfx.javaproject.common.SceneConfig;
+import org.openjfx.javaproject.engine.InputPlayer;
+import org.openjfx.javaproject.engine.InputTrace;
+import org.openjfx.javaproject.engine.SimulationEngine;
+import org.openjfx.javaproject.engine.SimulationMode;
+import org.openjfx.javaproject.navigation.NavigationCache;
+import org.openjfx.javaproject.room.Position;
+import org.openjfx.javaproject.room.Room;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs scenes without a window for batch use. Nothing on this path creates a JavaFX node, so the JavaFX toolkit is
+ * never started.
+ * <p>
+ * Short runs are dominated by class loading and JIT warm-up. The launcher can record an ahead-of-time cache from a
+ * training run: {@code --train <file>} starts a second JVM that runs a representative workload and writes the cache
+ * when it exits. On JDK 25 and later this is an AOT cache ({@code -XX:AOTCacheOutput}) holding the loaded and linked
+ * classes together with the method profiles of the training run, so later runs started with {@code -XX:AOTCache}
+ * compile the hot paths right away. Older JDKs only record a dynamic class data sharing archive
+ * ({@code -XX:ArchiveClassesAtExit}), which saves the class loading but not the warm-up.
+ */
+public class HeadlessLauncher {
+    private static final long WINDOW_NANOS = 100_000_000; // throughput is reported per window during the first second
+    private static final double TRAINING_SECONDS = 2; // per scene and mode
+    private static final double WARM_SHARE = 0.9; // share of the peak throughput a run counts as warm at
+
+    private SimulationMode mode = SimulationMode.FIXED_STEP;
+    private double rate = 60;
+    private double seconds = 5;
+    private long ticks = Long.MAX_VALUE;
+    private String navigationCache;
+    private InputTrace input;
+    private boolean loopInput = false;
+
+    /**
+     * Runs a scene headlessly, or records an ahead-of-time cache.
+     *
+     * @param args Command line arguments: scene [--ticks n] [--seconds s] [--rate hz] [--mode FIXED_STEP|EVENT_DRIVEN]
+     *             [--nav-cache dir] [--input trace [--loop]], or --train file [scene...] to record a cache, or --training-run [scene...] to run
+     *             only the training workload in this JVM
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Expected a scene, --train file or --training-run");
+        }
+        if (args[0].equals("--train")) {
+            if (args.length < 2) {
+                throw new IllegalArgumentException("Expected the file to write the cache to");
+            }
+            System.exit(train(Path.of(args[1]), Arrays.asList(args).subList(2, args.length)));
+        }
+        if (args[0].equals("--training-run")) {
+            trainingRun(Arrays.asList(args).subList(1, args.length));
+            return;
+        }
+
+        HeadlessLauncher launcher = new HeadlessLauncher();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ticks" -> launcher.ticks = Long.parseLong(args[++i]);
+                case "--seconds" -> launcher.seconds = Double.parseDouble(args[++i]);
+                case "--rate" -> launcher.rate = Double.parseDouble(args[++i]);
+                case "--mode" -> launcher.mode = SimulationMode.valueOf(args[++i]);
+                case "--nav-cache" -> launcher.navigationCache = args[++i];
+                case "--input" -> launcher.input = readTrace(args[++i]);
+                case "--loop" -> launcher.loopInput = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        Room room = ConfigParser.parse(args[0]);
+        if (room == null) {
+            throw new IllegalArgumentException("Scene could not be parsed: " + args[0]);
+        }
+        System.out.printf("Scene loaded %d ms after the JVM started%n", ManagementFactory.getRuntimeMXBean().getUptime());
+        launcher.simulate(room, true);
+    }
+
+    private static InputTrace readTrace(String file) {
+        try {
+            return InputTrace.read(Path.of(file));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Input trace could not be read: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Steps a room as fast as possible until the tick or time limit is reached.
+     *
+     * @param room  The room to simulate.
+     * @param print True to print the throughput per window and a summary.
+     */
+    private void simulate(Room room, boolean print) {
+        SimulationEngine engine = new SimulationEngine(room);
+        engine.setMode(mode);
+        engine.setPhysicsRate(rate);
+        if (navigationCache != null) {
+            try {
+                engine.getPlanner().setCache(new NavigationCache(Path.of(navigationCache)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (input != null) {
+            if (input.getPhysicsRate() != rate) {
+                System.err.println("The input trace was recorded at " + input.getPhysicsRate() + " Hz, it only"
+                        + " reproduces the recorded run at that rate");
+            }
+            InputPlayer player = new InputPlayer(room, loopInput);
+            player.add(input, 0);
+            engine.setInputPlayer(player);
+        }
+
+        double step = 1 / rate;
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long windowStart = start;
+        long windowTicks = 0;
+        long count = 0;
+        double peak = 0;
+        long warmNanos = -1;
+        List<double[]> windows = new ArrayList<>(); // start in seconds and ticks per second of every window
+        long now = start;
+        while (count < ticks && now < end) {
+            engine.step(step);
+            count++;
+            windowTicks++;
+            now = System.nanoTime();
+            if (now - windowStart >= WINDOW_NANOS) {
+                double windowRate = windowTicks * 1e9 / (now - windowStart);
+                windows.add(new double[]{(windowStart - start) / 1e9, windowRate});
+                peak = Math.max(peak, windowRate);
+                windowStart = now;
+                windowTicks = 0;
+            }
+        }
+        long elapsed = now - start;
+        engine.shutdown();
+        if (!print) {
+            return;
+        }
+
+        for (int i = 0; i < windows.size(); i++) {
+            double[] window = windows.get(i);
+            if (warmNanos < 0 && window[1] >= peak * WARM_SHARE) {
+                warmNanos = (long) (window[0] * 1e9);
+            }
+            // every window of the first second, then one per second
+            if (window[0] < 1 || i % 10 == 0) {
+                System.out.printf("%7.1f s %12.0f ticks/s%n", window[0], window[1]);
+            }
+        }
+        System.out.printf("%d ticks in %.2f s, %.0f ticks/s on average, peak %.0f ticks/s%n",
+                count, elapsed / 1e9, count * 1e9 / elapsed, peak);
+        if (warmNanos >= 0) {
+            System.out.printf("%.0f%% of the peak reached after %d ms%n", WARM_SHARE * 100, warmNanos / 1_000_000);
+        }
+    }
+
+    /**
+     * Records an ahead-of-time cache by running the training workload in a new JVM with the same options and class
+     * path as this one.
+     *
+     * @param cache  The file to write the cache to.
+     * @param scenes The scenes to train on, the built-in scene if empty.
+     * @return The exit status of the training JVM.
+     */
+    private static int train(Path cache, List<String> scenes) {
+        boolean aot = Runtime.version().feature() >= 25;
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // options of an earlier cache and the launcher's own module options are replaced
+            if (!argument.startsWith("-XX:AOT") && !argument.startsWith("-XX:SharedArchiveFile")
+                    && !argument.startsWith("-XX:ArchiveClassesAtExit") && !argument.startsWith("-Djdk.module.")) {
+                command.add(argument);
+            }
+        }
+        command.add((aot ? "-XX:AOTCacheOutput=" : "-XX:ArchiveClassesAtExit=") + cache.toAbsolutePath());
+        String mainModule = System.getProperty("jdk.module.main");
+        if (mainModule != null) {
+            command.add("--module-path");
+            command.add(System.getProperty("jdk.module.path"));
+            command.add("--module");
+            command.add(mainModule + "/" + Main.class.getName());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Main.class.getName());
+        }
+        command.add("--headless");
+        command.add("--training-run");
+        command.addAll(scenes);
+
+        try {
+            int status = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (status != 0 || !Files.exists(cache)) {
+                System.err.println("Training failed, no cache was written");
+                return status != 0 ? status : 1;
+            }
+            System.out.println("Cache written to " + cache + ", start batch runs with "
+                    + (aot ? "-XX:AOTCache=" : "-XX:SharedArchiveFile=") + cache
+                    + " and the same JDK and class path");
+            return 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /**
+     * Runs every scene in both simulation modes for a while, so the cache covers loading a scene, the fixed step and
+     * event driven ticks and path planning.
+     *
+     * @param scenes The scenes to run, the built-in scene if empty.
+     */
+    private static void trainingRun(List<String> scenes) {
+        List<String> files = new ArrayList<>(scenes);
+        Path generated = null;
+        try {
+            if (files.isEmpty()) {
+                // written and parsed again, so the cache also covers reading config files
+                generated = Files.createTempFile("training-scene", ".json");
+                ConfigWriter.save(trainingScene(), generated, (written, total) -> { });
+                files.add(generated.toString());
+            }
+            for (String file : files) {
+                for (SimulationMode mode : SimulationMode.values()) {
+                    Room room = ConfigParser.parse(file);
+                    if (room == null) {
+                        throw new IllegalArgumentException("Scene could not be parsed: " + file);
+                    }
+                    HeadlessLauncher launcher = new HeadlessLauncher();
+                    launcher.mode = mode;
+                    launcher.seconds = TRAINING_SECONDS;
+                    launcher.simulate(room, false);
+                    System.out.println("Trained on " + file + " in " + mode);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (generated != null) {
+                try {
+                    Files.deleteIfExists(generated);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a scene with both kinds of obstacles, wandering robots, robots with goals and a controlled robot.
+     */
+    private static SceneConfig trainingScene() {
+        Random random = new Random(1);
+        double width = 1200;
+        double height = 800;
+        List<SceneConfig.ObstacleEntry> obstacles = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            obstacles.add(new SceneConfig.ObstacleEntry(i % 2 == 0 ? "circle" : "rectangle",
+                    60 + random.nextDouble() * (width - 120), 60 + random.nextDouble() * (height - 120),
+                    10 + random.nextInt(20)));
+        }
+        List<SceneConfig.RobotEntry> robots = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<Position> goals = i % 4 == 0
+                    ? List.of(new Position(20 + random.nextDouble() * (width - 40),
+                            20 + random.nextDouble() * (height - 40)))
+                    : List.of();
+            robots.add(new SceneConfig.RobotEntry(20 + random.nextDouble() * (width - 40),
+                    20 + random.nextDouble() * (height - 40), random.nextDouble() * 2 * Math.PI, goals));
+        }
+        List<SceneConfig.RobotEntry> controlled = List.of(new SceneConfig.RobotEntry(width / 2, height / 2, 0, List.of()));
+        return new SceneConfig(width, height, obstacles, robots, controlled);
+    }
+}
@@ -1,6 +1,10 @@
 package org.openjfx.javaproject;
+import org.openjfx.javaproject.room.Autorobot;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
@@ -9,16 +13,24 @@ import java.io.IOException;
 
 /**
  * The Log class manages recording and buffering of simulation logs.
+ * Steps are appended to a reusable text buffer, so recording does not allocate once the buffers are warmed up.
  */
 public class Log {
-    private List<List<String>> recordedPositions;
+    private static final int BUFFER_CAPACITY = 1 << 20; // characters, twice what is buffered before a flush
+    private static final int BUFFER_STEPS = 1024; // steps buffered before the log should be flushed
+
+    private StringBuilder buffer = new StringBuilder(BUFFER_CAPACITY);
+    private int[] stepEnds = new int[BUFFER_STEPS * 4];
+    private int steps = 0;
+    private final AtomicReference<StringBuilder> spare = new AtomicReference<>();
 
     /**
      * Initializes the log file.
      * @param filename The name of the log file.
      */
     public void initLogs(String filename) {
-        recordedPositions = new ArrayList<>();
+        buffer.setLength(0);
+        steps = 0;
 
         try (FileWriter writer = new FileWriter(filename, false)) {
 
@@ -33,15 +45,90 @@ public class Log {
      * @param positions The list of positions of robots.
      */
     public void recordLogs(int stepNumber, List<String> positions) {
-        StringBuilder lineBuilder = new StringBuilder("{\"step\": " + stepNumber + ", ");
-        lineBuilder.append("\"robots\" : [");
-        for (String position : positions) {
-            lineBuilder.append(position).append(", ");
+        beginStep(stepNumber);
+        for (int i = 0; i < positions.size(); i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(positions.get(i));
+        }
+        endStep();
+    }
+
+    /**
+     * Records the positions of robots at a given time step without creating intermediate strings.
+     * @param stepNumber The time step.
+     * @param robots The robots to record.
+     */
+    public void recordStep(int stepNumber, List<Autorobot> robots) {
+        beginStep(stepNumber);
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append("{\"x\": ");
+            appendFixed(robot.getPosition().getX());
+            buffer.append(", \"y\": ");
+            appendFixed(robot.getPosition().getY());
+            buffer.append(", \"angle\": ");
+            appendFixed(robot.getAngle());
+            buffer.append('}');
+        }
+        endStep();
+    }
+
+    /**
+     * Records robot states given as consecutive x, y and angle values, in the same format as {@link #recordStep(int, List)}.
+     * @param stepNumber The time step.
+     * @param states The states of robots, three values per robot.
+     * @param count The number of robots to record.
+     */
+    public void recordStep(int stepNumber, double[] states, int count) {
+        beginStep(stepNumber);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append("{\"x\": ");
+            appendFixed(states[i * 3]);
+            buffer.append(", \"y\": ");
+            appendFixed(states[i * 3 + 1]);
+            buffer.append(", \"angle\": ");
+            appendFixed(states[i * 3 + 2]);
+            buffer.append('}');
+        }
+        endStep();
+    }
+
+    private void beginStep(int stepNumber) {
+        buffer.append("{\"step\": ").append(stepNumber).append(", \"robots\" : [");
+    }
+
+    private void endStep() {
+        buffer.append("]}\n");
+        if (steps == stepEnds.length) {
+            stepEnds = Arrays.copyOf(stepEnds, steps * 2);
         }
+        stepEnds[steps++] = buffer.length();
+    }
 
-        lineBuilder.setLength(lineBuilder.length() - 2);
-        lineBuilder.append("]}\n");
-        recordedPositions.add(List.of(lineBuilder.toString()));
+    /**
+     * Appends a number with two decimal places, matching the "%.2f" format with a dot as separator.
+     * @param value The number to append.
+     */
+    private void appendFixed(double value) {
+        long scaled = Math.round(value * 100);
+        if (scaled < 0) {
+            buffer.append('-');
+            scaled = -scaled;
+        }
+        buffer.append(scaled / 100).append('.');
+        long fraction = scaled % 100;
+        if (fraction < 10) {
+            buffer.append('0');
+        }
+        buffer.append(fraction);
     }
 
     /**
@@ -50,8 +137,9 @@ public class Log {
      * @return A list of positions of robots at the specified time step.
      */
     public List<String> getLogs(int timeStep) {
-        if (timeStep >= 0 && timeStep < recordedPositions.size()) {
-            return recordedPositions.get(timeStep);
+        if (timeStep >= 0 && timeStep < steps) {
+            int start = timeStep == 0 ? 0 : stepEnds[timeStep - 1];
+            return List.of(buffer.substring(start, stepEnds[timeStep]));
         }
         return null;
     }
@@ -61,7 +149,16 @@ public class Log {
      * @return The total number of time steps.
      */
     public int getTotalTimeSteps() {
-        return recordedPositions.size();
+        return steps;
+    }
+
+    /**
+     * Checks if enough steps are buffered that the log should be flushed.
+     * The buffers have room for more, so recording can continue without growing them while a flush is in flight.
+     * @return True if the log should be flushed, false otherwise.
+     */
+    public boolean isFull() {
+        return steps >= BUFFER_STEPS || buffer.length() >= BUFFER_CAPACITY / 2;
     }
 
     /**
@@ -69,17 +166,45 @@ public class Log {
      * @param filename The name of the log file.
      */
     public void bufferOut(String filename) {
+        writeLogs(filename, buffer);
+        buffer.setLength(0);
+        steps = 0;
+    }
+
+    /**
+     * Detaches the recorded logs, so they can be written out while recording continues.
+     * The returned buffer should be handed back with {@link #recycle(StringBuilder)} once it is written.
+     * @return The logs recorded since the last flush.
+     */
+    public StringBuilder detachLogs() {
+        StringBuilder detached = buffer;
+        StringBuilder next = spare.getAndSet(null);
+        buffer = next != null ? next : new StringBuilder(BUFFER_CAPACITY);
+        steps = 0;
+        return detached;
+    }
+
+    /**
+     * Hands a written buffer back to the log for reuse. May be called from any thread.
+     * @param written The buffer previously returned by {@link #detachLogs()}.
+     */
+    public void recycle(StringBuilder written) {
+        written.setLength(0);
+        spare.set(written);
+    }
+
+    /**
+     * Appends logs to a log file.
+     * @param filename The name of the log file.
+     * @param logs The logs to append.
+     */
+    public static void writeLogs(String filename, CharSequence logs) {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, true))) { // Append mode
-            for (List<String> stepData : recordedPositions) {
-                for (String line : stepData) {
-                    writer.write(line);
-                }
-            }
+            writer.append(logs);
             writer.flush();
         } catch (IOException e) {
             e.printStackTrace();
         }
-        recordedPositions.clear();
     }
 
     /**
@@ -1,7 +1,64 @@
 package org.openjfx.javaproject;
 
+import org.openjfx.javaproject.bench.AllocationCheck;
+import org.openjfx.javaproject.bench.BenchmarkRunner;
+import org.openjfx.javaproject.common.SceneGenerator;
+import org.openjfx.javaproject.engine.SharedWorldReader;
+import org.openjfx.javaproject.engine.TickPacer;
+import org.openjfx.javaproject.shard.ShardCoordinator;
+import org.openjfx.javaproject.telemetry.TelemetryClient;
+import org.openjfx.javaproject.trajectory.ColumnarReader;
+import org.openjfx.javaproject.trajectory.ColumnarWriter;
+import org.openjfx.javaproject.trajectory.TrajectoryIndex;
+
+import java.util.Arrays;
+
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--benchmark")) {
+            BenchmarkRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--allocation-check")) {
+            AllocationCheck.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--sharded")) {
+            ShardCoordinator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--observe")) {
+            SharedWorldReader.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--query")) {
+            TrajectoryIndex.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--export-columns")) {
+            ColumnarWriter.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--read-columns")) {
+            ColumnarReader.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--paced")) {
+            TickPacer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--telemetry-client")) {
+            TelemetryClient.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--generate")) {
+            SceneGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessLauncher.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         RobotSimulator.main(args);
     }
 }
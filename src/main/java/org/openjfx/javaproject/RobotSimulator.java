@@ -3,19 +3,36 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.*;
+import org.openjfx.javaproject.common.ConfigParser;
 import org.openjfx.javaproject.common.EntityEnum;
-import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.common.SceneConfig;
+import org.openjfx.javaproject.common.SceneReloader;
+import org.openjfx.javaproject.common.SceneWatcher;
+import org.openjfx.javaproject.engine.CollisionLogWriter;
+import org.openjfx.javaproject.engine.InputPlayer;
+import org.openjfx.javaproject.engine.InputRecorder;
+import org.openjfx.javaproject.engine.InputTrace;
+import org.openjfx.javaproject.engine.SimulationEngine;
+import org.openjfx.javaproject.navigation.NavigationCache;
+import org.openjfx.javaproject.telemetry.TelemetryServer;
 
 import javafx.geometry.Pos;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.openjfx.javaproject.room.ControlledRobot;
 import org.openjfx.javaproject.room.Position;
 import org.openjfx.javaproject.room.Room;
 import org.openjfx.javaproject.ui.EntityCreator;
+import org.openjfx.javaproject.ui.Viewport;
 import org.openjfx.javaproject.ui.buttons.*;
 
 /**
@@ -25,6 +42,15 @@ public class RobotSimulator extends Application {
     private AnimationTimer timer;
     private boolean isSimulationStarted = false;
     private Pane roomPane;
+    private Viewport viewport;
+    private SimulationEngine engine;
+    private String heatmapFile;
+    private CollisionLogWriter collisionLog;
+    private TelemetryServer telemetry;
+    private SpeedSelector speedSelector;
+    private SceneConfig sceneConfig;
+    private SceneWatcher sceneWatcher;
+    private InputRecorder inputRecorder;
 
     private final ButtonSelection buttonSelection = new ButtonSelection();
     private EntityCreator entityCreator;
@@ -42,11 +68,85 @@ public class RobotSimulator extends Application {
         roomPane = room.create();
         roomPane.setStyle("-fx-background-color: #bdc3c7;");
 
-        entityCreator = new EntityCreator(room, roomPane);
+        viewport = new Viewport(room, roomPane);
+        entityCreator = new EntityCreator(room, viewport);
+
+        engine = new SimulationEngine(room);
+        engine.registerMBean();
+        engine.setSharedStateFile(getParameters().getNamed().get("shared-state"));
+        heatmapFile = getParameters().getNamed().get("heatmap");
+        engine.setAnalytics(heatmapFile != null);
+        String collisionLogFile = getParameters().getNamed().get("collision-log");
+        if (collisionLogFile != null) {
+            try {
+                collisionLog = CollisionLogWriter.start(engine.getCollisionBus(), Path.of(collisionLogFile));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        String navigationCache = getParameters().getNamed().get("nav-cache");
+        if (navigationCache != null) {
+            try {
+                engine.getPlanner().setCache(new NavigationCache(Path.of(navigationCache)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        String tickBudget = getParameters().getNamed().get("tick-budget");
+        if (tickBudget != null) {
+            engine.getQuality().setBudget(Double.parseDouble(tickBudget) / 1000);
+        }
+        engine.getQuality().setEnabled(true);
+        String speed = getParameters().getNamed().get("speed");
+        if (speed != null) {
+            engine.setSpeed(Double.parseDouble(speed));
+        }
+        if (sceneConfig != null && getParameters().getUnnamed().contains("--watch")) {
+            SceneReloader reloader = new SceneReloader(room, sceneConfig);
+            engine.setSceneReloader(reloader);
+            try {
+                sceneWatcher = SceneWatcher.start(Path.of(getParameters().getNamed().get("config")), reloader,
+                        () -> Platform.runLater(() -> {
+                            if (!isSimulationStarted) {
+                                engine.applySceneReload();
+                                viewport.refresh();
+                            }
+                        }));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        String playedInput = getParameters().getNamed().get("play-input");
+        if (playedInput != null) {
+            try {
+                InputPlayer player = new InputPlayer(room, false);
+                player.add(InputTrace.read(Path.of(playedInput)), 0);
+                engine.setInputPlayer(player);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (getParameters().getNamed().containsKey("record-input")) {
+            inputRecorder = new InputRecorder(0, engine.getPhysicsRate());
+            engine.setInputRecorder(inputRecorder);
+        }
+        String telemetryPort = getParameters().getNamed().get("telemetry");
+        if (telemetryPort != null) {
+            try {
+                telemetry = TelemetryServer.start(engine, Integer.parseInt(telemetryPort));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
 
         roomPane.setOnMouseClicked(e -> {
+            if (!e.isStillSincePress()) {
+                return; // the view was dragged
+            }
             if (e.getButton() == MouseButton.PRIMARY && buttonSelection.getMode() != EntityEnum.NONE) {
                 entityCreator.createEntity(buttonSelection.getMode(), new Position(e.getX(), e.getY()));
+            } else if (e.getButton() == MouseButton.SECONDARY) {
+                entityCreator.removeEntity(new Position(e.getX(), e.getY()));
             }
         });
 
@@ -63,12 +163,11 @@ public class RobotSimulator extends Application {
                 double deltaTime = (now - lastUpdate) / 1_000_000_000.0; // Convert nanoseconds to seconds
                 lastUpdate = now;
 
-                for (Autorobot robot : room.getRobots()) {
-                    robot.update(room, deltaTime);
-                }
-                if (room.isControlledRobotSet()) {
-                    room.controlledRobot.update(room, deltaTime);
-                }
+                engine.advance(deltaTime);
+                viewport.refresh();
+                engine.getQuality().setFocus(viewport.getVisibleLeft(), viewport.getVisibleTop(),
+                        viewport.getVisibleRight(), viewport.getVisibleBottom());
+                speedSelector.refresh();
             }
         };
 
@@ -107,13 +206,15 @@ public class RobotSimulator extends Application {
         Button startButton = new StartButton(this);
         PauseButton pauseButton = new PauseButton(this);
         ConfigButton configButton = new ConfigButton(room);
-        ResetButton resetButton = new ResetButton(this, room, roomPane);
+        ResetButton resetButton = new ResetButton(this, room, viewport);
+        speedSelector = new SpeedSelector(engine);
 
         // Set Button Sizes
         startButton.setPrefSize(135,12);
         pauseButton.setPrefSize(135,12);
         configButton.setPrefSize(135,12);
         resetButton.setPrefSize(135,12);
+        configButton.getProgressBar().setPrefWidth(135);
 
         Region spacer = new Region();
         spacer.setMinHeight(10); // Set the height of the space you want
@@ -130,13 +231,14 @@ public class RobotSimulator extends Application {
                 controlledRobotButton,
                 noneButton,
                 configButton,
+                configButton.getProgressBar(),
                 resetButton
         );
 
         // Create a new pane for bottom buttons
         VBox bottomButtonPane = new VBox(10);
         bottomButtonPane.setAlignment(Pos.BOTTOM_CENTER);
-        bottomButtonPane.getChildren().addAll(startButton, pauseButton);
+        bottomButtonPane.getChildren().addAll(speedSelector, startButton, pauseButton);
         bottomButtonPane.setPadding(new Insets(0, 10, 0, 10));
 
         // Create a new BorderPane for the button layout
@@ -147,37 +249,88 @@ public class RobotSimulator extends Application {
         // Create a main pane and add roomPane and buttonPane
         BorderPane mainPane = new BorderPane();
         mainPane.setPadding(new Insets(10, 0, 10, 10)); // Set padding for mainPane
-        mainPane.setCenter(roomPane);
+        mainPane.setCenter(viewport);
         mainPane.setRight(buttonLayout);
 
         // Main Scene
         mainPane.setStyle("-fx-background-color: #2c3e50;");
-        Scene scene = new Scene(mainPane, room.getWidth() + 150 + 13, room.getHeight() + 20);
+        Scene scene = new Scene(mainPane, viewport.getPrefWidth() + 150 + 13, viewport.getPrefHeight() + 20);
 
 
-        // Key Input Listeners
+        // Key Input Listeners, the keyboard drives the first controlled robot
         scene.setOnKeyPressed(event -> {
-            if (room.isControlledRobotSet()) {
-                room.controlledRobot.keyPressed(event);
+            ControlledRobot controlled = room.getControlledRobot();
+            if (controlled != null) {
+                controlled.keyPressed(event);
             }
         });
 
         scene.setOnKeyReleased(event -> {
-            if (room.isControlledRobotSet()) {
-                room.controlledRobot.keyReleased(event);
+            ControlledRobot controlled = room.getControlledRobot();
+            if (controlled != null) {
+                controlled.keyReleased(event);
             }
         });
 
-        primaryStage.setResizable(false);
         primaryStage.setScene(scene);
         primaryStage.show();
+        viewport.fitRoom();
+    }
+
+    /**
+     * Shuts down the simulation engine when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (sceneWatcher != null) {
+            sceneWatcher.close();
+        }
+        if (telemetry != null) {
+            telemetry.close();
+        }
+        if (engine != null) {
+            if (inputRecorder != null) {
+                String file = getParameters().getNamed().get("record-input");
+                try {
+                    inputRecorder.finish(engine.getTickCount()).write(Path.of(file));
+                    System.out.println("Recorded " + inputRecorder.size() + " inputs to " + file);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (heatmapFile != null) {
+                engine.exportHeatmap(heatmapFile);
+            }
+            engine.shutdown();
+        }
+        if (collisionLog != null) {
+            collisionLog.close();
+        }
     }
 
     /**
      * Configures and returns the Room instance for the simulation.
-     * @return The configured room.
+     * The room is loaded from --config=file if given, and reloaded on changes with --watch, otherwise an empty room of --room=WIDTHxHEIGHT is created.
+     * @return The configured room, 500x500 by default.
      */
     private Room getRoom() {
+        Map<String, String> named = getParameters().getNamed();
+        if (named.containsKey("config")) {
+            sceneConfig = ConfigParser.read(named.get("config"));
+            if (sceneConfig != null) {
+                return ConfigParser.build(sceneConfig);
+            }
+        }
+        if (named.containsKey("room")) {
+            String[] size = named.get("room").split("x");
+            if (size.length == 2) {
+                try {
+                    return new Room(Double.parseDouble(size[0]), Double.parseDouble(size[1]));
+                } catch (NumberFormatException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
         return new Room(500, 500);
     }
 
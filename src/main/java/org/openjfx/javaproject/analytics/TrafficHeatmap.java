@@ -0,0 +1,303 @@
+package org.openjfx.javaproject.analytics;
+
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.CollisionListener;
+import org.openjfx.javaproject.room.Room;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Traffic statistics of a room, collected while the simulation runs instead of from the log afterwards.
+ * The room is divided into a fixed grid of cells, each with primitive counters, so memory use depends
+ * only on the size of the room and never grows with the length of the run.
+ * <p>
+ * Per cell it counts:
+ * <ul>
+ *     <li>entries, how many times a robot moved into the cell,</li>
+ *     <li>dwell time, the seconds robots spent in the cell in total,</li>
+ *     <li>blocked moves, updates in which a robot in the cell could not move at all,</li>
+ *     <li>avoidance turns, updates in which a robot in the cell turned away from something in its way.</li>
+ * </ul>
+ * Counters are updated on the tick thread. To export while the simulation runs, take a {@link #copy()} there
+ * and write the copy anywhere.
+ */
+public class TrafficHeatmap implements CollisionListener {
+    private static final int MAX_CELLS = 65_536; // cells get larger in big rooms to keep the memory bounded
+
+    /**
+     * Counter a heatmap image can show.
+     */
+    public enum Metric {
+        ENTRIES, DWELL, BLOCKED, TURNS
+    }
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final long[] entries;
+    private final double[] dwell;
+    private final long[] blocked;
+    private final long[] turns;
+    private int[] lastCells = new int[0]; // cell of each robot at the previous sample by robot id, -1 if unknown
+
+    /**
+     * Constructs an empty heatmap of a room.
+     *
+     * @param width    The width of the room.
+     * @param height   The height of the room.
+     * @param cellSize The preferred width and height of a cell. Larger cells are used if the room would
+     *                 otherwise have more than 65 536 cells.
+     */
+    public TrafficHeatmap(double width, double height, double cellSize) {
+        this.cellSize = Math.max(cellSize, Math.sqrt(width * height / MAX_CELLS));
+        this.columns = Math.max(1, (int) Math.ceil(width / this.cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / this.cellSize));
+        this.entries = new long[columns * rows];
+        this.dwell = new double[columns * rows];
+        this.blocked = new long[columns * rows];
+        this.turns = new long[columns * rows];
+    }
+
+    private TrafficHeatmap(TrafficHeatmap other) {
+        this.cellSize = other.cellSize;
+        this.columns = other.columns;
+        this.rows = other.rows;
+        this.entries = other.entries.clone();
+        this.dwell = other.dwell.clone();
+        this.blocked = other.blocked.clone();
+        this.turns = other.turns.clone();
+    }
+
+    /**
+     * Adds the current positions of all auto robots, called once per physics step.
+     * Does not allocate unless robots were added since the last sample.
+     *
+     * @param room      The simulated room.
+     * @param deltaTime The length of the step, in seconds.
+     */
+    public void sample(Room room, double deltaTime) {
+        List<Autorobot> robots = room.getRobots();
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            int id = robot.getId();
+            if (id >= lastCells.length) {
+                int[] grown = new int[Math.max(id + 1, lastCells.length * 2)];
+                System.arraycopy(lastCells, 0, grown, 0, lastCells.length);
+                for (int j = lastCells.length; j < grown.length; j++) {
+                    grown[j] = -1;
+                }
+                lastCells = grown;
+            }
+            int cell = cellAt(robot.getPosition().getX(), robot.getPosition().getY());
+            dwell[cell] += deltaTime;
+            if (cell != lastCells[id]) {
+                entries[cell]++;
+                lastCells[id] = cell;
+            }
+        }
+    }
+
+    @Override
+    public void collided(Autorobot robot, boolean blockedMove) {
+        int cell = cellAt(robot.getPosition().getX(), robot.getPosition().getY());
+        turns[cell]++;
+        if (blockedMove) {
+            blocked[cell]++;
+        }
+    }
+
+    /**
+     * Sets all counters back to zero.
+     */
+    public void clear() {
+        for (int cell = 0; cell < entries.length; cell++) {
+            entries[cell] = 0;
+            dwell[cell] = 0;
+            blocked[cell] = 0;
+            turns[cell] = 0;
+        }
+        for (int i = 0; i < lastCells.length; i++) {
+            lastCells[i] = -1;
+        }
+    }
+
+    /**
+     * Creates a copy of the counters that can be exported on another thread while this heatmap keeps counting.
+     *
+     * @return The copy.
+     */
+    public TrafficHeatmap copy() {
+        return new TrafficHeatmap(this);
+    }
+
+    /**
+     * Writes the heatmap to a file, as CSV if the name ends with ".csv" and as a PNG image of the dwell time otherwise.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file could not be written.
+     */
+    public void export(Path path) throws IOException {
+        if (path.toString().toLowerCase().endsWith(".csv")) {
+            exportCsv(path);
+        } else {
+            exportImage(path, Metric.DWELL);
+        }
+    }
+
+    /**
+     * Writes every cell with any traffic as a CSV row: column, row, x and y of the cell center,
+     * entries, dwell time in seconds, blocked moves and avoidance turns.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file could not be written.
+     */
+    public void exportCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("column,row,x,y,entries,dwell,blocked,turns");
+            writer.newLine();
+            for (int cell = 0; cell < entries.length; cell++) {
+                if (entries[cell] == 0 && dwell[cell] == 0 && blocked[cell] == 0 && turns[cell] == 0) {
+                    continue;
+                }
+                int column = cell % columns;
+                int row = cell / columns;
+                writer.write(column + "," + row + "," + (column + 0.5) * cellSize + "," + (row + 0.5) * cellSize
+                        + "," + entries[cell] + "," + dwell[cell] + "," + blocked[cell] + "," + turns[cell]);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes one counter as a PNG image with one pixel per cell, from black for no traffic through red and
+     * yellow to white for the busiest cell. Values are scaled logarithmically, so quiet aisles stay visible
+     * next to congested ones.
+     *
+     * @param path   The file to write.
+     * @param metric The counter to show.
+     * @throws IOException If the file could not be written.
+     */
+    public void exportImage(Path path, Metric metric) throws IOException {
+        double max = 0;
+        for (int cell = 0; cell < entries.length; cell++) {
+            max = Math.max(max, value(metric, cell));
+        }
+        double scale = max > 0 ? Math.log1p(max) : 1;
+
+        byte[] pixels = new byte[rows * (1 + columns * 3)];
+        int offset = 0;
+        for (int row = 0; row < rows; row++) {
+            pixels[offset++] = 0; // no filter
+            for (int column = 0; column < columns; column++) {
+                double t = Math.log1p(value(metric, row * columns + column)) / scale;
+                pixels[offset++] = (byte) channel(t * 3);
+                pixels[offset++] = (byte) channel(t * 3 - 1);
+                pixels[offset++] = (byte) channel(t * 3 - 2);
+            }
+        }
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            writePng(out, columns, rows, pixels);
+        }
+    }
+
+    private double value(Metric metric, int cell) {
+        return switch (metric) {
+            case ENTRIES -> entries[cell];
+            case DWELL -> dwell[cell];
+            case BLOCKED -> blocked[cell];
+            case TURNS -> turns[cell];
+        };
+    }
+
+    private static int channel(double t) {
+        return (int) Math.round(Math.max(0, Math.min(1, t)) * 255);
+    }
+
+    /**
+     * Writes an 8-bit RGB PNG with the scanlines given, each prefixed by its filter byte.
+     */
+    private static void writePng(OutputStream out, int width, int height, byte[] scanlines) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8); // bit depth
+        headerData.writeByte(2); // RGB
+        headerData.writeByte(0); // deflate
+        headerData.writeByte(0); // adaptive filtering
+        headerData.writeByte(0); // no interlace
+        writeChunk(data, "IHDR", header.toByteArray());
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(scanlines);
+        }
+        writeChunk(data, "IDAT", compressed.toByteArray());
+        writeChunk(data, "IEND", new byte[0]);
+        data.flush();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] content) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(content);
+        out.writeInt(content.length);
+        out.write(typeBytes);
+        out.write(content);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private int cellAt(double x, double y) {
+        int column = Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+        int row = Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+        return row * columns + column;
+    }
+
+    /**
+     * @return The width and height of a cell.
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return The number of cells in a row.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return The number of cells in a column.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Retrieves the value of a counter in the cell containing a point.
+     *
+     * @param metric The counter.
+     * @param x      The x-coordinate of the point.
+     * @param y      The y-coordinate of the point.
+     * @return The value, dwell time in seconds, the others as counts.
+     */
+    public double getValue(Metric metric, double x, double y) {
+        return value(metric, cellAt(x, y));
+    }
+}
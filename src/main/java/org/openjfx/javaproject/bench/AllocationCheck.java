@@ -0,0 +1,86 @@
+package org.openjfx.javaproject.bench;
+
+import org.openjfx.javaproject.common.ConfigParser;
+import org.openjfx.javaproject.engine.SimulationEngine;
+import org.openjfx.javaproject.room.Room;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Checks that the steady-state tick does not allocate.
+ * Every benchmark scene is stepped with recording turned on, and after a warm-up the bytes allocated
+ * by the tick thread over the measured ticks have to be zero.
+ */
+public class AllocationCheck {
+    private static final double TICK_TIME = 1.0 / 60;
+    private static final int WARMUP_TICKS = 5_000;
+    private static final int MEASURED_TICKS = 10_000;
+
+    /**
+     * Runs the check over all scenes in a directory.
+     * Exits with status 1 if any scene allocated during the measured ticks.
+     *
+     * @param args Command line arguments: [scene directory], defaults to "benchmarks".
+     */
+    public static void main(String[] args) {
+        String directory = args.length > 0 ? args[0] : "benchmarks";
+        File[] scenes = new File(directory).listFiles((dir, name) -> name.endsWith(".json") && !name.equals("baseline.json"));
+        if (scenes == null) {
+            throw new IllegalArgumentException("Scene directory not found: " + directory);
+        }
+        Arrays.sort(scenes);
+
+        boolean passed = true;
+        for (File scene : scenes) {
+            long allocated = measure(scene);
+            System.out.printf("%-20s %10d bytes over %d ticks%n", scene.getName(), allocated, MEASURED_TICKS);
+            if (allocated != 0) {
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "Steady-state tick is allocation free." : "Steady-state tick allocates.");
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Measures the bytes allocated by the tick thread while a scene is stepped with recording on.
+     *
+     * @param scene The scene config file.
+     * @return Bytes allocated during the measured ticks.
+     */
+    public static long measure(File scene) {
+        Room room = ConfigParser.parse(scene.getPath());
+        if (room == null) {
+            throw new IllegalArgumentException("Scene could not be parsed: " + scene);
+        }
+        File logFile;
+        try {
+            logFile = File.createTempFile("allocation-check", ".log");
+            logFile.deleteOnExit();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        SimulationEngine engine = new SimulationEngine(room);
+        engine.setLogFile(logFile.getPath());
+        engine.setRecording(true);
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            engine.step(TICK_TIME);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            engine.step(TICK_TIME);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        engine.shutdown();
+        logFile.delete();
+        return allocated;
+    }
+}
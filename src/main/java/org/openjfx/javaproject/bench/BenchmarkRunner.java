@@ -0,0 +1,248 @@
+package org.openjfx.javaproject.bench;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjfx.javaproject.common.ConfigParser;
+import org.openjfx.javaproject.engine.InputPlayer;
+import org.openjfx.javaproject.engine.InputTrace;
+import org.openjfx.javaproject.engine.SimulationEngine;
+import org.openjfx.javaproject.engine.SimulationMode;
+import org.openjfx.javaproject.room.Room;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmark scenes headlessly and compares the results against a stored baseline.
+ * Every scene is a regular config file, it is simulated in rounds of a fixed number of ticks after a warm-up, until
+ * at least {@link #MIN_ROUNDS} rounds and a minimum wall-clock time have passed. The throughput of the best round is
+ * reported, so a short pause of the machine does not count as a regression. A scene with an
+ * input trace of the same name ({@code scene.input} next to {@code scene.json}) has its controlled robot driven by
+ * the trace, which starts over whenever it ends.
+ */
+public class BenchmarkRunner {
+    private static final double TICK_TIME = 1.0 / 60;
+    private static final int MIN_ROUNDS = 3;
+
+    private String sceneDirectory = "benchmarks";
+    private String baselineFile = "benchmarks/baseline.json";
+    private int warmupTicks = 2_000;
+    private int ticks = 10_000;
+    private double minTime = 2; // seconds of measured ticks per scene
+    private boolean updateBaseline = false;
+    private SimulationMode mode = SimulationMode.FIXED_STEP;
+
+    /**
+     * Result of a single benchmark scene.
+     *
+     * @param scene         Name of the scene.
+     * @param ticksPerSecond Achieved physics steps per wall-clock second, in the fastest round.
+     * @param bytesPerTick  Bytes allocated by the tick thread per physics step.
+     * @param peakHeapBytes Peak heap usage during the measured ticks.
+     */
+    public record Result(String scene, double ticksPerSecond, double bytesPerTick, long peakHeapBytes) {
+        JSONObject toJson() {
+            JSONObject obj = new JSONObject();
+            obj.put("ticksPerSecond", ticksPerSecond);
+            obj.put("bytesPerTick", bytesPerTick);
+            obj.put("peakHeapBytes", peakHeapBytes);
+            return obj;
+        }
+    }
+
+    /**
+     * Runs the benchmark suite.
+     * Exits with status 1 if a scene regressed against the baseline.
+     *
+     * @param args Command line arguments: [--scenes dir] [--baseline file] [--ticks n] [--warmup n]
+     *             [--min-time seconds] [--mode FIXED_STEP|EVENT_DRIVEN] [--update-baseline]
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scenes" -> runner.sceneDirectory = args[++i];
+                case "--baseline" -> runner.baselineFile = args[++i];
+                case "--ticks" -> runner.ticks = Integer.parseInt(args[++i]);
+                case "--warmup" -> runner.warmupTicks = Integer.parseInt(args[++i]);
+                case "--min-time" -> runner.minTime = Double.parseDouble(args[++i]);
+                case "--mode" -> runner.mode = SimulationMode.valueOf(args[++i]);
+                case "--update-baseline" -> runner.updateBaseline = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        System.exit(runner.run() ? 0 : 1);
+    }
+
+    /**
+     * Runs all scenes and either compares them against the baseline or stores them as the new baseline.
+     *
+     * @return True if no scene regressed, false otherwise.
+     */
+    public boolean run() {
+        List<Result> results = new ArrayList<>();
+        for (File scene : findScenes()) {
+            Result result = runScene(scene);
+            System.out.printf("%-20s %12.1f ticks/s %12.1f B/tick %10d KiB peak heap%n",
+                    result.scene(), result.ticksPerSecond(), result.bytesPerTick(), result.peakHeapBytes() / 1024);
+            results.add(result);
+        }
+
+        JSONObject baseline = readBaseline();
+        if (updateBaseline) {
+            JSONObject scenes = new JSONObject();
+            for (Result result : results) {
+                scenes.put(result.scene(), result.toJson());
+            }
+            baseline.put("scenes", scenes);
+            writeBaseline(baseline);
+            System.out.println("Baseline updated: " + baselineFile);
+            return true;
+        }
+        return compare(results, baseline);
+    }
+
+    private File[] findScenes() {
+        File[] scenes = new File(sceneDirectory).listFiles((dir, name) ->
+                name.endsWith(".json") && !new File(dir, name).getPath().equals(new File(baselineFile).getPath()));
+        if (scenes == null) {
+            throw new IllegalArgumentException("Scene directory not found: " + sceneDirectory);
+        }
+        Arrays.sort(scenes);
+        return scenes;
+    }
+
+    /**
+     * Simulates one scene and measures its throughput, allocation rate and peak heap.
+     *
+     * @param scene The scene config file.
+     * @return The measured result.
+     */
+    public Result runScene(File scene) {
+        Room room = ConfigParser.parse(scene.getPath());
+        if (room == null) {
+            throw new IllegalArgumentException("Scene could not be parsed: " + scene);
+        }
+        SimulationEngine engine = new SimulationEngine(room);
+        engine.setMode(mode);
+        File input = new File(scene.getPath().substring(0, scene.getPath().length() - ".json".length()) + ".input");
+        if (input.exists()) {
+            // the controlled robot of the scene is driven by the recorded inputs, over and over
+            try {
+                InputPlayer player = new InputPlayer(room, true);
+                player.add(InputTrace.read(input.toPath()), 0);
+                engine.setInputPlayer(player);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Input trace could not be read: " + e.getMessage(), e);
+            }
+        }
+        for (int i = 0; i < warmupTicks; i++) {
+            engine.step(TICK_TIME);
+        }
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long minNanos = (long) (minTime * 1_000_000_000L);
+        long measuredStart = System.nanoTime();
+        long bestRound = Long.MAX_VALUE;
+        long measuredTicks = 0;
+        int rounds = 0;
+        while (rounds < MIN_ROUNDS || System.nanoTime() - measuredStart < minNanos) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                engine.step(TICK_TIME);
+            }
+            bestRound = Math.min(bestRound, System.nanoTime() - start);
+            measuredTicks += ticks;
+            rounds++;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        engine.shutdown();
+
+        String name = scene.getName().substring(0, scene.getName().length() - ".json".length());
+        return new Result(name, ticks * 1_000_000_000.0 / bestRound, (double) allocated / measuredTicks, peakHeap);
+    }
+
+    /**
+     * Compares results against the baseline, printing every regression.
+     *
+     * @param results  The measured results.
+     * @param baseline The baseline with tolerances and per-scene results.
+     * @return True if no scene regressed, false otherwise.
+     */
+    private boolean compare(List<Result> results, JSONObject baseline) {
+        JSONObject tolerance = baseline.optJSONObject("tolerance", new JSONObject());
+        double throughputTolerance = tolerance.optDouble("throughput", 0.10);
+        double allocationTolerance = tolerance.optDouble("allocation", 0.10);
+        double allocationSlack = tolerance.optDouble("allocationBytes", 16);
+        JSONObject scenes = baseline.optJSONObject("scenes", new JSONObject());
+
+        boolean passed = true;
+        for (Result result : results) {
+            JSONObject expected = scenes.optJSONObject(result.scene());
+            if (expected == null) {
+                System.out.println(result.scene() + ": no baseline, run with --update-baseline to record one");
+                continue;
+            }
+            double minThroughput = expected.getDouble("ticksPerSecond") * (1 - throughputTolerance);
+            if (result.ticksPerSecond() < minThroughput) {
+                System.out.printf("%s: throughput regressed to %.1f ticks/s, expected at least %.1f%n",
+                        result.scene(), result.ticksPerSecond(), minThroughput);
+                passed = false;
+            }
+            double maxAllocation = expected.getDouble("bytesPerTick") * (1 + allocationTolerance) + allocationSlack;
+            if (result.bytesPerTick() > maxAllocation) {
+                System.out.printf("%s: allocation rose to %.1f B/tick, expected at most %.1f%n",
+                        result.scene(), result.bytesPerTick(), maxAllocation);
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "No regressions." : "Regressions found.");
+        return passed;
+    }
+
+    private JSONObject readBaseline() {
+        File file = new File(baselineFile);
+        if (!file.exists()) {
+            return new JSONObject();
+        }
+        try (FileReader reader = new FileReader(file)) {
+            return new JSONObject(new JSONTokener(reader));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new JSONObject();
+        }
+    }
+
+    private void writeBaseline(JSONObject baseline) {
+        try (FileWriter writer = new FileWriter(baselineFile)) {
+            writer.write(baseline.toString(2));
+            writer.write("\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
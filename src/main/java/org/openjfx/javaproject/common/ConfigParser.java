@@ -9,10 +9,12 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.FileReader;
+import java.util.ArrayList;
 import java.util.List;
 import java.io.IOException;
 
 public class ConfigParser {
+    private static final double PLACEMENT_CELL_SIZE = 4 * Autorobot.RADIUS; // cell size of the grid robots are placed in
 
     /**
      * Parse config file and create room with all objects from the config file.
@@ -21,6 +23,20 @@ public class ConfigParser {
      * @return Room object with size, robots, obstacles and controlled robot specified in the config file.
      */
     public static Room parse(String filename) {
+        SceneConfig config = read(filename);
+        if (config == null) {
+            return null;
+        }
+        return build(config);
+    }
+
+    /**
+     * Read config file without creating a room, entries without coordinates or of unknown type are skipped.
+     *
+     * @param filename Name and path of the configuration file.
+     * @return The entries of the config file, or null if it could not be read.
+     */
+    public static SceneConfig read(String filename) {
         try (FileReader fileReader = new FileReader(filename)) {
             // Parse JSON
             JSONObject jsonObject = new JSONObject(new org.json.JSONTokener(fileReader));
@@ -36,82 +52,33 @@ public class ConfigParser {
                 roomY = jsonObject.getDouble("roomY");
             }
 
-            Room room = new Room(roomX, roomY);
-
             // Parse obstacles
             JSONArray obstacles = jsonObject.getJSONArray("obstacles");
+            List<SceneConfig.ObstacleEntry> obstacleEntries = new ArrayList<>();
 
             for (int i = 0; i < obstacles.length(); i++) {
                 // Get obstacle and obstacle type
                 JSONObject obstacle = obstacles.getJSONObject(i);
                 String type = obstacle.getString("type");
 
-                if(obstacle.has("x") && obstacle.has("y")){
-                    Position position = new Position(obstacle.getDouble("x"), obstacle.getDouble("y"));
+                if(obstacle.has("x") && obstacle.has("y") && ("circle".equals(type) || "rectangle".equals(type))){
                     double size;
                     if(obstacle.has("size")){
                         size = obstacle.getDouble("size");
                     } else {
                         size = 20;
                     }
-
-                    if ("circle".equals(type)) {
-                        Obstacle new_obstacle = new CircleObstacle(position, size);
-                        room.addObstacle(new_obstacle);
-                    } else if ("rectangle".equals(type)) {
-                        Obstacle new_obstacle = new RectangleObstacle(position, size);
-                        room.addObstacle(new_obstacle);
-                    }
+                    obstacleEntries.add(new SceneConfig.ObstacleEntry(type, obstacle.getDouble("x"), obstacle.getDouble("y"), size));
                 }
             }
 
             // Get auto robots
-            JSONArray autoRobots = jsonObject.getJSONArray("autoRobots");
-
-            for (int i = 0; i < autoRobots.length(); i++) {
-                JSONObject robot = autoRobots.getJSONObject(i);
-
-                // Check if robot has valid coordinates, if not then skip this one
-                if(robot.has("x") && robot.has("y")){
-                    // If angle is set, use it if not set it to zero.
-                    double angle;
-                    if(robot.has("angle")){
-                        angle = robot.getDouble("angle");
-                    } else {
-                        angle = 0;
-                    }
-                    Position position = new Position(robot.getDouble("x"), robot.getDouble("y"));
-
-                    Autorobot autorobot = Autorobot.create(room, position, angle);
-
-                    if(autorobot != null){
-                        room.addRobot(autorobot);
-                    }
-                }
-            }
+            List<SceneConfig.RobotEntry> autoRobots = parseRobots(jsonObject.getJSONArray("autoRobots"));
 
             // Get controlled robot
-            JSONArray controlledRobot = jsonObject.getJSONArray("controlledRobot");
-            for (int i = 0; i < controlledRobot.length(); i++) {
-                JSONObject robot = controlledRobot.getJSONObject(i);
-                if(robot.has("x") && robot.has("y")){
-                    // If angle is set, use it if not set it to zero.
-                    double angle;
-                    if(robot.has("angle")){
-                        angle = robot.getDouble("angle");
-                    } else {
-                        angle = 0;
-                    }
-                    Position position = new Position(robot.getDouble("x"), robot.getDouble("y"));
+            List<SceneConfig.RobotEntry> controlledRobots = parseRobots(jsonObject.getJSONArray("controlledRobot"));
 
-                    ControlledRobot new_robot = ControlledRobot.create(room, position, angle);
-
-                    if(new_robot != null){
-                        room.addControlledRobot(new_robot);
-                    }
-                }
-            }
-            return room;
+            return new SceneConfig(roomX, roomY, obstacleEntries, autoRobots, controlledRobots);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -119,60 +86,120 @@ public class ConfigParser {
     }
 
     /**
-     * Convert obstacles into JSON
+     * Create room with all objects of a config file.
      *
-     * @param obstacles List of obstacles.
-     * @return Information about obstacles in JSON format.
+     * @param config The entries of the config file.
+     * @return Room object with size, robots, obstacles and controlled robot of the config file.
      */
-    public static JSONArray obstaclesToJson(List<Obstacle> obstacles) {
-        JSONArray jsonArray = new JSONArray();
-        for (Obstacle obstacle : obstacles) {
-            JSONObject obj = new JSONObject();
-            obj.put("x", obstacle.getPosition().getX());
-            obj.put("y", obstacle.getPosition().getY());
-            if(obstacle instanceof CircleObstacle circleObstacle){
-                obj.put("size", obstacle.getSize());
+    public static Room build(SceneConfig config) {
+        Room room = new Room(config.getWidth(), config.getHeight());
+
+        for (SceneConfig.ObstacleEntry entry : config.getObstacles()) {
+            room.addObstacle(createObstacle(entry));
+        }
+
+        // robots of the file are checked against each other through a grid, so large scenes load in linear time
+        SpatialGrid<Autorobot> placed = new SpatialGrid<>(PLACEMENT_CELL_SIZE);
+        for (SceneConfig.RobotEntry entry : config.getAutoRobots()) {
+            Position position = new Position(entry.x(), entry.y());
+            if (!room.isFree(position, Autorobot.RADIUS) || overlapsRobot(placed, position)) {
+                continue;
             }
-            else{
-                obj.put("size", obstacle.getSize()/2);
+            Autorobot autorobot = Autorobot.restore(position, entry.angle());
+            room.addRobot(autorobot);
+            placed.add(autorobot, position.getX(), position.getY(), Autorobot.RADIUS);
+            if(!entry.goals().isEmpty()){
+                autorobot.setGoals(new ArrayList<>(entry.goals()));
             }
-            obj.put("type", obstacle.getType());
-            jsonArray.put(obj);
         }
-        return jsonArray;
+
+        createControlledRobots(room, config.getControlledRobots());
+        return room;
+    }
+
+    private static boolean overlapsRobot(SpatialGrid<Autorobot> placed, Position position) {
+        double reach = 2 * Autorobot.RADIUS;
+        boolean[] overlaps = {false};
+        placed.query(position.getX() - reach, position.getY() - reach, position.getX() + reach,
+                position.getY() + reach, robot -> {
+            if (position.isNear(robot.getPosition(), Autorobot.RADIUS + robot.getSize())) {
+                overlaps[0] = true;
+            }
+        });
+        return overlaps[0];
     }
 
     /**
-     * Convert self controlled robots into JSON
+     * Create the obstacle of a config entry.
      *
-     * @param autoRobots List of obstacles.
-     * @return Information about self controlled robots in JSON format.
+     * @param entry The obstacle entry.
+     * @return The obstacle, not yet added to a room.
      */
-    public static JSONArray autoRobotsToJson(List<Autorobot> autoRobots) {
-        JSONArray jsonArray = new JSONArray();
-        for (Autorobot autoRobot : autoRobots) {
-            JSONObject obj = new JSONObject();
-            obj.put("x", autoRobot.getPosition().getX());
-            obj.put("y", autoRobot.getPosition().getY());
-            obj.put("angle", autoRobot.getAngle());
-            jsonArray.put(obj);
+    public static Obstacle createObstacle(SceneConfig.ObstacleEntry entry) {
+        Position position = new Position(entry.x(), entry.y());
+        if ("circle".equals(entry.type())) {
+            return new CircleObstacle(position, entry.size());
         }
-        return jsonArray;
+        return new RectangleObstacle(position, entry.size());
     }
 
     /**
-     * Convert controlled robot information into JSON
+     * Create the controlled robots of all config entries that fit into the room.
      *
-     * @param controlledRobot List of obstacles.
-     * @return Information about the controlled robot in JSON format.
+     * @param room    The room to add the controlled robots to.
+     * @param entries The controlled robot entries.
+     * @return The controlled robot of each entry, null for entries that do not fit.
      */
-    public static JSONArray robotsToJson(ControlledRobot controlledRobot) {
-        JSONArray jsonArray = new JSONArray();
-        JSONObject obj = new JSONObject();
-        obj.put("x", controlledRobot.getPosition().getX());
-        obj.put("y", controlledRobot.getPosition().getY());
-        jsonArray.put(obj);
-        return jsonArray;
+    public static List<ControlledRobot> createControlledRobots(Room room, List<SceneConfig.RobotEntry> entries) {
+        List<ControlledRobot> created = new ArrayList<>(entries.size());
+        for (SceneConfig.RobotEntry entry : entries) {
+            ControlledRobot new_robot = ControlledRobot.create(room, new Position(entry.x(), entry.y()), entry.angle());
+            created.add(new_robot);
+        }
+        return created;
     }
 
+    /**
+     * Parse robots, robots without coordinates are skipped.
+     *
+     * @param robots JSON array of robot objects.
+     * @return List of robot entries.
+     */
+    private static List<SceneConfig.RobotEntry> parseRobots(JSONArray robots) {
+        List<SceneConfig.RobotEntry> entries = new ArrayList<>();
+        for (int i = 0; i < robots.length(); i++) {
+            JSONObject robot = robots.getJSONObject(i);
+
+            // Check if robot has valid coordinates, if not then skip this one
+            if(robot.has("x") && robot.has("y")){
+                // If angle is set, use it if not set it to zero.
+                double angle;
+                if(robot.has("angle")){
+                    angle = robot.getDouble("angle");
+                } else {
+                    angle = 0;
+                }
+                List<Position> goals = robot.has("goals") ? parseGoals(robot.getJSONArray("goals")) : List.of();
+                entries.add(new SceneConfig.RobotEntry(robot.getDouble("x"), robot.getDouble("y"), angle, goals));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Parse goals of a robot.
+     *
+     * @param goals JSON array of objects with x and y coordinates.
+     * @return List of goal positions, goals without coordinates are skipped.
+     */
+    private static List<Position> parseGoals(JSONArray goals) {
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < goals.length(); i++) {
+            JSONObject goal = goals.getJSONObject(i);
+            if(goal.has("x") && goal.has("y")){
+                positions.add(new Position(goal.getDouble("x"), goal.getDouble("y")));
+            }
+        }
+        return positions;
+    }
 }
@@ -0,0 +1,233 @@
+package org.openjfx.javaproject.common;
+
+import org.json.JSONObject;
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Position;
+import org.openjfx.javaproject.room.Room;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Saves rooms as configuration files that {@link ConfigParser} reads.
+ * <p>
+ * A save is split in two: {@link #snapshot(Room)} copies the entities on the thread that owns the room, which is quick,
+ * and {@link #save(SceneConfig, Path, Progress)} writes the copy on any thread. The JSON is written entity by entity
+ * without building a tree of the whole file first. It goes to a temporary file next to the target, which replaces the
+ * target only once it is complete and on disk, so a crash during a save leaves the previous file intact.
+ */
+public class ConfigWriter {
+    private static final int PROGRESS_INTERVAL = 1024; // entities between progress reports
+
+    /**
+     * Receives the progress of a save.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * @param written The number of entities written so far.
+         * @param total   The number of entities to write.
+         */
+        void update(long written, long total);
+    }
+
+    private ConfigWriter() {
+    }
+
+    /**
+     * Copies the entities of a room. Has to be called on the thread that steps the simulation.
+     *
+     * @param room The room to copy.
+     * @return The entities of the room as config entries.
+     */
+    public static SceneConfig snapshot(Room room) {
+        List<Obstacle> obstacles = room.getObstacles();
+        List<SceneConfig.ObstacleEntry> obstacleEntries = new ArrayList<>(obstacles.size());
+        for (int i = 0; i < obstacles.size(); i++) {
+            Obstacle obstacle = obstacles.get(i);
+            // rectangles are configured by their half width
+            double size = "rectangle".equals(obstacle.getType()) ? obstacle.getSize() / 2 : obstacle.getSize();
+            obstacleEntries.add(new SceneConfig.ObstacleEntry(obstacle.getType(),
+                    obstacle.getPosition().getX(), obstacle.getPosition().getY(), size));
+        }
+
+        List<Autorobot> robots = room.getRobots();
+        List<SceneConfig.RobotEntry> robotEntries = new ArrayList<>(robots.size());
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            List<Position> goals = new ArrayList<>(robot.getGoals().size());
+            for (Position goal : robot.getGoals()) {
+                goals.add(new Position(goal.getX(), goal.getY()));
+            }
+            robotEntries.add(new SceneConfig.RobotEntry(robot.getPosition().getX(), robot.getPosition().getY(),
+                    robot.getAngle(), goals));
+        }
+
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        List<SceneConfig.RobotEntry> controlledEntries = new ArrayList<>(controlledRobots.size());
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot controlled = controlledRobots.get(i);
+            controlledEntries.add(new SceneConfig.RobotEntry(controlled.getPosition().getX(),
+                    controlled.getPosition().getY(), controlled.getAngle(), List.of()));
+        }
+        return new SceneConfig(room.getWidth(), room.getHeight(), obstacleEntries, robotEntries, controlledEntries);
+    }
+
+    /**
+     * Writes a configuration to a file, replacing the file only once the new version is completely written.
+     *
+     * @param config   The configuration to write.
+     * @param file     The file to write.
+     * @param progress Receives the progress, called on the calling thread.
+     * @throws IOException If the file could not be written, the previous version of the file is left untouched.
+     */
+    public static void save(SceneConfig config, Path file, Progress progress) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = createTempFile(target);
+        try {
+            copyPermissions(target, temp);
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+                write(config, writer, progress);
+                writer.flush();
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Creates an empty file next to the target to write the new version to. Unlike {@link Files#createTempFile}, which
+     * makes the file only readable by its owner, this leaves the default permissions of new files.
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        String name = target.getFileName().toString();
+        while (true) {
+            Path temp = target.resolveSibling(name + "." + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                    + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // taken by another save, try the next name
+            }
+        }
+    }
+
+    /**
+     * Gives the temporary file the permissions of the file it replaces, so saving never changes who can read it.
+     */
+    private static void copyPermissions(Path target, Path temp) throws IOException {
+        if (Files.exists(target)
+                && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+        }
+    }
+
+    /**
+     * Writes a configuration as JSON.
+     *
+     * @param config   The configuration to write.
+     * @param writer   The writer to write to, not flushed or closed.
+     * @param progress Receives the progress, called on the calling thread.
+     * @throws IOException If the writer failed.
+     */
+    public static void write(SceneConfig config, Writer writer, Progress progress) throws IOException {
+        long total = config.getObstacles().size() + config.getAutoRobots().size() + config.getControlledRobots().size();
+        long written = 0;
+        progress.update(0, total);
+
+        writer.write("{\"roomX\":");
+        writeNumber(writer, config.getWidth());
+        writer.write(",\"roomY\":");
+        writeNumber(writer, config.getHeight());
+
+        writer.write(",\"obstacles\":[");
+        List<SceneConfig.ObstacleEntry> obstacles = config.getObstacles();
+        for (int i = 0; i < obstacles.size(); i++) {
+            SceneConfig.ObstacleEntry entry = obstacles.get(i);
+            writer.write(i == 0 ? "\n{\"type\":" : ",\n{\"type\":");
+            writer.write(JSONObject.quote(entry.type()));
+            writer.write(",\"x\":");
+            writeNumber(writer, entry.x());
+            writer.write(",\"y\":");
+            writeNumber(writer, entry.y());
+            writer.write(",\"size\":");
+            writeNumber(writer, entry.size());
+            writer.write('}');
+            written = report(progress, written + 1, total);
+        }
+
+        writer.write("],\"autoRobots\":[");
+        written = writeRobots(writer, config.getAutoRobots(), progress, written, total);
+        writer.write("],\"controlledRobot\":[");
+        written = writeRobots(writer, config.getControlledRobots(), progress, written, total);
+        writer.write("]}\n");
+        progress.update(written, total);
+    }
+
+    private static long writeRobots(Writer writer, List<SceneConfig.RobotEntry> robots, Progress progress,
+                                    long written, long total) throws IOException {
+        for (int i = 0; i < robots.size(); i++) {
+            SceneConfig.RobotEntry entry = robots.get(i);
+            writer.write(i == 0 ? "\n{\"x\":" : ",\n{\"x\":");
+            writeNumber(writer, entry.x());
+            writer.write(",\"y\":");
+            writeNumber(writer, entry.y());
+            writer.write(",\"angle\":");
+            writeNumber(writer, entry.angle());
+            if (!entry.goals().isEmpty()) {
+                writer.write(",\"goals\":[");
+                for (int g = 0; g < entry.goals().size(); g++) {
+                    Position goal = entry.goals().get(g);
+                    writer.write(g == 0 ? "{\"x\":" : ",{\"x\":");
+                    writeNumber(writer, goal.getX());
+                    writer.write(",\"y\":");
+                    writeNumber(writer, goal.getY());
+                    writer.write('}');
+                }
+                writer.write(']');
+            }
+            writer.write('}');
+            written = report(progress, written + 1, total);
+        }
+        return written;
+    }
+
+    private static long report(Progress progress, long written, long total) {
+        if (written % PROGRESS_INTERVAL == 0) {
+            progress.update(written, total);
+        }
+        return written;
+    }
+
+    private static void writeNumber(Writer writer, double value) throws IOException {
+        if (!Double.isFinite(value)) {
+            throw new IOException("JSON cannot hold the number " + value);
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            writer.write(Long.toString((long) value));
+        } else {
+            writer.write(Double.toString(value));
+        }
+    }
+}
@@ -59,6 +59,18 @@ public abstract class Obstacle {
      */
     public abstract boolean checkCollision(double x, double y, double radius);
 
+    /**
+     * Calculates when a circle moving along a segment first collides with this obstacle.
+     *
+     * @param fromX The x-coordinate of the circle's center at the start of the motion.
+     * @param fromY The y-coordinate of the circle's center at the start of the motion.
+     * @param toX The x-coordinate of the circle's center at the end of the motion.
+     * @param toY The y-coordinate of the circle's center at the end of the motion.
+     * @param radius The radius of the circle.
+     * @return The fraction of the motion (0 to 1) before the collision, or {@link Sweep#NONE} if there is none.
+     */
+    public abstract double sweepCollision(double fromX, double fromY, double toX, double toY, double radius);
+
     /**
      * Calculates the angle from a given position to the nearest point on this obstacle.
      *
@@ -0,0 +1,92 @@
+package org.openjfx.javaproject.common;
+
+import org.openjfx.javaproject.room.Position;
+
+import java.util.List;
+
+/**
+ * The contents of a configuration file as written, before the entities are placed in a room.
+ * Entries are compared by value, which lets two versions of a file be compared entry by entry.
+ */
+public class SceneConfig {
+    /**
+     * An obstacle of the file.
+     *
+     * @param type The type, "circle" or "rectangle".
+     * @param x    The x-coordinate of the center.
+     * @param y    The y-coordinate of the center.
+     * @param size The radius of a circle or the half width of a rectangle.
+     */
+    public record ObstacleEntry(String type, double x, double y, double size) {
+    }
+
+    /**
+     * A robot of the file.
+     *
+     * @param x     The x-coordinate of the start position.
+     * @param y     The y-coordinate of the start position.
+     * @param angle The start angle, in radians.
+     * @param goals The goals of an autorobot in order, empty if it wanders.
+     */
+    public record RobotEntry(double x, double y, double angle, List<Position> goals) {
+    }
+
+    private final double width;
+    private final double height;
+    private final List<ObstacleEntry> obstacles;
+    private final List<RobotEntry> autoRobots;
+    private final List<RobotEntry> controlledRobots;
+
+    /**
+     * Constructs a scene configuration.
+     *
+     * @param width            The width of the room.
+     * @param height           The height of the room.
+     * @param obstacles        The obstacles, in the order of the file.
+     * @param autoRobots       The autorobots, in the order of the file.
+     * @param controlledRobots The controlled robots, every one that fits is created.
+     */
+    public SceneConfig(double width, double height, List<ObstacleEntry> obstacles, List<RobotEntry> autoRobots,
+                       List<RobotEntry> controlledRobots) {
+        this.width = width;
+        this.height = height;
+        this.obstacles = List.copyOf(obstacles);
+        this.autoRobots = List.copyOf(autoRobots);
+        this.controlledRobots = List.copyOf(controlledRobots);
+    }
+
+    /**
+     * @return The width of the room.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the room.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The obstacles, in the order of the file.
+     */
+    public List<ObstacleEntry> getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * @return The autorobots, in the order of the file.
+     */
+    public List<RobotEntry> getAutoRobots() {
+        return autoRobots;
+    }
+
+    /**
+     * @return The candidates for the controlled robot, in the order of the file.
+     */
+    public List<RobotEntry> getControlledRobots() {
+        return controlledRobots;
+    }
+}
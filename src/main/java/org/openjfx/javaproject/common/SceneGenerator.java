@@ -0,0 +1,377 @@
+package org.openjfx.javaproject.common;
+
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.Position;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates large scenes with a given obstacle coverage and number of robots.
+ * <p>
+ * Entities are placed by Poisson-disk sampling (Bridson's algorithm): new points are drawn around points already
+ * placed and kept if no other point lies within the minimum distance. A grid with one point per cell answers that
+ * check by looking at a few neighbouring cells, so a scene takes time linear in its number of entities instead of
+ * the quadratic time of placing entities one by one through {@link org.openjfx.javaproject.room.Room#canCreate}.
+ * Obstacles are placed first, far enough apart for a robot to pass between any two of them, then the robots fill
+ * the space left. A generator with the same settings and seed always produces the same scene.
+ */
+public class SceneGenerator {
+    private static final int ATTEMPTS = 30; // candidates drawn around a point before it stops spreading
+    private static final double ROBOT_GAP = 1; // free space kept around every robot
+    private static final double SPREAD = 0.7; // spacing relative to an even spread, leaves room for every entity
+
+    private final double width;
+    private final double height;
+    private final long seed;
+    private double obstacleCoverage = 0;
+    private double obstacleSize = 20;
+    private int robotCount = 0;
+    private double goalShare = 0;
+    private int controlledRobotCount = 1;
+
+    /**
+     * Constructs a generator for rooms of a given size.
+     *
+     * @param width  The width of the room.
+     * @param height The height of the room.
+     * @param seed   The seed of the random placement.
+     */
+    public SceneGenerator(double width, double height, long seed) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+    }
+
+    /**
+     * @param obstacleCoverage The share of the room to cover with obstacles, between 0 and 1.
+     */
+    public void setObstacleCoverage(double obstacleCoverage) {
+        if (obstacleCoverage < 0 || obstacleCoverage >= 1) {
+            throw new IllegalArgumentException("Obstacle coverage must be at least 0 and below 1: " + obstacleCoverage);
+        }
+        this.obstacleCoverage = obstacleCoverage;
+    }
+
+    /**
+     * @param obstacleSize The size of the obstacles as in config files, the radius of circles and half the width of
+     *                     rectangles.
+     */
+    public void setObstacleSize(double obstacleSize) {
+        if (!(obstacleSize > 0)) {
+            throw new IllegalArgumentException("Obstacle size must be positive: " + obstacleSize);
+        }
+        this.obstacleSize = obstacleSize;
+    }
+
+    /**
+     * @param robotCount The number of auto robots to place.
+     */
+    public void setRobotCount(int robotCount) {
+        if (robotCount < 0) {
+            throw new IllegalArgumentException("Robot count must not be negative: " + robotCount);
+        }
+        this.robotCount = robotCount;
+    }
+
+    /**
+     * @param goalShare The share of auto robots that get a goal, between 0 and 1.
+     */
+    public void setGoalShare(double goalShare) {
+        if (goalShare < 0 || goalShare > 1) {
+            throw new IllegalArgumentException("Goal share must be between 0 and 1: " + goalShare);
+        }
+        this.goalShare = goalShare;
+    }
+
+    /**
+     * @param controlledRobotCount The number of controlled robots to place as well, one for every operator.
+     */
+    public void setControlledRobotCount(int controlledRobotCount) {
+        if (controlledRobotCount < 0) {
+            throw new IllegalArgumentException("Controlled robot count must not be negative: " + controlledRobotCount);
+        }
+        this.controlledRobotCount = controlledRobotCount;
+    }
+
+    /**
+     * Generates the scene. If the room cannot hold the requested coverage or number of robots, as many as fit are
+     * placed and a warning is printed.
+     *
+     * @return The generated scene, which {@link ConfigParser#build(SceneConfig)} turns into a room and
+     * {@link ConfigWriter} writes as a config file.
+     */
+    public SceneConfig generate() {
+        Random random = new Random(seed);
+        double area = width * height;
+
+        // any two obstacles leave a gap a robot fits through, also when rectangles face each other with a corner
+        double obstacleExtent = Math.sqrt(2) * obstacleSize;
+        double meanObstacleArea = (Math.PI + 4) / 2 * obstacleSize * obstacleSize;
+        int wantedObstacles = (int) Math.ceil(obstacleCoverage * area / meanObstacleArea);
+        double obstacleDistance = 2 * obstacleExtent + 2 * Autorobot.RADIUS + 2 * ROBOT_GAP;
+        Samples obstacleSamples = wantedObstacles == 0 ? new Samples()
+                : sample(obstacleSize, spacing(obstacleDistance, area, wantedObstacles), random, (x, y) -> true);
+        obstacleSamples.shuffle(random);
+
+        List<SceneConfig.ObstacleEntry> obstacles = new ArrayList<>();
+        SpatialGrid<Obstacle> obstacleIndex = new SpatialGrid<>(obstacleDistance);
+        double covered = 0;
+        for (int i = 0; i < obstacleSamples.size && covered < obstacleCoverage * area; i++) {
+            boolean circle = random.nextBoolean();
+            SceneConfig.ObstacleEntry entry = new SceneConfig.ObstacleEntry(circle ? "circle" : "rectangle",
+                    round(obstacleSamples.x[i]), round(obstacleSamples.y[i]), obstacleSize);
+            obstacles.add(entry);
+            obstacleIndex.add(ConfigParser.createObstacle(entry), entry.x(), entry.y(), obstacleExtent);
+            covered += circle ? Math.PI * obstacleSize * obstacleSize : 4 * obstacleSize * obstacleSize;
+        }
+        if (covered < obstacleCoverage * area) {
+            System.err.printf("Only %.1f%% of the room could be covered with obstacles%n", covered / area * 100);
+        }
+
+        int wantedRobots = robotCount + controlledRobotCount;
+        double clearance = Autorobot.RADIUS + ROBOT_GAP;
+        Placement clear = (x, y) -> {
+            boolean[] blocked = {false};
+            obstacleIndex.query(x - clearance, y - clearance, x + clearance, y + clearance, obstacle -> {
+                if (!blocked[0] && obstacle.checkCollision(x, y, clearance)) {
+                    blocked[0] = true;
+                }
+            });
+            return !blocked[0];
+        };
+        Samples robotSamples = wantedRobots == 0 ? new Samples()
+                : sample(clearance, spacing(2 * clearance, area - covered, wantedRobots), random, clear);
+        if (robotSamples.size < wantedRobots) {
+            // the even spread was too wide, pack the robots as tightly as allowed
+            robotSamples = sample(clearance, 2 * clearance, random, clear);
+        }
+        robotSamples.shuffle(random);
+
+        int first = Math.min(controlledRobotCount, robotSamples.size);
+        List<SceneConfig.RobotEntry> controlled = new ArrayList<>(first);
+        for (int i = 0; i < first; i++) {
+            controlled.add(new SceneConfig.RobotEntry(round(robotSamples.x[i]), round(robotSamples.y[i]), 0, List.of()));
+        }
+        int placed = Math.min(robotCount, robotSamples.size - first);
+        if (placed < robotCount) {
+            System.err.println("Only " + placed + " of " + robotCount + " robots fit into the room");
+        }
+        List<SceneConfig.RobotEntry> robots = new ArrayList<>(placed);
+        for (int i = first; i < first + placed; i++) {
+            List<Position> goals = List.of();
+            if (random.nextDouble() < goalShare) {
+                // the goal is another free point, all free points are connected as robots fit between obstacles
+                int goal = random.nextInt(robotSamples.size);
+                goals = List.of(new Position(round(robotSamples.x[goal]), round(robotSamples.y[goal])));
+            }
+            robots.add(new SceneConfig.RobotEntry(round(robotSamples.x[i]), round(robotSamples.y[i]),
+                    round(random.nextDouble() * 2 * Math.PI), goals));
+        }
+        return new SceneConfig(width, height, obstacles, robots, controlled);
+    }
+
+    /**
+     * Chooses the distance between points so that the wanted number of points spreads over the whole area, but
+     * never closer than the minimum distance.
+     */
+    private static double spacing(double minDistance, double area, int wanted) {
+        return Math.max(minDistance, SPREAD * Math.sqrt(area / wanted));
+    }
+
+    /**
+     * Fills the room with points at least a distance apart, until no more points fit.
+     *
+     * @param margin   The distance kept from the walls.
+     * @param distance The minimum distance between two points.
+     * @param random   The source of randomness.
+     * @param free     Rejects points that are blocked for other reasons.
+     * @return The points, in the order they were placed.
+     */
+    private Samples sample(double margin, double distance, Random random, Placement free) {
+        Samples samples = new Samples();
+        if (width <= 2 * margin || height <= 2 * margin) {
+            return samples;
+        }
+        double cellSize = distance / Math.sqrt(2); // a cell cannot hold two points
+        int columns = (int) Math.ceil(width / cellSize);
+        int rows = (int) Math.ceil(height / cellSize);
+        int[] grid = new int[columns * rows];
+        Arrays.fill(grid, -1);
+        int[] active = new int[64];
+        int activeCount = 0;
+
+        while (true) {
+            if (activeCount == 0) {
+                // start from a new seed point, for example in an area the last points could not spread into
+                int seedPoint = -1;
+                for (int attempt = 0; attempt < ATTEMPTS && seedPoint < 0; attempt++) {
+                    double x = margin + random.nextDouble() * (width - 2 * margin);
+                    double y = margin + random.nextDouble() * (height - 2 * margin);
+                    if (fits(samples, grid, columns, rows, cellSize, distance, x, y) && free.test(x, y)) {
+                        seedPoint = add(samples, grid, columns, cellSize, x, y);
+                    }
+                }
+                if (seedPoint < 0) {
+                    return samples;
+                }
+                active[activeCount++] = seedPoint;
+            }
+
+            int slot = random.nextInt(activeCount);
+            int point = active[slot];
+            boolean spread = false;
+            for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double radius = distance * (1 + random.nextDouble());
+                double x = samples.x[point] + Math.cos(angle) * radius;
+                double y = samples.y[point] + Math.sin(angle) * radius;
+                if (x < margin || x > width - margin || y < margin || y > height - margin
+                        || !fits(samples, grid, columns, rows, cellSize, distance, x, y) || !free.test(x, y)) {
+                    continue;
+                }
+                if (activeCount == active.length) {
+                    active = Arrays.copyOf(active, activeCount * 2);
+                }
+                active[activeCount++] = add(samples, grid, columns, cellSize, x, y);
+                spread = true;
+                break;
+            }
+            if (!spread) {
+                active[slot] = active[--activeCount];
+            }
+        }
+    }
+
+    /**
+     * Checks the cells around a candidate for points closer than the minimum distance.
+     */
+    private static boolean fits(Samples samples, int[] grid, int columns, int rows, double cellSize, double distance,
+                                double x, double y) {
+        int column = (int) (x / cellSize);
+        int row = (int) (y / cellSize);
+        for (int r = Math.max(0, row - 2); r <= Math.min(rows - 1, row + 2); r++) {
+            for (int c = Math.max(0, column - 2); c <= Math.min(columns - 1, column + 2); c++) {
+                int other = grid[r * columns + c];
+                if (other >= 0) {
+                    double dx = samples.x[other] - x;
+                    double dy = samples.y[other] - y;
+                    if (dx * dx + dy * dy < distance * distance) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int add(Samples samples, int[] grid, int columns, double cellSize, double x, double y) {
+        int index = samples.add(x, y);
+        grid[(int) (y / cellSize) * columns + (int) (x / cellSize)] = index;
+        return index;
+    }
+
+    /**
+     * Rounds a coordinate to hundredths, which keeps config files short. The gaps kept between entities are much
+     * larger than the rounding.
+     */
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Decides whether a point is free of anything other than the points already placed.
+     */
+    @FunctionalInterface
+    private interface Placement {
+        boolean test(double x, double y);
+    }
+
+    /**
+     * Coordinates of the placed points in two growing arrays.
+     */
+    private static class Samples {
+        private double[] x = new double[64];
+        private double[] y = new double[64];
+        private int size = 0;
+
+        private int add(double px, double py) {
+            if (size == x.length) {
+                x = Arrays.copyOf(x, size * 2);
+                y = Arrays.copyOf(y, size * 2);
+            }
+            x[size] = px;
+            y[size] = py;
+            return size++;
+        }
+
+        private void shuffle(Random random) {
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                double swapX = x[i];
+                double swapY = y[i];
+                x[i] = x[j];
+                y[i] = y[j];
+                x[j] = swapX;
+                y[j] = swapY;
+            }
+        }
+    }
+
+    /**
+     * Generates a scene and writes it as a config file.
+     *
+     * @param args Command line arguments: file [--width w] [--height h] [--coverage share] [--robots n] [--seed s]
+     *             [--obstacle-size size] [--goals share] [--controlled n] [--no-controlled]
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Expected the file to write the scene to");
+        }
+        double width = 1000;
+        double height = 1000;
+        long seed = 1;
+        double coverage = 0.1;
+        int robots = 100;
+        double obstacleSize = 20;
+        double goals = 0;
+        int controlled = 1;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--width" -> width = Double.parseDouble(args[++i]);
+                case "--height" -> height = Double.parseDouble(args[++i]);
+                case "--coverage" -> coverage = Double.parseDouble(args[++i]);
+                case "--robots" -> robots = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--obstacle-size" -> obstacleSize = Double.parseDouble(args[++i]);
+                case "--goals" -> goals = Double.parseDouble(args[++i]);
+                case "--controlled" -> controlled = Integer.parseInt(args[++i]);
+                case "--no-controlled" -> controlled = 0;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        SceneGenerator generator = new SceneGenerator(width, height, seed);
+        generator.setObstacleCoverage(coverage);
+        generator.setObstacleSize(obstacleSize);
+        generator.setRobotCount(robots);
+        generator.setGoalShare(goals);
+        generator.setControlledRobotCount(controlled);
+
+        long start = System.nanoTime();
+        SceneConfig config = generator.generate();
+        long generated = System.nanoTime();
+        try {
+            ConfigWriter.save(config, Path.of(args[0]), (written, total) -> { });
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.printf("Generated %d obstacles and %d robots in %d ms, written to %s in %d ms%n",
+                config.getObstacles().size(), config.getAutoRobots().size(), (generated - start) / 1_000_000,
+                args[0], (System.nanoTime() - generated) / 1_000_000);
+    }
+}
@@ -0,0 +1,377 @@
+package org.openjfx.javaproject.common;
+
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Position;
+import org.openjfx.javaproject.room.Room;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Brings a running room in line with a changed configuration file without clearing it.
+ * <p>
+ * The reloader remembers which entity was created from which entry of the file. A new version of the file is
+ * compared entry by entry with the previous one: entries that did not change keep their entities, changed entries
+ * are paired up in order and move their robot or replace their obstacle, and the entries left over are added or
+ * removed. Robots moved this way keep their id, and all robots keep their state when only other entities change.
+ * A robot whose new place is taken by an obstacle or another robot is removed, like an entry that cannot be added.
+ * Obstacles are added and removed one by one, which updates the obstacle index of the room in place. Entities
+ * added by hand are left alone, and a changed room size only takes effect after a restart, see
+ * {@link #isRoomSizeChanged()}.
+ * <p>
+ * New versions may be requested from any thread, they are applied on the tick thread by {@link #applyPending()}.
+ */
+public class SceneReloader {
+    private static final double ROBOT_CELL_SIZE = 4 * Autorobot.RADIUS; // cell size of the grid robots are checked in
+
+    private final Room room;
+    private SceneConfig config;
+    private List<Obstacle> obstacles = new ArrayList<>(); // entity of each obstacle entry, null if there is none
+    private List<Autorobot> robots = new ArrayList<>(); // entity of each autorobot entry, null if there is none
+    private List<ControlledRobot> controlledRobots; // entity of each controlled robot entry, null if there is none
+    private final AtomicReference<SceneConfig> requested = new AtomicReference<>();
+
+    private volatile long reloads = 0;
+    private volatile long added = 0;
+    private volatile long removed = 0;
+    private volatile long moved = 0;
+    private volatile boolean roomSizeChanged = false;
+
+    /**
+     * Constructs a reloader for a room built from a configuration. Has to be constructed before the simulation runs,
+     * as entities are matched with their entries by position.
+     *
+     * @param room   The room built from the configuration.
+     * @param config The configuration the room was built from.
+     */
+    public SceneReloader(Room room, SceneConfig config) {
+        this.room = room;
+        this.config = config;
+
+        // the room holds the entities in the order of the file, except for robots that did not fit
+        List<Obstacle> roomObstacles = room.getObstacles();
+        int next = 0;
+        for (SceneConfig.ObstacleEntry entry : config.getObstacles()) {
+            Obstacle obstacle = next < roomObstacles.size() ? roomObstacles.get(next) : null;
+            if (obstacle != null && obstacle.getType().equals(entry.type())
+                    && obstacle.getPosition().equals(new Position(entry.x(), entry.y()))) {
+                obstacles.add(obstacle);
+                next++;
+            } else {
+                obstacles.add(null);
+            }
+        }
+        List<Autorobot> roomRobots = room.getRobots();
+        next = 0;
+        for (SceneConfig.RobotEntry entry : config.getAutoRobots()) {
+            Autorobot robot = next < roomRobots.size() ? roomRobots.get(next) : null;
+            if (robot != null && robot.getPosition().equals(new Position(entry.x(), entry.y()))) {
+                robots.add(robot);
+                next++;
+            } else {
+                robots.add(null);
+            }
+        }
+        List<ControlledRobot> roomControlled = room.getControlledRobots();
+        controlledRobots = new ArrayList<>();
+        next = 0;
+        for (SceneConfig.RobotEntry entry : config.getControlledRobots()) {
+            ControlledRobot robot = next < roomControlled.size() ? roomControlled.get(next) : null;
+            if (robot != null && robot.getPosition().equals(new Position(entry.x(), entry.y()))) {
+                controlledRobots.add(robot);
+                next++;
+            } else {
+                controlledRobots.add(null);
+            }
+        }
+    }
+
+    /**
+     * Requests a new version of the configuration, replacing an earlier request that was not applied yet.
+     *
+     * @param next The new version of the configuration.
+     */
+    public void request(SceneConfig next) {
+        requested.set(next);
+    }
+
+    /**
+     * Checks if a new version is waiting to be applied.
+     *
+     * @return True if {@link #applyPending()} has something to do.
+     */
+    public boolean hasPending() {
+        return requested.get() != null;
+    }
+
+    /**
+     * Applies the latest requested version of the configuration to the room. Called by the tick thread.
+     *
+     * @return True if a version was applied.
+     */
+    public boolean applyPending() {
+        SceneConfig next = requested.getAndSet(null);
+        if (next == null) {
+            return false;
+        }
+        if (next.getWidth() != config.getWidth() || next.getHeight() != config.getHeight()) {
+            roomSizeChanged = true;
+        }
+        obstacles = reloadObstacles(next.getObstacles());
+        robots = reloadRobots(next.getAutoRobots());
+        controlledRobots = reloadControlledRobots(next.getControlledRobots());
+        config = next;
+        reloads++;
+        return true;
+    }
+
+    private List<Obstacle> reloadObstacles(List<SceneConfig.ObstacleEntry> entries) {
+        List<SceneConfig.ObstacleEntry> previous = config.getObstacles();
+        int[] matches = matchUnchanged(previous, entries);
+        boolean[] kept = new boolean[previous.size()];
+        List<Obstacle> next = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            if (matches[i] >= 0) {
+                kept[matches[i]] = true;
+            }
+            next.add(matches[i] >= 0 ? obstacles.get(matches[i]) : null);
+        }
+
+        // obstacles cannot move, a changed obstacle is replaced
+        int removedCount = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            Obstacle obstacle = obstacles.get(i);
+            if (!kept[i] && obstacle != null && room.removeObstacle(obstacle)) {
+                removedCount++;
+            }
+        }
+        int addedCount = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (matches[i] < 0) {
+                Obstacle obstacle = ConfigParser.createObstacle(entries.get(i));
+                room.addObstacle(obstacle);
+                next.set(i, obstacle);
+                addedCount++;
+            }
+        }
+        int movedCount = Math.min(removedCount, addedCount);
+        moved += movedCount;
+        removed += removedCount - movedCount;
+        added += addedCount - movedCount;
+        return next;
+    }
+
+    private List<Autorobot> reloadRobots(List<SceneConfig.RobotEntry> entries) {
+        List<SceneConfig.RobotEntry> previous = config.getAutoRobots();
+        int[] matches = matchUnchanged(previous, entries);
+        boolean[] kept = new boolean[previous.size()];
+        List<Autorobot> next = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            if (matches[i] >= 0) {
+                kept[matches[i]] = true;
+            }
+            next.add(matches[i] >= 0 ? robots.get(matches[i]) : null);
+        }
+
+        // pair the changed entries in order, the robot of the previous entry moves to the new one
+        int[] moves = new int[entries.size()];
+        int candidate = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            moves[i] = -1;
+            if (matches[i] >= 0) {
+                continue;
+            }
+            while (candidate < previous.size() && kept[candidate]) {
+                candidate++;
+            }
+            if (candidate < previous.size()) {
+                kept[candidate] = true;
+                moves[i] = candidate++;
+            }
+        }
+        for (int i = 0; i < previous.size(); i++) {
+            Autorobot robot = robots.get(i);
+            if (!kept[i] && robot != null && room.removeRobot(robot)) {
+                removed++;
+            }
+        }
+
+        // robots are checked against each other through a grid, so large reloads run in linear time
+        List<Autorobot> roomRobots = room.getRobots();
+        Set<Autorobot> inRoom = Collections.newSetFromMap(new IdentityHashMap<>(roomRobots.size() * 2));
+        SpatialGrid<Autorobot> occupied = new SpatialGrid<>(ROBOT_CELL_SIZE);
+        for (int i = 0; i < roomRobots.size(); i++) {
+            Autorobot robot = roomRobots.get(i);
+            inRoom.add(robot);
+            occupied.add(robot, robot.getPosition().getX(), robot.getPosition().getY(), robot.getSize());
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            if (matches[i] >= 0) {
+                continue;
+            }
+            SceneConfig.RobotEntry entry = entries.get(i);
+            Position position = new Position(entry.x(), entry.y());
+            Autorobot robot = moves[i] >= 0 ? robots.get(moves[i]) : null;
+            if (robot != null && inRoom.contains(robot)) {
+                occupied.remove(robot, robot.getPosition().getX(), robot.getPosition().getY());
+                if (fits(robot, position, occupied)) {
+                    robot.moveTo(entry.x(), entry.y());
+                    robot.setAngle(entry.angle());
+                    robot.setGoals(new ArrayList<>(entry.goals()));
+                    robot.setSteering(null);
+                    occupied.add(robot, entry.x(), entry.y(), robot.getSize());
+                    moved++;
+                } else {
+                    // the new place is taken, the robot is removed and cannot be added again
+                    room.removeRobot(robot);
+                    inRoom.remove(robot);
+                    robot = null;
+                    removed++;
+                }
+            } else if (fits(null, position, occupied)) {
+                robot = Autorobot.restore(position, entry.angle());
+                room.addRobot(robot);
+                robot.setGoals(new ArrayList<>(entry.goals()));
+                inRoom.add(robot);
+                occupied.add(robot, entry.x(), entry.y(), robot.getSize());
+                added++;
+            } else {
+                robot = null;
+            }
+            next.set(i, robot);
+        }
+        return next;
+    }
+
+    /**
+     * Checks if a robot fits at a position without touching the walls, an obstacle or another robot.
+     *
+     * @param robot    The robot to place, ignored among the occupied places, or null for a new robot.
+     * @param position The position to check.
+     * @param occupied The autorobots of the room.
+     */
+    private boolean fits(Autorobot robot, Position position, SpatialGrid<Autorobot> occupied) {
+        if (!room.isFree(position, Autorobot.RADIUS)) {
+            return false;
+        }
+        double reach = 2 * Autorobot.RADIUS;
+        boolean[] blocked = {false};
+        occupied.query(position.getX() - reach, position.getY() - reach, position.getX() + reach,
+                position.getY() + reach, other -> {
+            if (other != robot && position.isNear(other.getPosition(), Autorobot.RADIUS + other.getSize())) {
+                blocked[0] = true;
+            }
+        });
+        if (blocked[0]) {
+            return false;
+        }
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot controlled = controlledRobots.get(i);
+            if (position.isNear(controlled.getPosition(), Autorobot.RADIUS + controlled.getSize())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<ControlledRobot> reloadControlledRobots(List<SceneConfig.RobotEntry> entries) {
+        List<SceneConfig.RobotEntry> previous = config.getControlledRobots();
+        int[] matches = matchUnchanged(previous, entries);
+        boolean[] kept = new boolean[previous.size()];
+        List<ControlledRobot> next = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            if (matches[i] >= 0) {
+                kept[matches[i]] = true;
+            }
+            next.add(matches[i] >= 0 ? controlledRobots.get(matches[i]) : null);
+        }
+
+        // a changed controlled robot is replaced, unchanged ones keep driving
+        int removedCount = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            ControlledRobot robot = controlledRobots.get(i);
+            if (!kept[i] && robot != null && room.removeControlledRobot(robot)) {
+                removedCount++;
+            }
+        }
+        int addedCount = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (matches[i] < 0) {
+                SceneConfig.RobotEntry entry = entries.get(i);
+                ControlledRobot robot = ControlledRobot.create(room, new Position(entry.x(), entry.y()), entry.angle());
+                next.set(i, robot);
+                if (robot != null) {
+                    addedCount++;
+                }
+            }
+        }
+        int movedCount = Math.min(removedCount, addedCount);
+        moved += movedCount;
+        removed += removedCount - movedCount;
+        added += addedCount - movedCount;
+        return next;
+    }
+
+    /**
+     * Pairs every new entry with an equal previous entry, if there is one left.
+     *
+     * @return For each new entry the index of its previous entry, or -1 if it is new or changed.
+     */
+    private static <E> int[] matchUnchanged(List<E> previous, List<E> entries) {
+        Map<E, ArrayDeque<Integer>> unmatched = new HashMap<>();
+        for (int i = 0; i < previous.size(); i++) {
+            unmatched.computeIfAbsent(previous.get(i), entry -> new ArrayDeque<>()).add(i);
+        }
+        int[] matches = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            ArrayDeque<Integer> candidates = unmatched.get(entries.get(i));
+            matches[i] = candidates == null || candidates.isEmpty() ? -1 : candidates.poll();
+        }
+        return matches;
+    }
+
+    /**
+     * @return The number of versions applied so far.
+     */
+    public long getReloadCount() {
+        return reloads;
+    }
+
+    /**
+     * @return The number of entities added by reloads so far.
+     */
+    public long getAddedCount() {
+        return added;
+    }
+
+    /**
+     * @return The number of entities removed by reloads so far.
+     */
+    public long getRemovedCount() {
+        return removed;
+    }
+
+    /**
+     * @return The number of entities moved by reloads so far, replaced obstacles included.
+     */
+    public long getMovedCount() {
+        return moved;
+    }
+
+    /**
+     * @return True if a reload changed the room size, which only takes effect after a restart.
+     */
+    public boolean isRoomSizeChanged() {
+        return roomSizeChanged;
+    }
+}
@@ -0,0 +1,117 @@
+package org.openjfx.javaproject.common;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a configuration file and hands every saved version to a {@link SceneReloader}.
+ * <p>
+ * Editors often save in several writes or by replacing the file, so a version is only read once the directory
+ * has been quiet for a moment. Versions that cannot be parsed, for example because the file is half written,
+ * are skipped and the room stays as it is.
+ */
+public class SceneWatcher implements AutoCloseable {
+    private static final long SETTLE_MILLIS = 100; // quiet time after the last change before the file is read
+
+    private final Path file;
+    private final SceneReloader reloader;
+    private final Runnable onRequest;
+    private final WatchService watchService;
+    private volatile boolean running = true;
+
+    private SceneWatcher(Path file, SceneReloader reloader, Runnable onRequest, WatchService watchService) {
+        this.file = file;
+        this.reloader = reloader;
+        this.onRequest = onRequest;
+        this.watchService = watchService;
+    }
+
+    /**
+     * Starts watching a configuration file on a new thread.
+     *
+     * @param file      The configuration file.
+     * @param reloader  The reloader new versions are requested from.
+     * @param onRequest Called on the watcher thread after a new version was requested, for example to apply it
+     *                  right away while the simulation is paused.
+     * @return The running watcher, to be closed when the simulation ends.
+     * @throws IOException If the directory of the file cannot be watched.
+     */
+    public static SceneWatcher start(Path file, SceneReloader reloader, Runnable onRequest) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        WatchService watchService = absolute.getFileSystem().newWatchService();
+        absolute.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        SceneWatcher watcher = new SceneWatcher(absolute, reloader, onRequest, watchService);
+        Thread thread = new Thread(watcher::run, "scene-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                if (!concernsFile(watchService.take())) {
+                    continue;
+                }
+                // wait until the editor is done writing
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    concernsFile(key);
+                }
+                reload();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // the watcher was closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Consumes the events of a key and checks if any of them concerns the watched file.
+     */
+    private boolean concernsFile(WatchKey key) {
+        boolean concerns = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                concerns = true;
+            }
+        }
+        key.reset();
+        return concerns;
+    }
+
+    private void reload() {
+        try {
+            SceneConfig config = ConfigParser.read(file.toString());
+            if (config != null) {
+                reloader.request(config);
+                onRequest.run();
+            }
+        } catch (JSONException e) {
+            System.err.println("Skipping invalid version of " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
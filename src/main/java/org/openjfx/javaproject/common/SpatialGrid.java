@@ -0,0 +1,134 @@
+package org.openjfx.javaproject.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A uniform grid over the plane, used to find entities within a rectangle without visiting all of them.
+ * Every item is stored in the cell containing its center. Queries are widened by the largest extent
+ * of any stored item, so items reaching into the queried rectangle from a neighbouring cell are found too.
+ * Only cells that hold items are allocated, so the grid stays small in large, sparse worlds.
+ *
+ * @param <T> The type of the stored items.
+ */
+public class SpatialGrid<T> {
+    private final double cellSize;
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private double maxExtent = 0;
+    private int size = 0;
+
+    /**
+     * Constructs an empty grid.
+     *
+     * @param cellSize The width and height of a cell.
+     */
+    public SpatialGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an item to the grid.
+     *
+     * @param item    The item to add.
+     * @param x       The x-coordinate of the item's center.
+     * @param y       The y-coordinate of the item's center.
+     * @param extent  The distance from the center to the farthest point of the item along either axis.
+     */
+    public void add(T item, double x, double y, double extent) {
+        cells.computeIfAbsent(key(cell(x), cell(y)), k -> new ArrayList<>()).add(item);
+        maxExtent = Math.max(maxExtent, extent);
+        size++;
+    }
+
+    /**
+     * Removes an item from the grid.
+     *
+     * @param item The item to remove.
+     * @param x    The x-coordinate of the item's center when it was added.
+     * @param y    The y-coordinate of the item's center when it was added.
+     * @return True if the item was found and removed, false otherwise.
+     */
+    public boolean remove(T item, double x, double y) {
+        long key = key(cell(x), cell(y));
+        List<T> items = cells.get(key);
+        if (items == null || !items.remove(item)) {
+            return false;
+        }
+        if (items.isEmpty()) {
+            cells.remove(key);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Visits all items that may overlap the given rectangle.
+     * Items close to the rectangle may be visited as well, callers needing an exact answer test them again.
+     *
+     * @param left    The left edge of the rectangle.
+     * @param top     The top edge of the rectangle.
+     * @param right   The right edge of the rectangle.
+     * @param bottom  The bottom edge of the rectangle.
+     * @param visitor Called once for every item found.
+     */
+    public void query(double left, double top, double right, double bottom, Consumer<T> visitor) {
+        int fromX = cell(left - maxExtent);
+        int fromY = cell(top - maxExtent);
+        int toX = cell(right + maxExtent);
+        int toY = cell(bottom + maxExtent);
+        if ((long) (toX - fromX + 1) * (toY - fromY + 1) > cells.size()) {
+            // The rectangle covers more cells than are occupied, visiting the occupied ones is cheaper
+            for (Map.Entry<Long, List<T>> entry : cells.entrySet()) {
+                int cellX = (int) (entry.getKey() >> 32);
+                int cellY = (int) (long) entry.getKey();
+                if (cellX >= fromX && cellX <= toX && cellY >= fromY && cellY <= toY) {
+                    visitAll(entry.getValue(), visitor);
+                }
+            }
+            return;
+        }
+        for (int cellX = fromX; cellX <= toX; cellX++) {
+            for (int cellY = fromY; cellY <= toY; cellY++) {
+                List<T> items = cells.get(key(cellX, cellY));
+                if (items != null) {
+                    visitAll(items, visitor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all items from the grid.
+     */
+    public void clear() {
+        cells.clear();
+        maxExtent = 0;
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of items in the grid.
+     *
+     * @return The number of items.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void visitAll(List<T> items, Consumer<T> visitor) {
+        for (int i = 0; i < items.size(); i++) {
+            visitor.accept(items.get(i));
+        }
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+}
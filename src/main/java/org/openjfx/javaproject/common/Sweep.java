@@ -0,0 +1,135 @@
+package org.openjfx.javaproject.common;
+
+/**
+ * Continuous collision tests of a point moving along a segment.
+ * A circle sweeping along a segment is tested by moving its center against shapes grown by its radius.
+ * All tests return the fraction of the segment (0 to 1) travelled before the first contact.
+ */
+public final class Sweep {
+    /**
+     * Returned when there is no contact along the segment.
+     */
+    public static final double NONE = Double.POSITIVE_INFINITY;
+
+    private Sweep() {
+    }
+
+    /**
+     * Calculates when a point moving from (fromX, fromY) to (toX, toY) first comes closer than radius to a center.
+     *
+     * @param fromX   The x-coordinate of the start of the segment.
+     * @param fromY   The y-coordinate of the start of the segment.
+     * @param toX     The x-coordinate of the end of the segment.
+     * @param toY     The y-coordinate of the end of the segment.
+     * @param centerX The x-coordinate of the circle's center.
+     * @param centerY The y-coordinate of the circle's center.
+     * @param radius  The radius of the circle.
+     * @return The fraction of the segment before the contact, 0 if already inside and not moving out, or {@link #NONE}.
+     */
+    public static double circle(double fromX, double fromY, double toX, double toY,
+                                double centerX, double centerY, double radius) {
+        double mx = fromX - centerX;
+        double my = fromY - centerY;
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        if (Math.abs(mx) - Math.abs(dx) >= radius || Math.abs(my) - Math.abs(dy) >= radius) {
+            return NONE; // bounding box of the swept circle does not reach the center
+        }
+        double b = mx * dx + my * dy;
+        double c = mx * mx + my * my - radius * radius;
+        if (c < 0) {
+            return b > 0 ? NONE : 0; // already inside, only moving out is allowed
+        }
+        double a = dx * dx + dy * dy;
+        if (a == 0 || b >= 0) { // not moving or moving away
+            return NONE;
+        }
+        double discriminant = b * b - a * c;
+        if (discriminant < 0) {
+            return NONE;
+        }
+        double t = (-b - Math.sqrt(discriminant)) / a;
+        return t <= 1 ? Math.max(t, 0) : NONE;
+    }
+
+    /**
+     * Calculates when a point moving from (fromX, fromY) to (toX, toY) first enters an axis aligned box.
+     *
+     * @param fromX  The x-coordinate of the start of the segment.
+     * @param fromY  The y-coordinate of the start of the segment.
+     * @param toX    The x-coordinate of the end of the segment.
+     * @param toY    The y-coordinate of the end of the segment.
+     * @param left   The left edge of the box.
+     * @param top    The top edge of the box.
+     * @param right  The right edge of the box.
+     * @param bottom The bottom edge of the box.
+     * @return The fraction of the segment before the contact, 0 if already inside, or {@link #NONE}.
+     */
+    public static double box(double fromX, double fromY, double toX, double toY,
+                             double left, double top, double right, double bottom) {
+        if (Math.max(fromX, toX) < left || Math.min(fromX, toX) > right
+                || Math.max(fromY, toY) < top || Math.min(fromY, toY) > bottom) {
+            return NONE; // bounding box of the segment does not reach the box
+        }
+        double enter = 0;
+        double exit = 1;
+
+        double dx = toX - fromX;
+        if (dx == 0) {
+            if (fromX < left || fromX > right) {
+                return NONE;
+            }
+        } else {
+            double t1 = (left - fromX) / dx;
+            double t2 = (right - fromX) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        double dy = toY - fromY;
+        if (dy == 0) {
+            if (fromY < top || fromY > bottom) {
+                return NONE;
+            }
+        } else {
+            double t1 = (top - fromY) / dy;
+            double t2 = (bottom - fromY) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        return enter <= exit ? enter : NONE;
+    }
+
+    /**
+     * Calculates when a point moving from (fromX, fromY) to (toX, toY) first leaves an axis aligned box.
+     *
+     * @param fromX  The x-coordinate of the start of the segment.
+     * @param fromY  The y-coordinate of the start of the segment.
+     * @param toX    The x-coordinate of the end of the segment.
+     * @param toY    The y-coordinate of the end of the segment.
+     * @param left   The left edge of the box.
+     * @param top    The top edge of the box.
+     * @param right  The right edge of the box.
+     * @param bottom The bottom edge of the box.
+     * @return The fraction of the segment before leaving, 0 if already outside, or {@link #NONE}.
+     */
+    public static double exitBox(double fromX, double fromY, double toX, double toY,
+                                 double left, double top, double right, double bottom) {
+        if (fromX < left || fromX > right || fromY < top || fromY > bottom) {
+            return 0;
+        }
+        double exit = NONE;
+        if (toX < left) {
+            exit = Math.min(exit, (left - fromX) / (toX - fromX));
+        } else if (toX > right) {
+            exit = Math.min(exit, (right - fromX) / (toX - fromX));
+        }
+        if (toY < top) {
+            exit = Math.min(exit, (top - fromY) / (toY - fromY));
+        } else if (toY > bottom) {
+            exit = Math.min(exit, (bottom - fromY) / (toY - fromY));
+        }
+        return exit;
+    }
+}
@@ -0,0 +1,280 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.CollisionListener;
+import org.openjfx.javaproject.room.ContactKind;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes the contacts detected during robot updates as typed events to any number of subscribers,
+ * each consuming them on its own thread.
+ * <p>
+ * Events are written by the tick thread, the only producer, into a ring buffer of primitive arrays, so
+ * publishing neither allocates nor locks. Every subscriber keeps its own cursor into the ring and the
+ * producer only reuses a slot once all subscribers have moved past it. When a subscriber falls a whole
+ * ring behind, the back-pressure policy decides whether new events are dropped, keeping the tick thread
+ * on time, or whether the tick thread waits for the subscriber, so no event is lost.
+ * <p>
+ * Without subscribers, events are not stored at all.
+ */
+public class CollisionBus implements CollisionListener {
+    private static final long IDLE_PARK_NANOS = 100_000; // how long an idle subscriber sleeps before looking again
+    private static final long BLOCK_PARK_NANOS = 10_000; // how long a blocked producer sleeps before looking again
+
+    /**
+     * What the producer does when the slowest subscriber is a whole ring behind.
+     */
+    public enum BackPressure {
+        /**
+         * Drop the new event and count it, the tick thread never waits.
+         */
+        DROP,
+        /**
+         * Wait until the slowest subscriber has made room, no event is lost.
+         */
+        BLOCK
+    }
+
+    /**
+     * Consumes collision events on the thread of its subscription.
+     */
+    public interface Handler {
+        /**
+         * Called for every event published after the subscription, in order.
+         *
+         * @param event The event, only valid during the call.
+         */
+        void onCollision(CollisionEvent event);
+    }
+
+    /**
+     * A running subscription, closing it stops its thread.
+     */
+    public interface Subscription extends AutoCloseable {
+        /**
+         * @return The number of events published but not yet handled by this subscription.
+         */
+        long getBacklog();
+
+        @Override
+        void close();
+    }
+
+    private static final ContactKind[] KINDS = ContactKind.values();
+
+    private final int capacity;
+    private final int mask;
+    private final long[] ticks;
+    private final byte[] kinds;
+    private final int[] robotIds;
+    private final int[] otherIds;
+    private final double[] xs;
+    private final double[] ys;
+
+    private volatile BackPressure backPressure;
+    private volatile Subscriber[] subscribers = new Subscriber[0];
+    private volatile long published = 0; // sequence of the next event, all before it are readable
+    private volatile long dropped = 0;
+    private long gate = 0; // cached cursor of the slowest subscriber, only used by the producer
+    private long tick = 0;
+
+    /**
+     * Constructs an empty bus.
+     *
+     * @param capacity     The number of events buffered for the slowest subscriber, rounded up to a power of two.
+     * @param backPressure What to do when the buffer is full.
+     */
+    public CollisionBus(int capacity, BackPressure backPressure) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.ticks = new long[this.capacity];
+        this.kinds = new byte[this.capacity];
+        this.robotIds = new int[this.capacity];
+        this.otherIds = new int[this.capacity];
+        this.xs = new double[this.capacity];
+        this.ys = new double[this.capacity];
+        this.backPressure = backPressure;
+    }
+
+    /**
+     * Sets the tick stamped on the events published from now on. Called by the tick thread.
+     *
+     * @param tick The current tick.
+     */
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    @Override
+    public void contact(ContactKind kind, int robotId, int otherId, double x, double y) {
+        Subscriber[] current = subscribers;
+        if (current.length == 0) {
+            return;
+        }
+        long sequence = published;
+        if (sequence - gate >= capacity) {
+            gate = slowestCursor(current, sequence);
+            while (sequence - gate >= capacity) {
+                if (backPressure == BackPressure.DROP) {
+                    dropped++; // single writer
+                    return;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                gate = slowestCursor(subscribers, sequence);
+            }
+        }
+
+        int slot = (int) (sequence & mask);
+        ticks[slot] = tick;
+        kinds[slot] = (byte) kind.ordinal();
+        robotIds[slot] = robotId;
+        otherIds[slot] = otherId;
+        xs[slot] = x;
+        ys[slot] = y;
+        published = sequence + 1; // volatile write makes the slot visible to subscribers
+    }
+
+    private static long slowestCursor(Subscriber[] current, long sequence) {
+        long slowest = sequence;
+        for (int i = 0; i < current.length; i++) {
+            slowest = Math.min(slowest, current[i].cursor);
+        }
+        return slowest;
+    }
+
+    /**
+     * Starts consuming events on a new daemon thread. The subscription sees the events published after it started.
+     *
+     * @param name    The name of the subscriber, used for its thread.
+     * @param handler Called for every event.
+     * @return The subscription, to be closed when no longer needed.
+     */
+    public synchronized Subscription subscribe(String name, Handler handler) {
+        Subscriber subscriber = new Subscriber(handler);
+        subscriber.cursor = published;
+        Subscriber[] grown = Arrays.copyOf(subscribers, subscribers.length + 1);
+        grown[grown.length - 1] = subscriber;
+        subscribers = grown;
+
+        Thread thread = new Thread(subscriber, "collision-" + name);
+        thread.setDaemon(true);
+        subscriber.thread = thread;
+        thread.start();
+        return subscriber;
+    }
+
+    private synchronized void remove(Subscriber subscriber) {
+        Subscriber[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscriber) {
+                Subscriber[] shrunk = new Subscriber[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, shrunk.length - i);
+                subscribers = shrunk;
+                return;
+            }
+        }
+    }
+
+    private class Subscriber implements Runnable, Subscription {
+        private final Handler handler;
+        private final CollisionEvent event = new CollisionEvent();
+        private volatile long cursor;
+        private volatile boolean running = true;
+        private Thread thread;
+
+        private Subscriber(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long available = published;
+                if (cursor == available) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                for (long sequence = cursor; sequence < available && running; sequence++) {
+                    int slot = (int) (sequence & mask);
+                    event.set(sequence, ticks[slot], KINDS[kinds[slot]], robotIds[slot], otherIds[slot], xs[slot], ys[slot]);
+                    try {
+                        handler.onCollision(event);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                    cursor = sequence + 1; // releases the slot to the producer
+                }
+            }
+        }
+
+        @Override
+        public long getBacklog() {
+            return published - cursor;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            remove(this);
+            if (thread != Thread.currentThread()) {
+                LockSupport.unpark(thread);
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if at least one subscription is running.
+     */
+    public boolean hasSubscribers() {
+        return subscribers.length > 0;
+    }
+
+    /**
+     * @return The number of running subscriptions.
+     */
+    public int getSubscriberCount() {
+        return subscribers.length;
+    }
+
+    /**
+     * @return The number of events published so far.
+     */
+    public long getPublishedCount() {
+        return published;
+    }
+
+    /**
+     * @return The number of events dropped because a subscriber was a whole ring behind.
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * @return The number of events buffered for the slowest subscriber.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return What the producer does when the buffer is full.
+     */
+    public BackPressure getBackPressure() {
+        return backPressure;
+    }
+
+    /**
+     * @param backPressure What the producer should do when the buffer is full.
+     */
+    public void setBackPressure(BackPressure backPressure) {
+        this.backPressure = backPressure;
+    }
+}
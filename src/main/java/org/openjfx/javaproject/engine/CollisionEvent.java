@@ -0,0 +1,82 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.ContactKind;
+
+/**
+ * A contact between a robot and something it ran into, as delivered by the {@link CollisionBus}.
+ * Instances are reused: a handler sees the event only for the duration of the call and has to copy
+ * whatever it wants to keep.
+ */
+public class CollisionEvent {
+    private long sequence;
+    private long tick;
+    private ContactKind kind;
+    private int robotId;
+    private int otherId;
+    private double x;
+    private double y;
+
+    void set(long sequence, long tick, ContactKind kind, int robotId, int otherId, double x, double y) {
+        this.sequence = sequence;
+        this.tick = tick;
+        this.kind = kind;
+        this.robotId = robotId;
+        this.otherId = otherId;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @return The number of the event on the bus, counting every published event from 0.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The tick in which the contact happened.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return What the robot ran into.
+     */
+    public ContactKind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The id of the robot, an auto robot id or a controlled robot id depending on the kind.
+     */
+    public int getRobotId() {
+        return robotId;
+    }
+
+    /**
+     * @return The id of the other auto or controlled robot, the index of the obstacle, or -1 for walls.
+     */
+    public int getOtherId() {
+        return otherId;
+    }
+
+    /**
+     * @return The x-coordinate of the robot center at the moment of contact.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return The y-coordinate of the robot center at the moment of contact.
+     */
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public String toString() {
+        return tick + "," + kind + "," + robotId + "," + otherId + "," + x + "," + y;
+    }
+}
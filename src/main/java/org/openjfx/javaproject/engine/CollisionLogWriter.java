@@ -0,0 +1,73 @@
+package org.openjfx.javaproject.engine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Subscriber of the {@link CollisionBus} writing every collision event as a CSV line:
+ * tick, kind, robot id, other id, x and y.
+ */
+public class CollisionLogWriter implements CollisionBus.Handler, AutoCloseable {
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(96);
+    private CollisionBus.Subscription subscription;
+    private boolean failed = false;
+
+    private CollisionLogWriter(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer.write("tick,kind,robot,other,x,y");
+        writer.newLine();
+    }
+
+    /**
+     * Creates the file and starts writing the events published on a bus into it.
+     *
+     * @param bus  The bus to subscribe to.
+     * @param file The file to write.
+     * @return The running writer, to be closed when the simulation ends.
+     * @throws IOException If the file could not be created.
+     */
+    public static CollisionLogWriter start(CollisionBus bus, Path file) throws IOException {
+        CollisionLogWriter logWriter = new CollisionLogWriter(file);
+        logWriter.subscription = bus.subscribe("log", logWriter);
+        return logWriter;
+    }
+
+    @Override
+    public void onCollision(CollisionEvent event) {
+        if (failed) {
+            return;
+        }
+        line.setLength(0);
+        line.append(event.getTick()).append(',').append(event.getKind()).append(',')
+                .append(event.getRobotId()).append(',').append(event.getOtherId()).append(',')
+                .append(event.getX()).append(',').append(event.getY());
+        try {
+            writer.append(line);
+            writer.newLine();
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = true;
+        }
+    }
+
+    /**
+     * Stops the subscription after the events published so far are written, then closes the file.
+     */
+    @Override
+    public void close() {
+        while (subscription.getBacklog() > 0) {
+            LockSupport.parkNanos(100_000);
+        }
+        subscription.close();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
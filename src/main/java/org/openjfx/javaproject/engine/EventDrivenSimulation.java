@@ -0,0 +1,351 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.common.Sweep;
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.Room;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Simulates autonomous robots by jumping from event to event instead of updating every robot every tick.
+ * Between events a robot moves in a straight line, so its next contact with a wall, an obstacle or another
+ * robot, and the moment a wall enters its field of view, can be predicted analytically. Predicted events are
+ * kept in a priority queue and only the robots taking part in an event are updated. Positions are written
+ * back to the robots lazily by {@link #materialize()}, when a frame or a log sample needs them.
+ * <p>
+ * Reactions follow {@link Autorobot#update(Room, double)}: after a collision the robot turns and stays in
+ * place for one reaction time, which corresponds to the physics step it loses in the fixed-step engine.
+ */
+public class EventDrivenSimulation {
+    private static final double CONTACT_GAP = 0.01; // distance kept from whatever the robot runs into
+
+    private enum Kind { WALL, OBSTACLE, ROBOT, VIEW }
+
+    /**
+     * A predicted event. It is stale once the version of a robot taking part in it has changed.
+     * Events are pooled, so a warmed up simulation does not allocate.
+     */
+    private static final class Event implements Comparable<Event> {
+        private double time;
+        private Kind kind;
+        private int robot;
+        private int robotVersion;
+        private int other; // the other robot or the obstacle index
+        private int otherVersion;
+
+        @Override
+        public int compareTo(Event o) {
+            return Double.compare(time, o.time);
+        }
+    }
+
+    private final Room room;
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final ArrayDeque<Event> pool = new ArrayDeque<>();
+    private double reactionTime;
+
+    private List<Autorobot> robots;
+    private int robotCount = -1;
+    private int obstacleCount = -1;
+    private double[] startX;
+    private double[] startY;
+    private double[] startTime; // the robot stands still until this time, then moves in a straight line
+    private int[] versions;
+
+    private double time = 0;
+    private long eventCount = 0;
+
+    /**
+     * Constructs an event-driven simulation of the given room.
+     *
+     * @param room         The room to simulate.
+     * @param reactionTime The time a robot spends turning after a collision, normally one physics step.
+     */
+    public EventDrivenSimulation(Room room, double reactionTime) {
+        this.room = room;
+        this.reactionTime = reactionTime;
+    }
+
+    /**
+     * Sets the time a robot spends turning after a collision.
+     *
+     * @param reactionTime The reaction time, in seconds.
+     */
+    public void setReactionTime(double reactionTime) {
+        this.reactionTime = reactionTime;
+    }
+
+    /**
+     * Advances the simulation, processing all events that happen within the given time.
+     *
+     * @param duration The simulated time to advance by, in seconds.
+     */
+    public void advance(double duration) {
+        ensureInitialized();
+        double end = time + duration;
+        while (!events.isEmpty() && events.peek().time <= end) {
+            Event event = events.poll();
+            if (!isStale(event)) {
+                time = Math.max(time, event.time);
+                handle(event);
+                eventCount++;
+            }
+            pool.add(event);
+        }
+        time = end;
+    }
+
+    /**
+     * Writes the current positions back to the robots.
+     */
+    public void materialize() {
+        ensureInitialized();
+        for (int i = 0; i < robotCount; i++) {
+            robots.get(i).moveTo(positionX(i, time), positionY(i, time));
+        }
+    }
+
+    /**
+     * Drops all predictions, so they are recomputed from the current state of the room.
+     * Has to be called when robots were moved from outside, positions should be materialized first.
+     */
+    public void reset() {
+        robotCount = -1;
+    }
+
+    /**
+     * Retrieves the simulated time.
+     *
+     * @return The time in seconds since the simulation started.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Retrieves the number of events processed so far.
+     *
+     * @return The number of events.
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Starts over from the current state of the room whenever robots or obstacles were added or removed.
+     */
+    private void ensureInitialized() {
+        if (robots == room.getRobots() && robotCount == robots.size() && obstacleCount == room.getObstacles().size()) {
+            return;
+        }
+        robots = room.getRobots();
+        robotCount = robots.size();
+        obstacleCount = room.getObstacles().size();
+        startX = new double[robotCount];
+        startY = new double[robotCount];
+        startTime = new double[robotCount];
+        versions = new int[robotCount];
+        pool.addAll(events);
+        events.clear();
+        for (int i = 0; i < robotCount; i++) {
+            startX[i] = robots.get(i).getPosition().getX();
+            startY[i] = robots.get(i).getPosition().getY();
+            startTime[i] = time;
+        }
+        for (int i = 0; i < robotCount; i++) {
+            predict(i);
+        }
+    }
+
+    private boolean isStale(Event event) {
+        if (event.robotVersion != versions[event.robot]) {
+            return true;
+        }
+        return event.kind == Kind.ROBOT && event.otherVersion != versions[event.other];
+    }
+
+    private void handle(Event event) {
+        int i = event.robot;
+        Autorobot robot = robots.get(i);
+        settle(i, event.time);
+        switch (event.kind) {
+            case WALL -> {
+                robot.setAngle(robot.getAngle() + 0.2);
+                startTime[i] = event.time + reactionTime;
+            }
+            case OBSTACLE -> {
+                Obstacle obstacle = room.getObstacles().get(event.other);
+                double angleToObstacle = obstacle.calculateAngleTo(startX[i], startY[i]);
+                robot.setAngle(angleToObstacle + Math.PI / 2 + (robot.nextRandom() - 0.5) * Math.PI / 4);
+                startTime[i] = event.time + reactionTime;
+            }
+            case ROBOT -> {
+                int j = event.other;
+                settle(j, event.time);
+                double dx = startX[j] - startX[i];
+                double dy = startY[j] - startY[i];
+                robot.setAngle(Math.atan2(-dy, -dx));
+                robots.get(j).setAngle(Math.atan2(dy, dx));
+                startTime[i] = event.time + reactionTime;
+                startTime[j] = event.time + reactionTime;
+                versions[j]++;
+                predict(j);
+            }
+            case VIEW -> {
+                robot.moveTo(startX[i], startY[i]);
+                robot.steerFromWalls(room);
+            }
+        }
+        versions[i]++;
+        predict(i);
+    }
+
+    /**
+     * Makes the position at the given time the new start of the robot's straight motion.
+     */
+    private void settle(int i, double at) {
+        double x = positionX(i, at);
+        double y = positionY(i, at);
+        startX[i] = x;
+        startY[i] = y;
+        startTime[i] = Math.max(startTime[i], at);
+    }
+
+    private double positionX(int i, double at) {
+        return startX[i] + Autorobot.SPEED * Math.cos(robots.get(i).getAngle()) * Math.max(0, at - startTime[i]);
+    }
+
+    private double positionY(int i, double at) {
+        return startY[i] + Autorobot.SPEED * Math.sin(robots.get(i).getAngle()) * Math.max(0, at - startTime[i]);
+    }
+
+    /**
+     * Predicts the next events of a robot from its current straight motion and queues them.
+     * Contacts with other robots are only queued if they happen before the robot's own next event,
+     * as all later ones are stale by then anyway. A robot standing in its reaction window is an obstacle
+     * to the other robots until it moves again.
+     */
+    private void predict(int i) {
+        double from = startTime[i];
+        double horizon = Math.hypot(room.getWidth(), room.getHeight()) / Autorobot.SPEED;
+        double angle = robots.get(i).getAngle();
+        double velX = Autorobot.SPEED * Math.cos(angle);
+        double velY = Autorobot.SPEED * Math.sin(angle);
+        double x = startX[i];
+        double y = startY[i];
+        double endX = x + velX * horizon;
+        double endY = y + velY * horizon;
+        double gap = CONTACT_GAP / Autorobot.SPEED;
+
+        double next = Double.POSITIVE_INFINITY;
+        Kind kind = null;
+        int other = -1;
+
+        double wall = Sweep.exitBox(x, y, endX, endY, Autorobot.RADIUS, Autorobot.RADIUS,
+                room.getWidth() - Autorobot.RADIUS, room.getHeight() - Autorobot.RADIUS);
+        if (wall <= 1) {
+            next = from + Math.max(0, wall * horizon - gap);
+            kind = Kind.WALL;
+        }
+
+        List<Obstacle> obstacles = room.getObstacles();
+        for (int k = 0; k < obstacles.size(); k++) {
+            double contact = obstacles.get(k).sweepCollision(x, y, endX, endY, Autorobot.RADIUS + Autorobot.SAFE_ZONE);
+            if (contact <= 1 && from + Math.max(0, contact * horizon - gap) < next) {
+                next = from + Math.max(0, contact * horizon - gap);
+                kind = Kind.OBSTACLE;
+                other = k;
+            }
+        }
+
+        double view = predictView(x, y, velX, velY, angle, horizon);
+        if (from + view < next) {
+            next = from + view;
+            kind = Kind.VIEW;
+            other = -1;
+        }
+
+        if (kind != null) {
+            schedule(next, kind, i, other);
+        }
+
+        double reach = 2 * Autorobot.RADIUS + Autorobot.SAFE_ZONE;
+        for (int j = 0; j < robotCount; j++) {
+            if (j == i) {
+                continue;
+            }
+            // before both robots move, one of them may still stand in its reaction window while the other runs into it
+            double paused = Double.NaN;
+            if (startTime[j] > from) {
+                double contact = Sweep.circle(x, y, positionX(i, startTime[j]), positionY(i, startTime[j]),
+                        startX[j], startY[j], reach);
+                paused = contact <= 1 ? from + contact * (startTime[j] - from) : Double.NaN;
+            } else if (from > time) {
+                double since = Math.max(startTime[j], time);
+                double contact = Sweep.circle(positionX(j, since), positionY(j, since), positionX(j, from),
+                        positionY(j, from), x, y, reach);
+                paused = contact <= 1 ? since + contact * (from - since) : Double.NaN;
+            }
+            if (!Double.isNaN(paused)) {
+                if (paused < next) {
+                    schedule(paused, Kind.ROBOT, i, j);
+                }
+                continue;
+            }
+
+            double at = Math.max(from, startTime[j]);
+            double otherAngle = robots.get(j).getAngle();
+            double relX = positionX(i, at) - positionX(j, at);
+            double relY = positionY(i, at) - positionY(j, at);
+            double relVelX = velX - Autorobot.SPEED * Math.cos(otherAngle);
+            double relVelY = velY - Autorobot.SPEED * Math.sin(otherAngle);
+            double contact = Sweep.circle(relX, relY, relX + relVelX * horizon, relY + relVelY * horizon, 0, 0, reach);
+            if (contact <= 1) {
+                double when = at + contact * horizon;
+                if (when < next) {
+                    schedule(when, Kind.ROBOT, i, j);
+                }
+            }
+        }
+    }
+
+    private void schedule(double at, Kind kind, int robot, int other) {
+        Event event = pool.poll();
+        if (event == null) {
+            event = new Event();
+        }
+        event.time = at;
+        event.kind = kind;
+        event.robot = robot;
+        event.robotVersion = versions[robot];
+        event.other = other;
+        event.otherVersion = kind == Kind.ROBOT ? versions[other] : 0;
+        events.add(event);
+    }
+
+    /**
+     * Predicts after how long one of the three view rays of a robot first reaches a wall.
+     * If a wall is already in view, the robot keeps turning once per reaction time, like it does every tick
+     * in the fixed-step engine.
+     */
+    private double predictView(double x, double y, double velX, double velY, double angle, double horizon) {
+        double first = Double.POSITIVE_INFINITY;
+        for (int ray = -1; ray <= 1; ray++) {
+            double rayX = x + Autorobot.VIEW_DISTANCE * Math.cos(angle + ray * Autorobot.VIEW_ANGLE);
+            double rayY = y + Autorobot.VIEW_DISTANCE * Math.sin(angle + ray * Autorobot.VIEW_ANGLE);
+            if (rayX <= 0 || rayX >= room.getWidth() || rayY <= 0 || rayY >= room.getHeight()) {
+                return reactionTime;
+            }
+            double exit = Sweep.exitBox(rayX, rayY, rayX + velX * horizon, rayY + velY * horizon,
+                    0, 0, room.getWidth(), room.getHeight());
+            if (exit <= 1) {
+                // a little past the exact crossing, so the ray is outside despite rounding and the robot reacts
+                first = Math.min(first, exit * horizon + CONTACT_GAP / Autorobot.SPEED);
+            }
+        }
+        return first;
+    }
+}
@@ -0,0 +1,127 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.ControlInput;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Room;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives controlled robots from recorded {@link InputTrace}s instead of the keyboard, so runs with a controlled robot
+ * can be repeated without anybody at the keys. Every robot plays its own trace, started at a tick of its own.
+ * <p>
+ * The engine applies the player at the start of every tick, see {@link SimulationEngine#setInputPlayer}. Played from
+ * the same scene at the physics rate of the recording, a trace reproduces the recorded run. A looping player starts
+ * every trace over when it ends, for runs longer than the recording. All inputs are released at the end of a trace.
+ */
+public class InputPlayer {
+    private static final ControlInput[] INPUTS = ControlInput.values();
+
+    private final Room room;
+    private final boolean loop;
+    private final List<Track> tracks = new ArrayList<>();
+
+    private static final class Track {
+        private final ControlledRobot robot; // null for the first controlled robot of the room
+        private final InputTrace trace;
+        private final long startTick;
+        private long round = 0; // times the trace was started over
+        private int next = 0; // index of the next event
+        private boolean finished = false;
+
+        private Track(ControlledRobot robot, InputTrace trace, long startTick) {
+            this.robot = robot;
+            this.trace = trace;
+            this.startTick = startTick;
+        }
+    }
+
+    /**
+     * Constructs a player without traces.
+     *
+     * @param room The room of the robots.
+     * @param loop True to start traces over when they end.
+     */
+    public InputPlayer(Room room, boolean loop) {
+        this.room = room;
+        this.loop = loop;
+    }
+
+    /**
+     * Plays a trace on the first controlled robot of the room, whichever robot that is at the time.
+     *
+     * @param trace     The trace to play.
+     * @param startTick The tick count of the engine at which the trace starts.
+     */
+    public void add(InputTrace trace, long startTick) {
+        tracks.add(new Track(null, trace, startTick));
+    }
+
+    /**
+     * Plays a trace on a controlled robot.
+     *
+     * @param robot     The robot to drive.
+     * @param trace     The trace to play.
+     * @param startTick The tick count of the engine at which the trace starts.
+     */
+    public void add(ControlledRobot robot, InputTrace trace, long startTick) {
+        tracks.add(new Track(robot, trace, startTick));
+    }
+
+    /**
+     * Applies the events of all traces up to a tick. Called on the tick thread before the tick is simulated.
+     *
+     * @param tick The tick count of the engine, the number of ticks done so far.
+     */
+    public void apply(long tick) {
+        for (int i = 0; i < tracks.size(); i++) {
+            Track track = tracks.get(i);
+            ControlledRobot robot = track.robot != null ? track.robot : room.getControlledRobot();
+            if (track.finished || robot == null || tick < track.startTick) {
+                continue;
+            }
+            InputTrace trace = track.trace;
+            long local = tick - track.startTick - track.round * trace.getLength();
+            while (local >= trace.getLength()) {
+                // the trace ended: release everything, then start over or stop
+                for (int e = track.next; e < trace.size(); e++) {
+                    robot.setInput(trace.getInput(e), trace.isPressed(e));
+                }
+                releaseAll(robot);
+                if (!loop || trace.getLength() == 0) {
+                    track.finished = true;
+                    break;
+                }
+                track.round++;
+                track.next = 0;
+                local -= trace.getLength();
+            }
+            if (track.finished) {
+                continue;
+            }
+            while (track.next < trace.size() && trace.getTick(track.next) <= local) {
+                robot.setInput(trace.getInput(track.next), trace.isPressed(track.next));
+                track.next++;
+            }
+        }
+    }
+
+    private static void releaseAll(ControlledRobot robot) {
+        for (ControlInput input : INPUTS) {
+            robot.setInput(input, false);
+        }
+    }
+
+    /**
+     * @return True if no trace is left to play, looping players never finish.
+     */
+    public boolean isFinished() {
+        for (int i = 0; i < tracks.size(); i++) {
+            if (!tracks.get(i).finished) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
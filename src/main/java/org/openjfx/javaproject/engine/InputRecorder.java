@@ -0,0 +1,73 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.ControlInput;
+
+import java.util.Arrays;
+
+/**
+ * Records the inputs of a controlled robot as an {@link InputTrace}, with the tick every input took effect at.
+ * Inputs have to be recorded on the tick thread between two ticks, stamped with the tick count of the engine: the
+ * next tick is the first one that sees them. Repeated presses of a key that is held down are left out.
+ */
+public class InputRecorder {
+    private final long startTick;
+    private final double physicsRate;
+    private final boolean[] active = new boolean[ControlInput.values().length];
+    private long[] ticks = new long[64];
+    private ControlInput[] inputs = new ControlInput[64];
+    private boolean[] pressed = new boolean[64];
+    private int size = 0;
+
+    /**
+     * Constructs a recorder starting at a tick.
+     *
+     * @param startTick   The tick count of the engine when the recording starts, it becomes tick 0 of the trace.
+     * @param physicsRate The physics rate of the engine, in steps per second.
+     */
+    public InputRecorder(long startTick, double physicsRate) {
+        this.startTick = startTick;
+        this.physicsRate = physicsRate;
+    }
+
+    /**
+     * Records that an input was held down or released.
+     *
+     * @param tick    The tick count of the engine, the number of ticks done so far.
+     * @param input   The input.
+     * @param pressed True if the input was held down, false if it was released.
+     */
+    public void record(long tick, ControlInput input, boolean pressed) {
+        if (active[input.ordinal()] == pressed || tick < startTick) {
+            return;
+        }
+        active[input.ordinal()] = pressed;
+        if (size == ticks.length) {
+            ticks = Arrays.copyOf(ticks, size * 2);
+            inputs = Arrays.copyOf(inputs, size * 2);
+            this.pressed = Arrays.copyOf(this.pressed, size * 2);
+        }
+        ticks[size] = Math.max(tick - startTick, size > 0 ? ticks[size - 1] : 0);
+        inputs[size] = input;
+        this.pressed[size] = pressed;
+        size++;
+    }
+
+    /**
+     * Ends the recording. Players release inputs that are still held down at the end of the trace.
+     *
+     * @param tick The tick count of the engine when the recording ends.
+     * @return The recorded trace.
+     */
+    public InputTrace finish(long tick) {
+        long length = Math.max(tick - startTick, size > 0 ? ticks[size - 1] + 1 : 0);
+        return new InputTrace(physicsRate, length, Arrays.copyOf(ticks, size), Arrays.copyOf(inputs, size),
+                Arrays.copyOf(pressed, size));
+    }
+
+    /**
+     * @return The number of events recorded so far.
+     */
+    public int size() {
+        return size;
+    }
+}
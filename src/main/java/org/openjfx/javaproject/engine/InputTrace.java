@@ -0,0 +1,179 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.ControlInput;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recorded timeline of the inputs of a controlled robot. Every event holds down or releases one input at the
+ * start of a tick, counted from the tick the recording started at. Ticks are only reproducible at the physics rate
+ * they were recorded at, which the trace keeps.
+ * <p>
+ * Traces are stored as text, one event per line after a short header:
+ * <pre>
+ * rate 60
+ * length 600
+ * 12 FORWARD press
+ * 90 TURN_LEFT press
+ * 110 TURN_LEFT release
+ * </pre>
+ */
+public class InputTrace {
+    private final double physicsRate;
+    private final long length;
+    private final long[] ticks;
+    private final ControlInput[] inputs;
+    private final boolean[] pressed;
+
+    /**
+     * Constructs a trace from its events, which have to be ordered by tick.
+     *
+     * @param physicsRate The physics rate the trace was recorded at, in steps per second.
+     * @param length      The number of ticks the trace covers, at least one after the last event.
+     * @param ticks       The tick of every event.
+     * @param inputs      The input of every event.
+     * @param pressed     For every event, true if the input is held down and false if it is released.
+     */
+    public InputTrace(double physicsRate, long length, long[] ticks, ControlInput[] inputs, boolean[] pressed) {
+        if (ticks.length != inputs.length || ticks.length != pressed.length) {
+            throw new IllegalArgumentException("Every event needs a tick, an input and a state");
+        }
+        for (int i = 0; i < ticks.length; i++) {
+            if (ticks[i] < 0 || i > 0 && ticks[i] < ticks[i - 1]) {
+                throw new IllegalArgumentException("Events are not ordered by tick at event " + i);
+            }
+        }
+        if (ticks.length > 0 && length <= ticks[ticks.length - 1]) {
+            throw new IllegalArgumentException("The trace ends before its last event");
+        }
+        this.physicsRate = physicsRate;
+        this.length = length;
+        this.ticks = ticks.clone();
+        this.inputs = inputs.clone();
+        this.pressed = pressed.clone();
+    }
+
+    /**
+     * Reads a trace written by {@link #write(Path)}.
+     *
+     * @param file The trace file.
+     * @return The trace.
+     * @throws IOException If the file cannot be read or is not a trace.
+     */
+    public static InputTrace read(Path file) throws IOException {
+        double physicsRate = 60;
+        long length = -1;
+        int size = 0;
+        long[] ticks = new long[64];
+        ControlInput[] inputs = new ControlInput[64];
+        boolean[] pressed = new boolean[64];
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                String[] fields = line.trim().split("\\s+");
+                if (fields[0].isEmpty() || fields[0].startsWith("#")) {
+                    continue;
+                }
+                try {
+                    if (fields[0].equals("rate") && fields.length == 2) {
+                        physicsRate = Double.parseDouble(fields[1]);
+                    } else if (fields[0].equals("length") && fields.length == 2) {
+                        length = Long.parseLong(fields[1]);
+                    } else if (fields.length == 3 && (fields[2].equals("press") || fields[2].equals("release"))) {
+                        if (size == ticks.length) {
+                            ticks = Arrays.copyOf(ticks, size * 2);
+                            inputs = Arrays.copyOf(inputs, size * 2);
+                            pressed = Arrays.copyOf(pressed, size * 2);
+                        }
+                        ticks[size] = Long.parseLong(fields[0]);
+                        inputs[size] = ControlInput.valueOf(fields[1]);
+                        pressed[size] = fields[2].equals("press");
+                        size++;
+                    } else {
+                        throw new IOException(file + ":" + number + ": not a trace line: " + line);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + number + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        if (length < 0) {
+            length = size > 0 ? ticks[size - 1] + 1 : 0;
+        }
+        try {
+            return new InputTrace(physicsRate, length, Arrays.copyOf(ticks, size), Arrays.copyOf(inputs, size),
+                    Arrays.copyOf(pressed, size));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the trace as text.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("rate " + physicsRate + "\n");
+            writer.write("length " + length + "\n");
+            for (int i = 0; i < ticks.length; i++) {
+                writer.write(ticks[i] + " " + inputs[i] + (pressed[i] ? " press\n" : " release\n"));
+            }
+        }
+    }
+
+    /**
+     * @return The physics rate the trace was recorded at, in steps per second.
+     */
+    public double getPhysicsRate() {
+        return physicsRate;
+    }
+
+    /**
+     * @return The number of ticks the trace covers.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return The number of events.
+     */
+    public int size() {
+        return ticks.length;
+    }
+
+    /**
+     * @param index The index of an event.
+     * @return The tick of the event, counted from the start of the trace.
+     */
+    public long getTick(int index) {
+        return ticks[index];
+    }
+
+    /**
+     * @param index The index of an event.
+     * @return The input of the event.
+     */
+    public ControlInput getInput(int index) {
+        return inputs[index];
+    }
+
+    /**
+     * @param index The index of an event.
+     * @return True if the event holds its input down, false if it releases it.
+     */
+    public boolean isPressed(int index) {
+        return pressed[index];
+    }
+}
@@ -0,0 +1,142 @@
+package org.openjfx.javaproject.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size log-linear histogram of durations in nanoseconds.
+ * Recording never allocates, so it can be used on the tick thread, while
+ * percentiles can be read concurrently from other threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_BUCKETS = 2 * SUB_BUCKETS; // values below this are counted exactly
+    private static final int BUCKET_COUNT = EXACT_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a single duration.
+     *
+     * @param nanos The duration in nanoseconds, negative values are counted as zero.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        total.incrementAndGet();
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Retrieves the value below which the given fraction of recorded durations fall.
+     * The result is the upper bound of the matching bucket, so it is precise to about 12%.
+     *
+     * @param fraction The percentile as a fraction between 0 and 1.
+     * @return The percentile in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double fraction) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Retrieves the largest recorded duration.
+     *
+     * @return The maximum in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Retrieves the number of recorded durations.
+     *
+     * @return The number of samples.
+     */
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * Retrieves the upper bounds of all buckets up to the last non-empty one.
+     *
+     * @return Bucket upper bounds in nanoseconds.
+     */
+    public long[] getBucketUpperBounds() {
+        long[] bounds = new long[lastUsedBucket() + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = upperBoundOf(i);
+        }
+        return bounds;
+    }
+
+    /**
+     * Retrieves the sample counts of all buckets up to the last non-empty one.
+     *
+     * @return Bucket counts, aligned with {@link #getBucketUpperBounds()}.
+     */
+    public long[] getBucketCounts() {
+        long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = counts.get(i);
+        }
+        return Arrays.copyOf(result, lastUsedBucket() + 1);
+    }
+
+    /**
+     * Discards all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    private int lastUsedBucket() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(long value) {
+        if (value < EXACT_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_BUCKETS + (magnitude - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < EXACT_BUCKETS) {
+            return index;
+        }
+        int offset = index - EXACT_BUCKETS;
+        int magnitude = offset / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int subBucket = offset % SUB_BUCKETS;
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS + (long) subBucket) << shift) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,332 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Room;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the simulation cost of a frame within a budget by simulating robots nobody looks at closely with less care.
+ * <p>
+ * Robots inside the focus, the part of the room shown by the viewport, or near a controlled robot are always
+ * simulated in full. When the smoothed cost of frames exceeds the budget, the quality level rises step by step:
+ * <ol>
+ *     <li>Robots out of focus look for walls in their field of view every 2nd tick only.</li>
+ *     <li>They look every 4th tick and move every 2nd tick, covering both ticks at once.</li>
+ *     <li>They look every 8th tick and move every 4th tick.</li>
+ * </ol>
+ * Robots out of focus are spread over the ticks by their id, so each tick does a similar amount of work.
+ * A robot that moves is stepped by the time since its last update, so robots crossing the focus border or caught
+ * by a level change neither lose nor gain simulated time.
+ * Once frames stay well below the budget for a while, the level falls again.
+ */
+public class QualityController {
+    public static final int MAX_LEVEL = 3;
+    public static final double DEFAULT_BUDGET = 0.008; // seconds, about half a frame at 60 frames per second
+
+    private static final int[] SENSING_INTERVALS = {1, 2, 4, 8};
+    private static final int[] UPDATE_INTERVALS = {1, 1, 2, 4};
+    private static final double SMOOTHING = 0.2; // weight of the latest frame in the smoothed cost
+    private static final int DEGRADE_FRAMES = 5; // frames over budget before the level rises
+    private static final int RECOVER_FRAMES = 60; // frames well under budget before the level falls
+    private static final double RECOVER_FRACTION = 0.5; // how far under budget counts as well under
+    private static final double FOCUS_DISTANCE = 150; // robots this close to a controlled robot are in focus
+
+    private volatile boolean enabled = false;
+    private volatile long budgetNanos = (long) (DEFAULT_BUDGET * 1e9);
+    private volatile int level = 0;
+    private volatile double smoothedCost = 0;
+    private int overBudgetFrames = 0;
+    private int underBudgetFrames = 0;
+
+    private volatile boolean focusSet = false;
+    private volatile double focusLeft;
+    private volatile double focusTop;
+    private volatile double focusRight;
+    private volatile double focusBottom;
+
+    // focus of the current tick, only used by the tick thread
+    private boolean tickFocusSet;
+    private double left;
+    private double top;
+    private double right;
+    private double bottom;
+    private int controlledCount;
+    private double[] controlledX = new double[4]; // grown when there are more controlled robots
+    private double[] controlledY = new double[4];
+
+    // tick each robot was last updated at, by robot id, only used by the tick thread
+    private long[] lastUpdateTicks = new long[0];
+    private long previousTick = -1;
+    private volatile int maxLagTicks = 0;
+
+    private volatile long robotUpdates = 0;
+    private volatile long degradedUpdates = 0;
+    private volatile long skippedUpdates = 0;
+    private volatile long skippedSensing = 0;
+    private volatile double degradedShare = 0;
+
+    /**
+     * Records the simulation cost of a frame and adjusts the level. Called by the tick thread after each frame.
+     *
+     * @param costNanos The wall-clock time spent simulating the frame.
+     */
+    public void frameFinished(long costNanos) {
+        if (!enabled) {
+            return;
+        }
+        double cost = smoothedCost == 0 ? costNanos : smoothedCost + SMOOTHING * (costNanos - smoothedCost);
+        smoothedCost = cost;
+        long budget = budgetNanos;
+        if (cost > budget) {
+            underBudgetFrames = 0;
+            if (++overBudgetFrames >= DEGRADE_FRAMES && level < MAX_LEVEL) {
+                level++;
+                overBudgetFrames = 0;
+            }
+        } else if (cost < budget * RECOVER_FRACTION) {
+            overBudgetFrames = 0;
+            if (++underBudgetFrames >= RECOVER_FRAMES && level > 0) {
+                level--;
+                underBudgetFrames = 0;
+                if (level == 0) {
+                    degradedShare = 0;
+                    maxLagTicks = 0;
+                }
+            }
+        } else {
+            overBudgetFrames = 0;
+            underBudgetFrames = 0;
+        }
+    }
+
+    /**
+     * Updates the robots of a tick according to the current level, which has to be above 0. At level 0 the engine
+     * updates all robots in full itself. Called by the tick thread.
+     *
+     * @param room      The simulated room.
+     * @param tick      The number of the tick.
+     * @param deltaTime The length of the tick, in seconds.
+     */
+    void updateRobots(Room room, long tick, double deltaTime) {
+        beginTick(room);
+        int current = level;
+        int sensingInterval = SENSING_INTERVALS[current];
+        int updateInterval = UPDATE_INTERVALS[current];
+        if (tick != previousTick + 1) {
+            // the engine updated every robot in full since the previous call
+            Arrays.fill(lastUpdateTicks, tick - 1);
+        }
+        List<Autorobot> robots = room.getRobots();
+        int degraded = 0;
+        int maxLag = 0;
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            int id = robot.getId();
+            long elapsed = ticksSinceUpdate(id, tick);
+            if (isInFocus(robot)) {
+                robot.update(room, deltaTime * elapsed);
+                lastUpdateTicks[id] = tick;
+                continue;
+            }
+            degraded++;
+            long phase = tick + id;
+            if (phase % updateInterval != 0) {
+                skippedUpdates++;
+                maxLag = (int) Math.max(maxLag, elapsed);
+                continue;
+            }
+            boolean sense = phase % sensingInterval == 0;
+            if (!sense) {
+                skippedSensing++;
+            }
+            robot.update(room, deltaTime * elapsed, sense);
+            lastUpdateTicks[id] = tick;
+        }
+        previousTick = tick;
+        maxLagTicks = maxLag;
+        robotUpdates += robots.size();
+        degradedUpdates += degraded;
+        degradedShare = robots.isEmpty() ? 0 : (double) degraded / robots.size();
+    }
+
+    /**
+     * Calculates how many ticks a robot has to be stepped by to catch up with the given tick, growing the
+     * table of update ticks when the robot is new.
+     */
+    private long ticksSinceUpdate(int id, long tick) {
+        if (id >= lastUpdateTicks.length) {
+            int oldLength = lastUpdateTicks.length;
+            lastUpdateTicks = Arrays.copyOf(lastUpdateTicks, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(lastUpdateTicks, oldLength, lastUpdateTicks.length, Long.MIN_VALUE);
+        }
+        long last = lastUpdateTicks[id];
+        if (last == Long.MIN_VALUE) {
+            return 1; // added since the previous tick
+        }
+        // a robot is never left behind longer than the largest interval, an older tick belongs to a removed robot
+        return Math.max(1, Math.min(tick - last, UPDATE_INTERVALS[MAX_LEVEL]));
+    }
+
+    /**
+     * Takes over the focus for the coming tick.
+     */
+    private void beginTick(Room room) {
+        tickFocusSet = focusSet;
+        left = focusLeft;
+        top = focusTop;
+        right = focusRight;
+        bottom = focusBottom;
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        controlledCount = controlledRobots.size();
+        if (controlledCount > controlledX.length) {
+            controlledX = new double[controlledCount];
+            controlledY = new double[controlledCount];
+        }
+        for (int i = 0; i < controlledCount; i++) {
+            controlledX[i] = controlledRobots.get(i).getPosition().getX();
+            controlledY[i] = controlledRobots.get(i).getPosition().getY();
+        }
+    }
+
+    private boolean isInFocus(Autorobot robot) {
+        double x = robot.getPosition().getX();
+        double y = robot.getPosition().getY();
+        if (tickFocusSet && x >= left && x <= right && y >= top && y <= bottom) {
+            return true;
+        }
+        for (int i = 0; i < controlledCount; i++) {
+            double dx = x - controlledX[i];
+            double dy = y - controlledY[i];
+            if (dx * dx + dy * dy <= FOCUS_DISTANCE * FOCUS_DISTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the part of the room that is shown and always simulated in full. Without a focus, only robots
+     * near a controlled robot are.
+     *
+     * @param left   The left edge of the focus.
+     * @param top    The top edge of the focus.
+     * @param right  The right edge of the focus.
+     * @param bottom The bottom edge of the focus.
+     */
+    public void setFocus(double left, double top, double right, double bottom) {
+        focusLeft = left;
+        focusTop = top;
+        focusRight = right;
+        focusBottom = bottom;
+        focusSet = true;
+    }
+
+    /**
+     * @return True if the level is adjusted to the frame cost.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches adaptive quality on or off. Switching it off returns to full quality right away.
+     *
+     * @param enabled True to adjust the level to the frame cost.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            level = 0;
+            smoothedCost = 0;
+            degradedShare = 0;
+            maxLagTicks = 0;
+        }
+    }
+
+    /**
+     * @return The simulation time a frame may take, in seconds.
+     */
+    public double getBudget() {
+        return budgetNanos / 1e9;
+    }
+
+    /**
+     * @param budget The simulation time a frame may take, in seconds.
+     */
+    public void setBudget(double budget) {
+        this.budgetNanos = (long) (budget * 1e9);
+    }
+
+    /**
+     * @return The quality level, 0 for full quality up to {@link #MAX_LEVEL}.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return The smoothed simulation time of recent frames, in seconds.
+     */
+    public double getSmoothedCost() {
+        return smoothedCost / 1e9;
+    }
+
+    /**
+     * @return The share of robots simulated with less care in the latest tick, between 0 and 1.
+     */
+    public double getDegradedShare() {
+        return degradedShare;
+    }
+
+    /**
+     * Retrieves how far behind the position of a robot out of focus was in the latest tick,
+     * as it moves only every few ticks.
+     *
+     * @param stepTime The length of a tick, in seconds.
+     * @return The largest lag in pixels.
+     */
+    public double getMaxPositionLag(double stepTime) {
+        return Autorobot.SPEED * maxLagTicks * stepTime;
+    }
+
+    /**
+     * Retrieves how late a robot out of focus may notice a wall in view at the current level.
+     *
+     * @param stepTime The length of a tick, in seconds.
+     * @return The largest delay in seconds.
+     */
+    public double getMaxSensingDelay(double stepTime) {
+        return (SENSING_INTERVALS[level] - 1) * stepTime;
+    }
+
+    /**
+     * @return The number of robot updates simulated with less care so far, including skipped ones.
+     */
+    public long getDegradedUpdateCount() {
+        return degradedUpdates;
+    }
+
+    /**
+     * @return The number of robot updates skipped so far, as their robots moved in larger steps.
+     */
+    public long getSkippedUpdateCount() {
+        return skippedUpdates;
+    }
+
+    /**
+     * @return The number of robot updates that skipped looking for walls so far.
+     */
+    public long getSkippedSensingCount() {
+        return skippedSensing;
+    }
+
+    /**
+     * @return The number of robot updates so far, in full or not.
+     */
+    public long getRobotUpdateCount() {
+        return robotUpdates;
+    }
+}
@@ -0,0 +1,200 @@
+package org.openjfx.javaproject.engine;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Reads the live state published by {@link SharedWorldState} from another process.
+ * The file is mapped read-only and snapshots are copied straight out of shared memory.
+ */
+public class SharedWorldReader implements AutoCloseable {
+    private final Path path;
+    private Arena arena;
+    private MemorySegment segment;
+    private int capacity;
+
+    private long tick;
+    private double time;
+    private double width;
+    private double height;
+    private int controlledCount;
+    private double[] controlled = new double[0];
+
+    /**
+     * Maps an existing shared state file.
+     *
+     * @param path The file written by a running simulation.
+     * @throws IOException If the file could not be mapped or is not a shared state file.
+     */
+    public SharedWorldReader(Path path) throws IOException {
+        this.path = path;
+        map();
+    }
+
+    private void map() throws IOException {
+        Arena newArena = Arena.ofConfined();
+        MemorySegment newSegment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            newSegment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), newArena);
+        } catch (IOException | RuntimeException e) {
+            newArena.close();
+            throw e;
+        }
+        if (newSegment.byteSize() < SharedWorldState.HEADER_SIZE
+                || newSegment.get(JAVA_LONG, SharedWorldState.MAGIC_OFFSET) != SharedWorldState.MAGIC) {
+            newArena.close();
+            throw new IOException("Not a shared state file: " + path);
+        }
+        if (arena != null) {
+            arena.close();
+        }
+        arena = newArena;
+        segment = newSegment;
+        capacity = (int) ((segment.byteSize() - SharedWorldState.HEADER_SIZE) / SharedWorldState.RECORD_SIZE);
+    }
+
+    /**
+     * Takes a consistent snapshot of the published state, retrying while a tick is being written.
+     *
+     * @param states Receives the x, y and angle in radians of every auto robot, three values per robot.
+     *               If it is too small, only the robots that fit are copied.
+     * @return The number of auto robots in the snapshot.
+     * @throws IOException If the file grew and could not be mapped again.
+     */
+    public int read(double[] states) throws IOException {
+        while (true) {
+            long before = segment.get(JAVA_LONG, SharedWorldState.SEQUENCE_OFFSET);
+            VarHandle.acquireFence();
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (segment.get(JAVA_INT, SharedWorldState.CAPACITY_OFFSET) > capacity) {
+                map(); // the writer grew the file
+                continue;
+            }
+
+            int count = segment.get(JAVA_INT, SharedWorldState.COUNT_OFFSET);
+            tick = segment.get(JAVA_LONG, SharedWorldState.TICK_OFFSET);
+            time = segment.get(JAVA_DOUBLE, SharedWorldState.TIME_OFFSET);
+            width = segment.get(JAVA_DOUBLE, SharedWorldState.WIDTH_OFFSET);
+            height = segment.get(JAVA_DOUBLE, SharedWorldState.HEIGHT_OFFSET);
+            int controlledRecords = segment.get(JAVA_INT, SharedWorldState.CONTROLLED_COUNT_OFFSET);
+            int copied = Math.min(Math.min(count, capacity), states.length / 3);
+            MemorySegment.copy(segment, JAVA_DOUBLE, SharedWorldState.HEADER_SIZE, states, 0, copied * 3);
+            // The controlled robots follow the auto robots, a torn count is caught by the sequence check below
+            int controlledStart = Math.min(count, capacity);
+            int controlledCopied = Math.min(controlledRecords, capacity - controlledStart);
+            if (controlled.length < controlledCopied * 3) {
+                controlled = new double[controlledCopied * 3];
+            }
+            MemorySegment.copy(segment, JAVA_DOUBLE,
+                    SharedWorldState.HEADER_SIZE + controlledStart * SharedWorldState.RECORD_SIZE,
+                    controlled, 0, controlledCopied * 3);
+
+            VarHandle.loadLoadFence();
+            long after = segment.get(JAVA_LONG, SharedWorldState.SEQUENCE_OFFSET);
+            if (before == after) {
+                controlledCount = controlledRecords;
+                return count;
+            }
+        }
+    }
+
+    /**
+     * @return The tick of the last snapshot.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The simulated time of the last snapshot, in seconds.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return The width of the room in the last snapshot.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the room in the last snapshot.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of controlled robots in the last snapshot.
+     */
+    public int getControlledRobotCount() {
+        return controlledCount;
+    }
+
+    /**
+     * Retrieves a controlled robot of the last snapshot, in the order they were added to the room.
+     *
+     * @param index The index of the controlled robot, from 0 to {@link #getControlledRobotCount()} - 1.
+     * @param state Receives the x, y and angle in radians of the controlled robot.
+     */
+    public void getControlledRobot(int index, double[] state) {
+        System.arraycopy(controlled, index * 3, state, 0, 3);
+    }
+
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+            arena = null;
+        }
+    }
+
+    /**
+     * Prints the live state of a running simulation once per interval.
+     *
+     * @param args Command line arguments: file [--interval ms]
+     */
+    public static void main(String[] args) {
+        long interval = 1000;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--interval")) {
+                interval = Long.parseLong(args[++i]);
+            }
+        }
+        try (SharedWorldReader reader = new SharedWorldReader(Path.of(args[0]))) {
+            double[] states = new double[0];
+            while (true) {
+                int count = reader.read(states);
+                if (count * 3 > states.length) {
+                    states = new double[count * 3];
+                    continue;
+                }
+                System.out.printf("tick %d, %.2f s, %d robots, %d controlled", reader.getTick(), reader.getTime(),
+                        count, reader.getControlledRobotCount());
+                if (count > 0) {
+                    System.out.printf(", first at %.2f %.2f", states[0], states[1]);
+                }
+                System.out.println();
+                Thread.sleep(interval);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Room;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Publishes the state of the room into a memory-mapped file, so other processes on the host can read live
+ * positions straight from shared memory, without waiting for the log and without copying through a socket.
+ * The state lives in a {@link MemorySegment} outside the Java heap, so it adds nothing to garbage collection.
+ * <p>
+ * Readers and the writer are synchronized by a seqlock: the sequence number in the header is odd while
+ * a tick is being written and is increased to the next even number once it is complete. A reader takes a
+ * consistent snapshot by reading the sequence, the state, and the sequence again, and retrying if it changed.
+ * See {@link SharedWorldReader}.
+ * <p>
+ * File layout, all values in native byte order:
+ * <pre>
+ *  0  long   magic
+ *  8  int    capacity, number of robot records the file has room for, auto and controlled together
+ * 12  int    robot count
+ * 16  long   sequence
+ * 24  long   tick
+ * 32  double simulated time, in seconds
+ * 40  double room width
+ * 48  double room height
+ * 56  int    controlled robot count
+ * 64  records of the auto robots followed by records of the controlled robots, x, y and angle in radians
+ *     as doubles
+ * </pre>
+ */
+public class SharedWorldState implements AutoCloseable {
+    static final long MAGIC = 0x50475752_4C443032L; // "PGWRLD02"
+    static final long MAGIC_OFFSET = 0;
+    static final long CAPACITY_OFFSET = 8;
+    static final long COUNT_OFFSET = 12;
+    static final long SEQUENCE_OFFSET = 16;
+    static final long TICK_OFFSET = 24;
+    static final long TIME_OFFSET = 32;
+    static final long WIDTH_OFFSET = 40;
+    static final long HEIGHT_OFFSET = 48;
+    static final long CONTROLLED_COUNT_OFFSET = 56;
+    static final long HEADER_SIZE = 64;
+    static final long RECORD_SIZE = 3 * Double.BYTES;
+
+    private static final int MIN_CAPACITY = 64;
+
+    private final Path path;
+    private Arena arena;
+    private MemorySegment segment;
+    private int capacity;
+    private long sequence = 0;
+
+    /**
+     * Creates or reuses the shared state file and maps it into memory.
+     *
+     * @param path     The file to publish into.
+     * @param capacity The number of robots to reserve room for, the file grows when more are published.
+     * @throws IOException If the file could not be created or mapped.
+     */
+    public SharedWorldState(Path path, int capacity) throws IOException {
+        this.path = path;
+        map(Math.max(capacity, MIN_CAPACITY));
+    }
+
+    /**
+     * Maps the file with room for the given number of robots, growing it if needed.
+     */
+    private void map(int newCapacity) throws IOException {
+        Arena newArena = Arena.ofShared();
+        MemorySegment newSegment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            newSegment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + newCapacity * RECORD_SIZE, newArena);
+        } catch (IOException | RuntimeException e) {
+            newArena.close();
+            throw e;
+        }
+        if (arena != null) {
+            arena.close();
+        }
+        arena = newArena;
+        segment = newSegment;
+        capacity = newCapacity;
+
+        // Readers only look at the capacity when the sequence is even, so it is written between ticks
+        segment.set(JAVA_LONG, SEQUENCE_OFFSET, sequence);
+        segment.set(JAVA_INT, CAPACITY_OFFSET, capacity);
+        VarHandle.releaseFence();
+        segment.set(JAVA_LONG, MAGIC_OFFSET, MAGIC);
+    }
+
+    /**
+     * Writes the current state of the room. Does not allocate unless the file has to grow.
+     *
+     * @param tick The number of the tick the state belongs to.
+     * @param time The simulated time, in seconds.
+     * @param room The room to publish.
+     */
+    public void publish(long tick, double time, Room room) {
+        List<Autorobot> robots = room.getRobots();
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        int records = robots.size() + controlledRobots.size();
+        if (records > capacity) {
+            try {
+                map(Math.max(records, capacity * 2));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        sequence++; // odd, a write is in progress
+        segment.set(JAVA_LONG, SEQUENCE_OFFSET, sequence);
+        VarHandle.storeStoreFence();
+
+        segment.set(JAVA_LONG, TICK_OFFSET, tick);
+        segment.set(JAVA_DOUBLE, TIME_OFFSET, time);
+        segment.set(JAVA_DOUBLE, WIDTH_OFFSET, room.getWidth());
+        segment.set(JAVA_DOUBLE, HEIGHT_OFFSET, room.getHeight());
+        segment.set(JAVA_INT, COUNT_OFFSET, robots.size());
+        segment.set(JAVA_INT, CONTROLLED_COUNT_OFFSET, controlledRobots.size());
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            segment.set(JAVA_DOUBLE, offset, robot.getPosition().getX());
+            segment.set(JAVA_DOUBLE, offset + Double.BYTES, robot.getPosition().getY());
+            segment.set(JAVA_DOUBLE, offset + 2 * Double.BYTES, robot.getAngle());
+            offset += RECORD_SIZE;
+        }
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot robot = controlledRobots.get(i);
+            segment.set(JAVA_DOUBLE, offset, robot.getPosition().getX());
+            segment.set(JAVA_DOUBLE, offset + Double.BYTES, robot.getPosition().getY());
+            segment.set(JAVA_DOUBLE, offset + 2 * Double.BYTES, Math.toRadians(robot.getAngle()));
+            offset += RECORD_SIZE;
+        }
+
+        VarHandle.releaseFence();
+        sequence++; // even, the tick is complete
+        segment.set(JAVA_LONG, SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * Retrieves the file the state is published into.
+     *
+     * @return The path of the shared state file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Unmaps the file. The file itself is kept, readers see the last published tick.
+     */
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+            arena = null;
+        }
+    }
+}
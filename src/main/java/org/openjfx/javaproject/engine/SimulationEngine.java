@@ -0,0 +1,949 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.Log;
+import org.openjfx.javaproject.analytics.TrafficHeatmap;
+import org.openjfx.javaproject.common.SceneReloader;
+import org.openjfx.javaproject.navigation.GoalSteering;
+import org.openjfx.javaproject.navigation.PlanningService;
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Room;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the simulation of a room in fixed physics steps and collects runtime metrics about it.
+ * The engine is not thread safe, all stepping has to happen on a single tick thread. Settings that
+ * can be tuned at runtime (physics rate, recording, worker threads) may be changed from any thread.
+ */
+public class SimulationEngine {
+    public static final double MAX_SPEED = 1000;
+    public static final double DEFAULT_FRAME_BUDGET = 0.012; // seconds, leaves time for rendering at 60 frames per second
+
+    private static final double MAX_FRAME_TIME = 0.25; // never catch up more than this per frame
+    private static final double SPEED_WINDOW = 1; // seconds of frames the achieved speed is measured over
+    private static final int WRITER_QUEUE_CAPACITY = 16;
+    private static final long LOG_FLUSH_TIMEOUT = 10_000; // milliseconds to wait for a flush before giving up
+    private static final long RATE_WINDOW = 1_000_000_000L; // window of the tick rate measurement
+    private static final double HEATMAP_CELL_SIZE = 20;
+    private static final int COLLISION_BUS_CAPACITY = 8192;
+
+    private final Room room;
+    private final Log log = new Log();
+    private final LatencyHistogram tickLatency = new LatencyHistogram();
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
+    private final Map<ControlledRobot, LatencyHistogram> robotInputLatency = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor workers; // plans paths, never waits behind file output
+    private final ThreadPoolExecutor writer; // writes log files and heatmap exports
+    private final AtomicInteger stepsInFlight = new AtomicInteger();
+    private final LogFlush logFlush = new LogFlush();
+    private final PlanningService planner;
+    private final CollisionBus collisionBus = new CollisionBus(COLLISION_BUS_CAPACITY, CollisionBus.BackPressure.DROP);
+    private final TickPublisher tickPublisher = new TickPublisher();
+    private final QualityController quality = new QualityController();
+    private int steeredRobotCount = -1; // robot count when goal steering was last attached
+
+    private volatile double physicsRate = 60;
+    private volatile double speed = 1;
+    private volatile long frameBudgetNanos = (long) (DEFAULT_FRAME_BUDGET * 1e9);
+    private volatile SimulationMode mode = SimulationMode.FIXED_STEP;
+    private EventDrivenSimulation eventSimulation;
+    private volatile boolean recordingRequested = false;
+    private boolean recording = false;
+    private String logFile = "simulation.log";
+    private volatile String sharedStateRequested = null;
+    private SharedWorldState sharedState;
+    private volatile boolean analyticsRequested = false;
+    private TrafficHeatmap heatmap;
+    private volatile String heatmapExportRequested = null;
+    private volatile SceneReloader sceneReloader;
+    private volatile InputPlayer inputPlayer;
+    private volatile InputRecorder inputRecorder;
+    private volatile long lateInputs = 0;
+
+    private double accumulator = 0;
+    private int step = 0;
+    private double simulatedTime = 0;
+    private volatile long tickCount = 0;
+    private long rateWindowStart = 0;
+    private long rateWindowTicks = 0;
+    private volatile double tickRate = 0;
+    private double speedWindowFrameTime = 0;
+    private double speedWindowSimulated = 0;
+    private volatile double achievedSpeed = 0;
+    private volatile double droppedTime = 0;
+
+    private ObjectName objectName;
+
+    /**
+     * Constructs an engine simulating the given room.
+     *
+     * @param room The room to simulate.
+     */
+    public SimulationEngine(Room room) {
+        this.room = room;
+        // plans are shared by all robots with the same request, so the queue only grows with distinct requests
+        this.workers = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "simulation-planner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers.prestartAllCoreThreads();
+        this.writer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(WRITER_QUEUE_CAPACITY), r -> {
+            Thread thread = new Thread(r, "simulation-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.prestartAllCoreThreads();
+        this.planner = new PlanningService(room, workers, PlanningService.DEFAULT_CELL_SIZE);
+        room.addCollisionListener(collisionBus);
+    }
+
+    /**
+     * Advances the simulation by the elapsed frame time times the speed, running as many fixed physics steps as fit
+     * into it. Stepping stops once the frame budget is used up, the simulated time that did not fit is dropped
+     * instead of being caught up in later frames, so a speed the machine cannot reach only lowers the achieved speed.
+     *
+     * @param frameTime The time elapsed since the last frame, in seconds.
+     */
+    public void advance(double frameTime) {
+        long start = System.nanoTime();
+        long deadline = start + frameBudgetNanos;
+        accumulator += Math.min(frameTime, MAX_FRAME_TIME) * speed;
+        double stepTime = 1.0 / physicsRate;
+        double simulated = 0;
+        while (accumulator >= stepTime) {
+            step(stepTime);
+            accumulator -= stepTime;
+            simulated += stepTime;
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        if (accumulator >= stepTime) {
+            double remainder = accumulator % stepTime;
+            droppedTime += accumulator - remainder;
+            accumulator = remainder;
+        }
+        if (eventSimulation != null) {
+            eventSimulation.materialize();
+        }
+        long cost = System.nanoTime() - start;
+        updateAchievedSpeed(frameTime, simulated);
+        // the quality level should follow the cost of simulating in real time, not the cost of the speed-up
+        quality.frameFinished(simulated > frameTime && frameTime > 0 ? (long) (cost * frameTime / simulated) : cost);
+    }
+
+    /**
+     * Measures the simulated time per elapsed frame time over a window of frames.
+     */
+    private void updateAchievedSpeed(double frameTime, double simulated) {
+        speedWindowFrameTime += frameTime;
+        speedWindowSimulated += simulated;
+        if (speedWindowFrameTime >= SPEED_WINDOW) {
+            achievedSpeed = speedWindowSimulated / speedWindowFrameTime;
+            speedWindowFrameTime = 0;
+            speedWindowSimulated = 0;
+        }
+    }
+
+    /**
+     * Runs a single physics step of the given length.
+     *
+     * @param deltaTime The simulated time of the step, in seconds.
+     */
+    public void step(double deltaTime) {
+        long start = System.nanoTime();
+        applyRecordingRequest();
+        applySharedStateRequest();
+        applyAnalyticsRequest();
+        applySceneReload();
+        applyQueuedInputs();
+        InputPlayer player = inputPlayer;
+        if (player != null) {
+            player.apply(tickCount);
+        }
+        attachGoalSteering();
+        collisionBus.setTick(tickCount + 1);
+
+        if (applyMode(deltaTime)) {
+            eventSimulation.advance(deltaTime);
+            if (recording || sharedState != null || tickPublisher.hasSubscribers()) {
+                eventSimulation.materialize();
+            }
+        } else {
+            if (quality.getLevel() > 0) {
+                quality.updateRobots(room, tickCount, deltaTime);
+            } else {
+                List<Autorobot> robots = room.getRobots();
+                for (int i = 0; i < robots.size(); i++) {
+                    robots.get(i).update(room, deltaTime);
+                }
+            }
+            List<ControlledRobot> controlledRobots = room.getControlledRobots();
+            for (int i = 0; i < controlledRobots.size(); i++) {
+                controlledRobots.get(i).update(room, deltaTime);
+            }
+            recordInputLatency(start, deltaTime);
+        }
+
+        if (heatmap != null) {
+            heatmap.sample(room, deltaTime);
+        }
+        if (recording) {
+            recordStep();
+        }
+        step++;
+        simulatedTime += deltaTime;
+        if (sharedState != null) {
+            sharedState.publish(tickCount + 1, simulatedTime, room);
+        }
+        tickPublisher.publish(tickCount + 1, simulatedTime, room.getRobots());
+
+        long end = System.nanoTime();
+        tickLatency.record(end - start);
+        tickCount++;
+        updateTickRate(end);
+    }
+
+    /**
+     * Applies the commands queued for the controlled robots, so they take effect in this step. The first controlled
+     * robot is the one the keyboard drives, its commands go to the input recorder if there is one.
+     */
+    private void applyQueuedInputs() {
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        InputRecorder recorder = inputRecorder;
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot robot = controlledRobots.get(i);
+            int applied = robot.applyQueuedInputs();
+            if (recorder != null && i == 0) {
+                for (int c = 0; c < applied; c++) {
+                    recorder.record(tickCount, robot.getAppliedInput(c), robot.isAppliedInputPressed(c));
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the time from queueing to motion of the commands applied in this step, once the controlled robots
+     * moved. Commands that waited longer than a step before the step applying them started are counted as late.
+     */
+    private void recordInputLatency(long stepStart, double deltaTime) {
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        if (robotInputLatency.size() > controlledRobots.size()) {
+            robotInputLatency.keySet().removeIf(robot -> !controlledRobots.contains(robot));
+        }
+        long now = System.nanoTime();
+        long stepNanos = (long) (deltaTime * 1e9);
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot robot = controlledRobots.get(i);
+            int applied = robot.getAppliedInputCount();
+            if (applied == 0) {
+                continue;
+            }
+            LatencyHistogram histogram = robotInputLatency.get(robot);
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                robotInputLatency.put(robot, histogram);
+            }
+            for (int c = 0; c < applied; c++) {
+                long latency = now - robot.getAppliedInputStamp(c);
+                inputLatency.record(latency);
+                histogram.record(latency);
+                if (stepStart - robot.getAppliedInputStamp(c) > stepNanos) {
+                    lateInputs++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets robots with goals travel to them, checked whenever robots were added or removed.
+     */
+    private void attachGoalSteering() {
+        List<Autorobot> robots = room.getRobots();
+        if (robots.size() == steeredRobotCount) {
+            return;
+        }
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            if (robot.getSteering() == null && !robot.getGoals().isEmpty()) {
+                robot.setSteering(new GoalSteering(planner, robot.getGoals()));
+            }
+        }
+        steeredRobotCount = robots.size();
+    }
+
+    /**
+     * Switches between fixed steps and events on the tick thread.
+     *
+     * @param deltaTime The length of the current physics step, used as the reaction time of robots.
+     * @return True if this step is simulated by events, false otherwise.
+     */
+    private boolean applyMode(double deltaTime) {
+        boolean events = mode == SimulationMode.EVENT_DRIVEN && !room.isControlledRobotSet()
+                && heatmap == null && !collisionBus.hasSubscribers() && !hasSteering();
+        if (events && eventSimulation == null) {
+            eventSimulation = new EventDrivenSimulation(room, deltaTime);
+        } else if (!events && eventSimulation != null) {
+            eventSimulation.materialize();
+            eventSimulation = null;
+        }
+        if (eventSimulation != null) {
+            eventSimulation.setReactionTime(deltaTime);
+        }
+        return events;
+    }
+
+    /**
+     * Checks if any robot is steered, steered robots change course every step and cannot be predicted by events.
+     */
+    private boolean hasSteering() {
+        List<Autorobot> robots = room.getRobots();
+        for (int i = 0; i < robots.size(); i++) {
+            if (robots.get(i).getSteering() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts or stops recording on the tick thread, so the log is only ever touched from there.
+     */
+    private void applyRecordingRequest() {
+        boolean requested = recordingRequested;
+        if (requested == recording) {
+            return;
+        }
+        if (requested) {
+            log.initLogs(logFile);
+            step = 0;
+        } else {
+            finishLog();
+        }
+        recording = requested;
+    }
+
+    /**
+     * Opens, switches or closes the shared state file on the tick thread, so it is only ever written from there.
+     */
+    private void applySharedStateRequest() {
+        String requested = sharedStateRequested;
+        String current = sharedState != null ? sharedState.getPath().toString() : null;
+        if (requested == null ? current == null : requested.equals(current)) {
+            return;
+        }
+        if (sharedState != null) {
+            sharedState.close();
+            sharedState = null;
+        }
+        if (requested != null) {
+            try {
+                sharedState = new SharedWorldState(Path.of(requested), room.getRobots().size());
+            } catch (IOException e) {
+                e.printStackTrace();
+                sharedStateRequested = null;
+            }
+        }
+    }
+
+    /**
+     * Starts or stops collecting traffic statistics and hands requested heatmap exports over to the writer thread.
+     * The heatmap is only ever updated on the tick thread, exports write a copy of it.
+     */
+    private void applyAnalyticsRequest() {
+        boolean requested = analyticsRequested;
+        if (requested && heatmap == null) {
+            heatmap = new TrafficHeatmap(room.getWidth(), room.getHeight(), HEATMAP_CELL_SIZE);
+            room.addCollisionListener(heatmap);
+        } else if (!requested && heatmap != null) {
+            room.removeCollisionListener(heatmap);
+            heatmap = null;
+        }
+
+        String export = heatmapExportRequested;
+        if (export != null) {
+            heatmapExportRequested = null;
+            if (heatmap != null) {
+                TrafficHeatmap copy = heatmap.copy();
+                try {
+                    writer.execute(() -> exportHeatmap(copy, export));
+                } catch (RejectedExecutionException e) {
+                    exportHeatmap(copy, export);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a changed scene configuration requested from the scene reloader. Called at the start of every step,
+     * and by the thread that owns the engine while no steps run, like the application thread of a paused simulation.
+     */
+    public void applySceneReload() {
+        SceneReloader reloader = sceneReloader;
+        if (reloader == null || !reloader.hasPending()) {
+            return;
+        }
+        // events were predicted for the old scene, start over from the current positions
+        if (eventSimulation != null) {
+            eventSimulation.materialize();
+            eventSimulation = null;
+        }
+        reloader.applyPending();
+        steeredRobotCount = -1; // moved robots lost their steering
+    }
+
+    private static void exportHeatmap(TrafficHeatmap heatmap, String file) {
+        try {
+            heatmap.export(Path.of(file));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void recordStep() {
+        log.recordStep(step, room.getRobots());
+        if (log.isFull()) {
+            flushLog();
+        }
+    }
+
+    /**
+     * Hands the recorded steps over to the writer thread, which appends them to the log file.
+     * Only one flush is in flight at a time, so the file stays in order. While the previous flush is
+     * still being written, the steps are kept buffered and handed over on a later tick. If the writer
+     * does not take the flush, it is written on the tick thread instead.
+     */
+    private void flushLog() {
+        if (logFlush.inFlight || log.getTotalTimeSteps() == 0) {
+            return;
+        }
+        logFlush.inFlight = true;
+        logFlush.filename = logFile;
+        stepsInFlight.set(log.getTotalTimeSteps());
+        logFlush.text = log.detachLogs();
+        try {
+            writer.execute(logFlush);
+        } catch (RejectedExecutionException e) {
+            logFlush.run();
+        }
+    }
+
+    /**
+     * Waits for the flush in flight and writes the remaining steps out on the calling thread. If the flush does not
+     * finish in time, the remaining steps are left unwritten rather than written out of order.
+     */
+    private void finishLog() {
+        if (!logFlush.await(LOG_FLUSH_TIMEOUT)) {
+            System.err.println("The log flush did not finish within " + LOG_FLUSH_TIMEOUT + " ms, "
+                    + log.getTotalTimeSteps() + " recorded steps were not written");
+            return;
+        }
+        log.bufferOut(logFile);
+    }
+
+    /**
+     * Reusable task writing a detached log buffer, so flushing does not allocate on the tick thread.
+     */
+    private class LogFlush implements Runnable {
+        private volatile boolean inFlight = false;
+        private String filename;
+        private StringBuilder text;
+
+        @Override
+        public void run() {
+            try {
+                Log.writeLogs(filename, text);
+                log.recycle(text);
+            } finally {
+                text = null;
+                stepsInFlight.set(0);
+                synchronized (this) {
+                    inFlight = false;
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits until no flush is in flight.
+         *
+         * @param timeout The longest time to wait, in milliseconds.
+         * @return True if no flush is in flight, false if the time ran out or the thread was interrupted.
+         */
+        private synchronized boolean await(long timeout) {
+            long deadline = System.currentTimeMillis() + timeout;
+            try {
+                while (inFlight) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void updateTickRate(long now) {
+        if (rateWindowStart == 0) {
+            rateWindowStart = now;
+        }
+        rateWindowTicks++;
+        long elapsed = now - rateWindowStart;
+        if (elapsed >= RATE_WINDOW) {
+            tickRate = rateWindowTicks * 1_000_000_000.0 / elapsed;
+            rateWindowStart = now;
+            rateWindowTicks = 0;
+        }
+    }
+
+    /**
+     * Registers the management bean of this engine with the platform MBean server.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(SimulationMetrics.OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new SimulationMetrics(this), name);
+            objectName = name;
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Flushes the remaining log, unregisters the management bean and stops the worker threads.
+     */
+    public void shutdown() {
+        if (recording) {
+            finishLog();
+            recording = false;
+        }
+        recordingRequested = false;
+        sharedStateRequested = null;
+        if (sharedState != null) {
+            sharedState.close();
+            sharedState = null;
+        }
+        String export = heatmapExportRequested;
+        if (export != null && heatmap != null) {
+            exportHeatmap(heatmap, export);
+        }
+        heatmapExportRequested = null;
+        tickPublisher.close();
+        workers.shutdown();
+        writer.shutdown();
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+            objectName = null;
+        }
+    }
+
+    /**
+     * Retrieves the simulated room.
+     *
+     * @return The room.
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Retrieves the histogram of wall-clock durations of the physics steps.
+     *
+     * @return The tick latency histogram.
+     */
+    public LatencyHistogram getTickLatency() {
+        return tickLatency;
+    }
+
+    /**
+     * Retrieves the histogram of the times from queueing an input command to the end of the step that moved its
+     * controlled robot, over all controlled robots.
+     *
+     * @return The input latency histogram.
+     */
+    public LatencyHistogram getInputLatency() {
+        return inputLatency;
+    }
+
+    /**
+     * Retrieves the input latency histogram of a single controlled robot.
+     *
+     * @param robot The controlled robot.
+     * @return The histogram, or null if no command of the robot was applied yet.
+     */
+    public LatencyHistogram getInputLatency(ControlledRobot robot) {
+        return robotInputLatency.get(robot);
+    }
+
+    /**
+     * Retrieves the number of input commands that waited longer than a physics step for the step applying them.
+     *
+     * @return The number of late inputs.
+     */
+    public long getLateInputCount() {
+        return lateInputs;
+    }
+
+    /**
+     * Retrieves the number of input commands dropped because the queue of their controlled robot was full, over the
+     * controlled robots currently in the room.
+     *
+     * @return The number of dropped inputs.
+     */
+    public long getDroppedInputCount() {
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        long dropped = 0;
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            dropped += controlledRobots.get(i).getInputQueue().getDroppedCount();
+        }
+        return dropped;
+    }
+
+    /**
+     * Retrieves the number of physics steps run so far.
+     *
+     * @return The number of ticks.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Retrieves the number of physics steps per wall-clock second, measured over the last second.
+     *
+     * @return The tick rate.
+     */
+    public double getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * Retrieves the number of recorded steps that were not yet written to the log file.
+     *
+     * @return The log backlog in steps.
+     */
+    public int getLogBacklog() {
+        return log.getTotalTimeSteps() + stepsInFlight.get();
+    }
+
+    /**
+     * Retrieves the number of simulated physics steps per simulated second.
+     *
+     * @return The physics rate in Hz.
+     */
+    public double getPhysicsRate() {
+        return physicsRate;
+    }
+
+    /**
+     * Sets the number of simulated physics steps per simulated second.
+     *
+     * @param physicsRate The physics rate in Hz.
+     */
+    public void setPhysicsRate(double physicsRate) {
+        if (!(physicsRate > 0) || Double.isInfinite(physicsRate)) {
+            throw new IllegalArgumentException("Physics rate must be positive: " + physicsRate);
+        }
+        this.physicsRate = physicsRate;
+    }
+
+    /**
+     * Retrieves how many simulated seconds each elapsed second of frame time should advance.
+     *
+     * @return The requested speed, 1 for real time.
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets how many simulated seconds each elapsed second of frame time should advance. Above 1, several physics
+     * steps run per frame and only the latest state is shown, the physics step length stays the same.
+     *
+     * @param speed The requested speed, from above 0 up to {@link #MAX_SPEED}.
+     */
+    public void setSpeed(double speed) {
+        if (!(speed > 0) || speed > MAX_SPEED) {
+            throw new IllegalArgumentException("Speed must be above 0 and at most " + MAX_SPEED + ": " + speed);
+        }
+        this.speed = speed;
+    }
+
+    /**
+     * Retrieves the simulated seconds per elapsed second of frame time, measured over the last second of frames.
+     * It stays below the requested speed when the steps of a frame do not fit into the frame budget.
+     *
+     * @return The achieved speed.
+     */
+    public double getAchievedSpeed() {
+        return achievedSpeed;
+    }
+
+    /**
+     * Retrieves the simulated time dropped so far because the steps did not fit into the frame budget.
+     *
+     * @return The dropped time, in seconds.
+     */
+    public double getDroppedTime() {
+        return droppedTime;
+    }
+
+    /**
+     * Retrieves the wall-clock time a frame may spend stepping before the rest of its simulated time is dropped.
+     *
+     * @return The frame budget, in seconds.
+     */
+    public double getFrameBudget() {
+        return frameBudgetNanos / 1e9;
+    }
+
+    /**
+     * Sets the wall-clock time a frame may spend stepping, at least one step runs per frame regardless.
+     *
+     * @param frameBudget The frame budget, in seconds.
+     */
+    public void setFrameBudget(double frameBudget) {
+        if (!(frameBudget > 0)) {
+            throw new IllegalArgumentException("Frame budget must be positive: " + frameBudget);
+        }
+        this.frameBudgetNanos = (long) (frameBudget * 1e9);
+    }
+
+    /**
+     * Retrieves how robots are advanced.
+     *
+     * @return The simulation mode.
+     */
+    public SimulationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets how robots are advanced, the change takes effect at the start of the next tick.
+     *
+     * @param mode The simulation mode.
+     */
+    public void setMode(SimulationMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Retrieves the number of events processed while running event-driven.
+     *
+     * @return The number of events, or 0 in fixed-step mode.
+     */
+    public long getEventCount() {
+        EventDrivenSimulation simulation = eventSimulation;
+        return simulation != null ? simulation.getEventCount() : 0;
+    }
+
+    /**
+     * Checks if the positions of robots are being recorded to the log file.
+     *
+     * @return True if recording is on, false otherwise.
+     */
+    public boolean isRecording() {
+        return recordingRequested;
+    }
+
+    /**
+     * Turns recording on or off, the change takes effect at the start of the next tick.
+     *
+     * @param recording True to record positions of robots, false to stop recording.
+     */
+    public void setRecording(boolean recording) {
+        this.recordingRequested = recording;
+    }
+
+    /**
+     * Sets the file the recorded positions are written to. It is used the next time recording starts.
+     *
+     * @param logFile The name of the log file.
+     */
+    public void setLogFile(String logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Retrieves the file the state of the room is published into for other processes.
+     *
+     * @return The path of the shared state file, or null if the state is not published.
+     */
+    public String getSharedStateFile() {
+        return sharedStateRequested;
+    }
+
+    /**
+     * Starts publishing the state of the room into a memory-mapped file after every tick, see {@link SharedWorldState}.
+     * The change takes effect at the start of the next tick.
+     *
+     * @param path The shared state file, or null to stop publishing.
+     */
+    public void setSharedStateFile(String path) {
+        this.sharedStateRequested = path;
+    }
+
+    /**
+     * Checks if traffic statistics are collected.
+     *
+     * @return True if the traffic heatmap is updated every step, false otherwise.
+     */
+    public boolean isAnalytics() {
+        return analyticsRequested;
+    }
+
+    /**
+     * Starts or stops collecting traffic statistics, takes effect at the next step.
+     * Stopping discards the statistics collected so far. Robots are advanced in fixed steps while
+     * statistics are collected, even in event-driven mode, as collisions are only seen there.
+     *
+     * @param analytics True to collect traffic statistics, false to stop.
+     */
+    public void setAnalytics(boolean analytics) {
+        this.analyticsRequested = analytics;
+    }
+
+    /**
+     * Requests an export of the traffic heatmap, written by the writer thread after the next step, or
+     * on the calling thread if the engine is shut down first. Ignored if no statistics are collected.
+     *
+     * @param file The file to write, CSV if its name ends with ".csv", otherwise a PNG image of the dwell time.
+     */
+    public void exportHeatmap(String file) {
+        this.heatmapExportRequested = file;
+    }
+
+    /**
+     * Retrieves the number of threads of the worker pool.
+     *
+     * @return The number of worker threads.
+     */
+    public int getThreadCount() {
+        return workers.getMaximumPoolSize();
+    }
+
+    /**
+     * Resizes the worker pool path planning runs on.
+     *
+     * @param threadCount The new number of worker threads.
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threadCount);
+        }
+        if (threadCount > workers.getMaximumPoolSize()) {
+            workers.setMaximumPoolSize(threadCount);
+            workers.setCorePoolSize(threadCount);
+        } else {
+            workers.setCorePoolSize(threadCount);
+            workers.setMaximumPoolSize(threadCount);
+        }
+    }
+
+    /**
+     * Sets the reloader whose requested scene changes are applied between steps.
+     *
+     * @param sceneReloader The reloader, or null to ignore changes of the scene configuration.
+     */
+    public void setSceneReloader(SceneReloader sceneReloader) {
+        this.sceneReloader = sceneReloader;
+    }
+
+    /**
+     * Sets the player that drives controlled robots from recorded inputs. It is applied at the start of every step,
+     * so it has to be set on the tick thread or before stepping starts.
+     *
+     * @param inputPlayer The player, or null to leave the controlled robots to the keyboard.
+     */
+    public void setInputPlayer(InputPlayer inputPlayer) {
+        this.inputPlayer = inputPlayer;
+    }
+
+    /**
+     * Sets the recorder the commands queued for the first controlled robot go to, stamped with the step they are
+     * applied in.
+     *
+     * @param inputRecorder The recorder, or null to stop recording.
+     */
+    public void setInputRecorder(InputRecorder inputRecorder) {
+        this.inputRecorder = inputRecorder;
+    }
+
+    /**
+     * Retrieves the planning service robots with goals are steered by.
+     *
+     * @return The planning service.
+     */
+    public PlanningService getPlanner() {
+        return planner;
+    }
+
+    /**
+     * Retrieves the bus the contacts of robots are published on. Subscribing makes the engine advance robots
+     * in fixed steps, as contacts are only detected there.
+     *
+     * @return The collision bus.
+     */
+    public CollisionBus getCollisionBus() {
+        return collisionBus;
+    }
+
+    /**
+     * Retrieves the stream of robot movements, published after every tick. Subscribers are completed
+     * when the engine shuts down.
+     *
+     * @return The tick publisher.
+     */
+    public TickPublisher getTickPublisher() {
+        return tickPublisher;
+    }
+
+    /**
+     * Retrieves the controller that lowers the simulation quality of robots out of focus when frames take
+     * longer than their budget. It is only fed by {@link #advance(double)} and disabled by default.
+     *
+     * @return The quality controller.
+     */
+    public QualityController getQuality() {
+        return quality;
+    }
+
+    /**
+     * Retrieves the worker pool path planning runs on.
+     *
+     * @return The worker pool.
+     */
+    public ThreadPoolExecutor getWorkers() {
+        return workers;
+    }
+}
@@ -0,0 +1,276 @@
+package org.openjfx.javaproject.engine;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * JMX view of a {@link SimulationEngine}, publishing its metrics and allowing runtime tuning.
+ */
+public class SimulationMetrics implements SimulationMetricsMBean {
+    /**
+     * Name under which the bean is registered.
+     */
+    public static final String OBJECT_NAME = "org.openjfx.javaproject:type=SimulationEngine";
+
+    private final SimulationEngine engine;
+
+    /**
+     * Constructs the management bean of an engine.
+     *
+     * @param engine The engine to expose.
+     */
+    public SimulationMetrics(SimulationEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public double getTickRate() {
+        return engine.getTickRate();
+    }
+
+    @Override
+    public long getTickCount() {
+        return engine.getTickCount();
+    }
+
+    @Override
+    public long getTickLatencyP50() {
+        return engine.getTickLatency().getPercentile(0.5);
+    }
+
+    @Override
+    public long getTickLatencyP99() {
+        return engine.getTickLatency().getPercentile(0.99);
+    }
+
+    @Override
+    public long getTickLatencyMax() {
+        return engine.getTickLatency().getMax();
+    }
+
+    @Override
+    public long[] getTickLatencyBucketBounds() {
+        return engine.getTickLatency().getBucketUpperBounds();
+    }
+
+    @Override
+    public long[] getTickLatencyBucketCounts() {
+        return engine.getTickLatency().getBucketCounts();
+    }
+
+    @Override
+    public int getRobotCount() {
+        return engine.getRoom().getRobots().size();
+    }
+
+    @Override
+    public int getObstacleCount() {
+        return engine.getRoom().getObstacles().size();
+    }
+
+    @Override
+    public int getControlledRobotCount() {
+        return engine.getRoom().getControlledRobots().size();
+    }
+
+    @Override
+    public long getInputLatencyP50() {
+        return engine.getInputLatency().getPercentile(0.5);
+    }
+
+    @Override
+    public long getInputLatencyP99() {
+        return engine.getInputLatency().getPercentile(0.99);
+    }
+
+    @Override
+    public long getInputLatencyMax() {
+        return engine.getInputLatency().getMax();
+    }
+
+    @Override
+    public long getLateInputCount() {
+        return engine.getLateInputCount();
+    }
+
+    @Override
+    public long getDroppedInputCount() {
+        return engine.getDroppedInputCount();
+    }
+
+    @Override
+    public int getLogBacklog() {
+        return engine.getLogBacklog();
+    }
+
+    @Override
+    public long getHeapUsedPerRobot() {
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return used / Math.max(1, getRobotCount());
+    }
+
+    @Override
+    public int getThreadCount() {
+        return engine.getThreadCount();
+    }
+
+    @Override
+    public void setThreadCount(int threadCount) {
+        engine.setThreadCount(threadCount);
+    }
+
+    @Override
+    public double getPhysicsRate() {
+        return engine.getPhysicsRate();
+    }
+
+    @Override
+    public void setPhysicsRate(double physicsRate) {
+        engine.setPhysicsRate(physicsRate);
+    }
+
+    @Override
+    public double getSpeed() {
+        return engine.getSpeed();
+    }
+
+    @Override
+    public void setSpeed(double speed) {
+        engine.setSpeed(speed);
+    }
+
+    @Override
+    public double getAchievedSpeed() {
+        return engine.getAchievedSpeed();
+    }
+
+    @Override
+    public double getDroppedTime() {
+        return engine.getDroppedTime();
+    }
+
+    @Override
+    public double getFrameBudgetMillis() {
+        return engine.getFrameBudget() * 1000;
+    }
+
+    @Override
+    public void setFrameBudgetMillis(double frameBudgetMillis) {
+        engine.setFrameBudget(frameBudgetMillis / 1000);
+    }
+
+    @Override
+    public boolean isRecording() {
+        return engine.isRecording();
+    }
+
+    @Override
+    public void setRecording(boolean recording) {
+        engine.setRecording(recording);
+    }
+
+    @Override
+    public String getMode() {
+        return engine.getMode().name();
+    }
+
+    @Override
+    public void setMode(String mode) {
+        engine.setMode(SimulationMode.valueOf(mode));
+    }
+
+    @Override
+    public long getEventCount() {
+        return engine.getEventCount();
+    }
+
+    @Override
+    public String getSharedStateFile() {
+        String path = engine.getSharedStateFile();
+        return path != null ? path : "";
+    }
+
+    @Override
+    public void setSharedStateFile(String path) {
+        engine.setSharedStateFile(path == null || path.isEmpty() ? null : path);
+    }
+
+    @Override
+    public long getCollisionEventCount() {
+        return engine.getCollisionBus().getPublishedCount();
+    }
+
+    @Override
+    public long getDroppedCollisionEventCount() {
+        return engine.getCollisionBus().getDroppedCount();
+    }
+
+    @Override
+    public String getCollisionBackPressure() {
+        return engine.getCollisionBus().getBackPressure().name();
+    }
+
+    @Override
+    public void setCollisionBackPressure(String policy) {
+        engine.getCollisionBus().setBackPressure(CollisionBus.BackPressure.valueOf(policy));
+    }
+
+    @Override
+    public boolean isAdaptiveQuality() {
+        return engine.getQuality().isEnabled();
+    }
+
+    @Override
+    public void setAdaptiveQuality(boolean adaptive) {
+        engine.getQuality().setEnabled(adaptive);
+    }
+
+    @Override
+    public double getQualityBudgetMillis() {
+        return engine.getQuality().getBudget() * 1000;
+    }
+
+    @Override
+    public void setQualityBudgetMillis(double budget) {
+        engine.getQuality().setBudget(budget / 1000);
+    }
+
+    @Override
+    public int getQualityLevel() {
+        return engine.getQuality().getLevel();
+    }
+
+    @Override
+    public double getDegradedRobotShare() {
+        return engine.getQuality().getDegradedShare();
+    }
+
+    @Override
+    public double getMaxPositionLag() {
+        return engine.getQuality().getMaxPositionLag(1.0 / engine.getPhysicsRate());
+    }
+
+    @Override
+    public double getMaxSensingDelay() {
+        return engine.getQuality().getMaxSensingDelay(1.0 / engine.getPhysicsRate());
+    }
+
+    @Override
+    public boolean isAnalytics() {
+        return engine.isAnalytics();
+    }
+
+    @Override
+    public void setAnalytics(boolean analytics) {
+        engine.setAnalytics(analytics);
+    }
+
+    @Override
+    public void exportHeatmap(String file) {
+        engine.exportHeatmap(file);
+    }
+
+    @Override
+    public void resetTickLatency() {
+        engine.getTickLatency().reset();
+    }
+}
@@ -0,0 +1,258 @@
+package org.openjfx.javaproject.engine;
+
+/**
+ * Management interface of a running simulation, exposed over JMX.
+ */
+public interface SimulationMetricsMBean {
+    /**
+     * @return Physics steps per wall-clock second, measured over the last second.
+     */
+    double getTickRate();
+
+    /**
+     * @return Number of physics steps run so far.
+     */
+    long getTickCount();
+
+    /**
+     * @return Median duration of a physics step in nanoseconds.
+     */
+    long getTickLatencyP50();
+
+    /**
+     * @return 99th percentile duration of a physics step in nanoseconds.
+     */
+    long getTickLatencyP99();
+
+    /**
+     * @return Longest duration of a physics step in nanoseconds.
+     */
+    long getTickLatencyMax();
+
+    /**
+     * @return Upper bounds of the tick latency histogram buckets in nanoseconds.
+     */
+    long[] getTickLatencyBucketBounds();
+
+    /**
+     * @return Sample counts of the tick latency histogram buckets.
+     */
+    long[] getTickLatencyBucketCounts();
+
+    /**
+     * @return Number of autonomous robots in the room.
+     */
+    int getRobotCount();
+
+    /**
+     * @return Number of obstacles in the room.
+     */
+    int getObstacleCount();
+
+    /**
+     * @return Number of controlled robots in the room.
+     */
+    int getControlledRobotCount();
+
+    /**
+     * @return Median time from queueing an input command to the end of the step that moved its robot, in nanoseconds.
+     */
+    long getInputLatencyP50();
+
+    /**
+     * @return 99th percentile time from queueing an input command to moving its robot, in nanoseconds.
+     */
+    long getInputLatencyP99();
+
+    /**
+     * @return Longest time from queueing an input command to moving its robot, in nanoseconds.
+     */
+    long getInputLatencyMax();
+
+    /**
+     * @return Number of input commands that waited longer than a physics step for the step applying them.
+     */
+    long getLateInputCount();
+
+    /**
+     * @return Number of input commands dropped because the queue of their robot was full.
+     */
+    long getDroppedInputCount();
+
+    /**
+     * @return Number of recorded steps not yet written to the log file.
+     */
+    int getLogBacklog();
+
+    /**
+     * @return Used heap in bytes divided by the number of robots.
+     */
+    long getHeapUsedPerRobot();
+
+    /**
+     * @return Number of path planning threads.
+     */
+    int getThreadCount();
+
+    /**
+     * @param threadCount New number of path planning threads.
+     */
+    void setThreadCount(int threadCount);
+
+    /**
+     * @return Physics steps per simulated second.
+     */
+    double getPhysicsRate();
+
+    /**
+     * @param physicsRate New number of physics steps per simulated second.
+     */
+    void setPhysicsRate(double physicsRate);
+
+    /**
+     * @return Requested simulated seconds per elapsed second, 1 for real time.
+     */
+    double getSpeed();
+
+    /**
+     * @param speed New requested simulated seconds per elapsed second, up to 1000.
+     */
+    void setSpeed(double speed);
+
+    /**
+     * @return Simulated seconds per elapsed second measured over the last second.
+     */
+    double getAchievedSpeed();
+
+    /**
+     * @return Simulated time dropped so far as the steps did not fit into the frame budget, in seconds.
+     */
+    double getDroppedTime();
+
+    /**
+     * @return Wall-clock time a frame may spend stepping, in milliseconds.
+     */
+    double getFrameBudgetMillis();
+
+    /**
+     * @param frameBudgetMillis New wall-clock time a frame may spend stepping, in milliseconds.
+     */
+    void setFrameBudgetMillis(double frameBudgetMillis);
+
+    /**
+     * @return True if positions of robots are recorded.
+     */
+    boolean isRecording();
+
+    /**
+     * @param recording True to start recording positions of robots, false to stop.
+     */
+    void setRecording(boolean recording);
+
+    /**
+     * @return How robots are advanced, FIXED_STEP or EVENT_DRIVEN.
+     */
+    String getMode();
+
+    /**
+     * @param mode New way of advancing robots, FIXED_STEP or EVENT_DRIVEN.
+     */
+    void setMode(String mode);
+
+    /**
+     * @return Number of events processed while running event-driven.
+     */
+    long getEventCount();
+
+    /**
+     * @return File the state of the room is published into, empty if it is not published.
+     */
+    String getSharedStateFile();
+
+    /**
+     * @param path New file to publish the state of the room into, empty to stop publishing.
+     */
+    void setSharedStateFile(String path);
+
+    /**
+     * @return Number of collision events published to subscribers.
+     */
+    long getCollisionEventCount();
+
+    /**
+     * @return Number of collision events dropped because a subscriber fell behind.
+     */
+    long getDroppedCollisionEventCount();
+
+    /**
+     * @return What happens when a collision subscriber falls behind, DROP or BLOCK.
+     */
+    String getCollisionBackPressure();
+
+    /**
+     * @param policy New behaviour when a collision subscriber falls behind, DROP or BLOCK.
+     */
+    void setCollisionBackPressure(String policy);
+
+    /**
+     * @return True if the simulation quality of robots out of focus adapts to the frame cost.
+     */
+    boolean isAdaptiveQuality();
+
+    /**
+     * @param adaptive True to adapt the simulation quality to the frame cost, false for full quality.
+     */
+    void setAdaptiveQuality(boolean adaptive);
+
+    /**
+     * @return Simulation time a frame may take before quality is lowered, in milliseconds.
+     */
+    double getQualityBudgetMillis();
+
+    /**
+     * @param budget New simulation time a frame may take before quality is lowered, in milliseconds.
+     */
+    void setQualityBudgetMillis(double budget);
+
+    /**
+     * @return Quality level, 0 for full quality, higher levels simulate robots out of focus with less care.
+     */
+    int getQualityLevel();
+
+    /**
+     * @return Share of robots simulated with less care in the latest tick, between 0 and 1.
+     */
+    double getDegradedRobotShare();
+
+    /**
+     * @return Largest lag of the position of a robot out of focus in the latest tick, in pixels.
+     */
+    double getMaxPositionLag();
+
+    /**
+     * @return Largest delay with which a robot out of focus notices a wall at the current level, in seconds.
+     */
+    double getMaxSensingDelay();
+
+    /**
+     * @return True if traffic statistics are collected.
+     */
+    boolean isAnalytics();
+
+    /**
+     * @param analytics True to collect traffic statistics, false to stop and discard them.
+     */
+    void setAnalytics(boolean analytics);
+
+    /**
+     * Writes the traffic heatmap after the next step.
+     *
+     * @param file File to write, CSV if its name ends with ".csv", otherwise a PNG image.
+     */
+    void exportHeatmap(String file);
+
+    /**
+     * Discards all tick latency samples collected so far.
+     */
+    void resetTickLatency();
+}
@@ -0,0 +1,17 @@
+package org.openjfx.javaproject.engine;
+
+/**
+ * How the simulation engine advances autonomous robots.
+ */
+public enum SimulationMode {
+    /**
+     * Every robot is updated every physics step.
+     */
+    FIXED_STEP,
+    /**
+     * Robots are only updated when a predicted event happens, see {@link EventDrivenSimulation}.
+     * Pays off in sparse rooms where robots travel straight for long stretches, crowded rooms run faster in fixed steps.
+     * Rooms with a controlled robot fall back to fixed steps, as its motion cannot be predicted.
+     */
+    EVENT_DRIVEN
+}
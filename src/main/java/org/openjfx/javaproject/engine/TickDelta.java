@@ -0,0 +1,99 @@
+package org.openjfx.javaproject.engine;
+
+/**
+ * The robots that moved since the previous delta delivered to a subscriber of the {@link TickPublisher},
+ * with their state at the end of the latest tick. The first delta of a subscription holds every robot.
+ * <p>
+ * When the subscriber requested less than the engine produced, the changes of several ticks are coalesced
+ * into one delta, which then holds every robot that moved in any of them. Deltas are immutable and owned
+ * by the subscriber.
+ */
+public final class TickDelta {
+    private final long tick;
+    private final double time;
+    private final int coalescedTicks;
+    private final int robotCount;
+    private final int[] ids;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] angles;
+
+    TickDelta(long tick, double time, int coalescedTicks, int robotCount,
+              int[] ids, double[] xs, double[] ys, double[] angles) {
+        this.tick = tick;
+        this.time = time;
+        this.coalescedTicks = coalescedTicks;
+        this.robotCount = robotCount;
+        this.ids = ids;
+        this.xs = xs;
+        this.ys = ys;
+        this.angles = angles;
+    }
+
+    /**
+     * @return The number of the latest tick included in the delta.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The simulated time at the end of the latest tick, in seconds.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return The number of ticks whose changes the delta holds, 1 unless the subscriber fell behind.
+     */
+    public int getCoalescedTicks() {
+        return coalescedTicks;
+    }
+
+    /**
+     * @return The number of robots in the room at the end of the latest tick.
+     */
+    public int getRobotCount() {
+        return robotCount;
+    }
+
+    /**
+     * @return The number of robots in the delta.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param i The index of the entry, from 0 to {@link #size()}.
+     * @return The id of the robot, see {@link org.openjfx.javaproject.room.Autorobot#getId()}.
+     */
+    public int getId(int i) {
+        return ids[i];
+    }
+
+    /**
+     * @param i The index of the entry, from 0 to {@link #size()}.
+     * @return The x-coordinate of the robot.
+     */
+    public double getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * @param i The index of the entry, from 0 to {@link #size()}.
+     * @return The y-coordinate of the robot.
+     */
+    public double getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * @param i The index of the entry, from 0 to {@link #size()}.
+     * @return The angle of the robot, in radians.
+     */
+    public double getAngle(int i) {
+        return angles[i];
+    }
+}
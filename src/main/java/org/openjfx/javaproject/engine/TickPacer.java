@@ -0,0 +1,335 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.common.ConfigParser;
+import org.openjfx.javaproject.room.ControlInput;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Room;
+import org.openjfx.javaproject.telemetry.TelemetryServer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps an engine on a dedicated thread at the physics rate in real time, for runs paced against real controllers.
+ * <p>
+ * Ticks are scheduled on absolute deadlines derived from {@link System#nanoTime()}, so errors of single ticks never
+ * add up to drift. Before a deadline the thread parks until the spin window is reached and then spins to the deadline,
+ * as parking alone wakes up tens of microseconds to milliseconds late. A wider spin window makes ticks more punctual
+ * at the cost of CPU time, a window of 0 never spins. When a tick overruns by more than a whole period, the missed
+ * deadlines are skipped rather than caught up in a burst.
+ * <p>
+ * While the pacer runs it owns the engine, other threads should observe the simulation through its tick publisher,
+ * shared state file or telemetry.
+ */
+public class TickPacer implements Runnable {
+    public static final long DEFAULT_SPIN_NANOS = 200_000;
+
+    private static final long STATION_INTERVAL_NANOS = 50_000_000; // mean time between inputs of an operator
+
+    private final SimulationEngine engine;
+    private final LatencyHistogram intervalJitter = new LatencyHistogram();
+    private final LatencyHistogram lateness = new LatencyHistogram();
+    private volatile long spinNanos;
+    private volatile boolean running = false;
+    private volatile long overruns = 0;
+    private volatile long ticks = 0;
+    private volatile double cpuShare = 0;
+    private Thread thread;
+
+    /**
+     * Constructs a pacer for an engine, pacing at its physics rate.
+     *
+     * @param engine    The engine to step.
+     * @param spinNanos The time before a deadline spent spinning instead of parking, in nanoseconds.
+     */
+    public TickPacer(SimulationEngine engine, long spinNanos) {
+        this.engine = engine;
+        this.spinNanos = spinNanos;
+    }
+
+    /**
+     * Starts stepping the engine on a new thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "tick-pacer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stops stepping after the current tick and waits for the thread to end.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threads.isCurrentThreadCpuTimeSupported();
+        long period = periodNanos();
+        long deadline = System.nanoTime() + period;
+        long lastStart = 0;
+        long windowStart = System.nanoTime();
+        long windowCpu = cpuTime ? threads.getCurrentThreadCpuTime() : 0;
+
+        while (running) {
+            waitUntil(deadline);
+            if (!running) {
+                break;
+            }
+            long start = System.nanoTime();
+            lateness.record(start - deadline);
+            if (lastStart != 0) {
+                intervalJitter.record(Math.abs(start - lastStart - period));
+            }
+            lastStart = start;
+
+            engine.step(period / 1e9);
+            ticks++;
+
+            long end = System.nanoTime();
+            long current = periodNanos();
+            if (current != period) {
+                // the physics rate changed, start a new schedule
+                period = current;
+                deadline = end + period;
+                lastStart = 0;
+            } else {
+                deadline += period;
+                if (end - deadline > period) {
+                    overruns++;
+                    deadline += (end - deadline) / period * period;
+                }
+            }
+
+            if (cpuTime && end - windowStart >= 1_000_000_000L) {
+                long cpu = threads.getCurrentThreadCpuTime();
+                cpuShare = (double) (cpu - windowCpu) / (end - windowStart);
+                windowCpu = cpu;
+                windowStart = end;
+            }
+        }
+    }
+
+    private long periodNanos() {
+        return (long) (1e9 / engine.getPhysicsRate());
+    }
+
+    /**
+     * Parks until the spin window before the deadline, then spins until the deadline.
+     */
+    private void waitUntil(long deadline) {
+        long spin = spinNanos;
+        while (running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            if (remaining > spin) {
+                LockSupport.parkNanos(remaining - spin);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * @return The histogram of deviations of tick intervals from the period, in nanoseconds.
+     */
+    public LatencyHistogram getIntervalJitter() {
+        return intervalJitter;
+    }
+
+    /**
+     * @return The histogram of how late ticks started after their deadline, in nanoseconds.
+     */
+    public LatencyHistogram getLateness() {
+        return lateness;
+    }
+
+    /**
+     * @return The time before a deadline spent spinning, in nanoseconds.
+     */
+    public long getSpinNanos() {
+        return spinNanos;
+    }
+
+    /**
+     * Trades CPU time for timing accuracy: wider spin windows cost more CPU but start ticks closer to their deadline.
+     *
+     * @param spinNanos The time before a deadline spent spinning instead of parking, in nanoseconds.
+     */
+    public void setSpinNanos(long spinNanos) {
+        this.spinNanos = spinNanos;
+    }
+
+    /**
+     * @return The number of ticks that ran more than a period late, after which missed deadlines were skipped.
+     */
+    public long getOverrunCount() {
+        return overruns;
+    }
+
+    /**
+     * @return The number of ticks stepped so far.
+     */
+    public long getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * @return The share of one CPU used by the pacer thread over the last second, including the spinning.
+     */
+    public double getCpuShare() {
+        return cpuShare;
+    }
+
+    /**
+     * @return True while the pacer steps the engine.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Plays an operator station driving a controlled robot through its input queue, holding down and releasing
+     * random inputs at operator-like intervals while the pacer runs.
+     */
+    private void runStation(ControlledRobot robot, long seed) {
+        Random random = new Random(seed);
+        ControlInput[] inputs = ControlInput.values();
+        boolean[] held = new boolean[inputs.length];
+        while (running) {
+            LockSupport.parkNanos((long) (STATION_INTERVAL_NANOS * (0.5 + random.nextDouble())));
+            int input = random.nextInt(inputs.length);
+            held[input] = !held[input];
+            robot.getInputQueue().offer(inputs[input], held[input]);
+        }
+        for (int i = 0; i < inputs.length; i++) {
+            robot.getInputQueue().offer(inputs[i], false);
+        }
+    }
+
+    /**
+     * Runs a scene in real time without a window and prints the tick timing once per second and as a histogram at the end.
+     * With operator stations, every station drives a controlled robot of the scene from a thread of its own and the
+     * input latency is printed as well.
+     *
+     * @param args Command line arguments: scene [--rate hz] [--spin us] [--seconds n] [--telemetry port] [--stations n]
+     */
+    public static void main(String[] args) {
+        double rate = 60;
+        long spin = DEFAULT_SPIN_NANOS;
+        int seconds = 10;
+        int telemetryPort = -1;
+        int stations = 0;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rate" -> rate = Double.parseDouble(args[++i]);
+                case "--spin" -> spin = Long.parseLong(args[++i]) * 1000;
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--telemetry" -> telemetryPort = Integer.parseInt(args[++i]);
+                case "--stations" -> stations = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        Room room = ConfigParser.parse(args[0]);
+        if (room == null) {
+            throw new IllegalArgumentException("Scene could not be parsed: " + args[0]);
+        }
+        SimulationEngine engine = new SimulationEngine(room);
+        engine.setPhysicsRate(rate);
+        engine.registerMBean();
+        TelemetryServer telemetry = null;
+        TickPacer pacer = new TickPacer(engine, spin);
+        try {
+            if (telemetryPort >= 0) {
+                telemetry = TelemetryServer.start(engine, telemetryPort);
+            }
+            pacer.start();
+            List<ControlledRobot> controlledRobots = List.copyOf(room.getControlledRobots());
+            if (stations > controlledRobots.size()) {
+                System.err.println("The scene has " + controlledRobots.size() + " controlled robots for " + stations
+                        + " stations, the other stations stay idle");
+                stations = controlledRobots.size();
+            }
+            for (int i = 0; i < stations; i++) {
+                ControlledRobot robot = controlledRobots.get(i);
+                long seed = i;
+                Thread station = new Thread(() -> pacer.runStation(robot, seed), "operator-station-" + i);
+                station.setDaemon(true);
+                station.start();
+            }
+            for (int s = 1; s <= seconds; s++) {
+                Thread.sleep(1000);
+                LatencyHistogram jitter = pacer.getIntervalJitter();
+                System.out.printf("%3d s  %7d ticks  jitter p50 %6.1f us  p99 %7.1f us  max %8.1f us  late p99 %7.1f us"
+                                + "  overruns %d  cpu %3.0f%%%n",
+                        s, pacer.getTickCount(), jitter.getPercentile(0.5) / 1e3, jitter.getPercentile(0.99) / 1e3,
+                        jitter.getMax() / 1e3, pacer.getLateness().getPercentile(0.99) / 1e3,
+                        pacer.getOverrunCount(), pacer.getCpuShare() * 100);
+                if (stations > 0) {
+                    LatencyHistogram input = engine.getInputLatency();
+                    System.out.printf("       %7d inputs  latency p50 %6.1f us  p99 %7.1f us  max %8.1f us  late %d"
+                                    + "  dropped %d%n",
+                            input.getCount(), input.getPercentile(0.5) / 1e3, input.getPercentile(0.99) / 1e3,
+                            input.getMax() / 1e3, engine.getLateInputCount(), engine.getDroppedInputCount());
+                }
+            }
+            for (int i = 0; i < stations; i++) {
+                LatencyHistogram input = engine.getInputLatency(controlledRobots.get(i));
+                if (input != null) {
+                    System.out.printf("Station %d: %d inputs, latency p50 %.1f us, p99 %.1f us, max %.1f us%n", i,
+                            input.getCount(), input.getPercentile(0.5) / 1e3, input.getPercentile(0.99) / 1e3,
+                            input.getMax() / 1e3);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pacer.stop();
+            if (telemetry != null) {
+                telemetry.close();
+            }
+            engine.shutdown();
+        }
+
+        System.out.println("Tick interval jitter:");
+        long[] bounds = pacer.getIntervalJitter().getBucketUpperBounds();
+        long[] counts = pacer.getIntervalJitter().getBucketCounts();
+        long limit = 1_000; // rows at 1, 2 and 5 times powers of ten microseconds
+        int bucket = 0;
+        for (int step = 0; bucket < counts.length; step++) {
+            long count = 0;
+            while (bucket < counts.length && bounds[bucket] <= limit) {
+                count += counts[bucket++];
+            }
+            if (count > 0) {
+                System.out.printf("  <= %8.0f us  %8d%n", limit / 1e3, count);
+            }
+            limit = step % 3 == 1 ? limit * 5 / 2 : limit * 2;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package org.openjfx.javaproject.engine;
+
+import org.openjfx.javaproject.room.Autorobot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the state of the auto robots after every tick as a stream of {@link TickDelta}s, so code embedding
+ * the simulator can observe it without reading the room from another thread while it is being stepped.
+ * <p>
+ * The tick thread never waits for subscribers. It only merges the robots that moved into a pending delta of
+ * every subscription, keeping the latest state of each robot. Deltas are taken from there and delivered on
+ * a thread of the publisher as the subscriber requests them, so a subscriber that cannot keep up receives
+ * coalesced deltas covering several ticks instead of slowing down the simulation.
+ */
+public class TickPublisher implements Flow.Publisher<TickDelta>, AutoCloseable {
+    private final ExecutorService executor;
+    private volatile Delivery[] deliveries = new Delivery[0];
+    private volatile boolean closed = false;
+
+    // state of the previous tick and the robots moved in this one, only used by the tick thread
+    private double[] lastX = new double[0];
+    private double[] lastY = new double[0];
+    private double[] lastAngle = new double[0];
+    private int lastRobotCount = -1;
+    private int[] movedIds = new int[0];
+    private int movedCount = 0;
+
+    /**
+     * Constructs a publisher without subscribers, delivering on virtual threads of its own, so subscribers
+     * may block in {@link Flow.Subscriber#onNext(Object)}, for example on network writes, at little cost.
+     */
+    public TickPublisher() {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tick-stream-", 0).factory());
+    }
+
+    @Override
+    public synchronized void subscribe(Flow.Subscriber<? super TickDelta> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        for (int i = 0; i < deliveries.length; i++) {
+            if (deliveries[i].subscriber == subscriber) {
+                subscriber.onSubscribe(new Delivery(subscriber));
+                subscriber.onError(new IllegalStateException("Already subscribed"));
+                return;
+            }
+        }
+        Delivery delivery = new Delivery(subscriber);
+        subscriber.onSubscribe(delivery);
+        if (closed) {
+            delivery.complete();
+            return;
+        }
+        Delivery[] grown = Arrays.copyOf(deliveries, deliveries.length + 1);
+        grown[grown.length - 1] = delivery;
+        deliveries = grown;
+    }
+
+    private synchronized void remove(Delivery delivery) {
+        Delivery[] current = deliveries;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == delivery) {
+                Delivery[] shrunk = new Delivery[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, shrunk.length - i);
+                deliveries = shrunk;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return True if at least one subscription is active.
+     */
+    public boolean hasSubscribers() {
+        return deliveries.length > 0;
+    }
+
+    /**
+     * @return The number of active subscriptions.
+     */
+    public int getSubscriberCount() {
+        return deliveries.length;
+    }
+
+    /**
+     * Hands the state after a tick to all subscriptions. Called by the tick thread.
+     *
+     * @param tick   The number of the tick.
+     * @param time   The simulated time at the end of the tick, in seconds.
+     * @param robots The robots of the room.
+     */
+    public void publish(long tick, double time, List<Autorobot> robots) {
+        Delivery[] current = deliveries;
+        if (current.length == 0) {
+            return;
+        }
+        findMovedRobots(robots);
+        for (int i = 0; i < current.length; i++) {
+            current[i].offer(tick, time, robots);
+        }
+    }
+
+    /**
+     * Compares the robots with the previous tick. When robots were added or removed, all of them count as moved.
+     */
+    private void findMovedRobots(List<Autorobot> robots) {
+        boolean all = robots.size() != lastRobotCount;
+        lastRobotCount = robots.size();
+        if (movedIds.length < robots.size()) {
+            movedIds = new int[robots.size()];
+        }
+        movedCount = 0;
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            int id = robot.getId();
+            if (id >= lastX.length) {
+                int length = Math.max(id + 1, lastX.length * 2);
+                lastX = Arrays.copyOf(lastX, length);
+                lastY = Arrays.copyOf(lastY, length);
+                lastAngle = Arrays.copyOf(lastAngle, length);
+                all = true;
+            }
+            double x = robot.getPosition().getX();
+            double y = robot.getPosition().getY();
+            double angle = robot.getAngle();
+            if (all || x != lastX[id] || y != lastY[id] || angle != lastAngle[id]) {
+                lastX[id] = x;
+                lastY[id] = y;
+                lastAngle[id] = angle;
+                movedIds[movedCount++] = i;
+            }
+        }
+    }
+
+    /**
+     * Completes all subscriptions and stops the delivery threads once they delivered what was requested.
+     */
+    @Override
+    public void close() {
+        Delivery[] current;
+        synchronized (this) {
+            closed = true;
+            current = deliveries;
+            deliveries = new Delivery[0];
+        }
+        for (int i = 0; i < current.length; i++) {
+            current[i].complete();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * A subscription with the robots moved since its last delivery. The tick thread merges into the pending
+     * state while holding the lock of the delivery, the delivery thread only holds it to take a delta out.
+     */
+    private class Delivery implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super TickDelta> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile boolean completed = false;
+        private volatile Throwable error;
+
+        // pending delta, guarded by this
+        private boolean full = true;
+        private boolean[] dirty = new boolean[0];
+        private double[] pendingX = new double[0];
+        private double[] pendingY = new double[0];
+        private double[] pendingAngle = new double[0];
+        private int[] dirtyIds = new int[0];
+        private int dirtyCount = 0;
+        private int pendingTicks = 0;
+        private long pendingTick;
+        private double pendingTime;
+        private int pendingRobotCount;
+
+        private Delivery(Flow.Subscriber<? super TickDelta> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private synchronized void offer(long tick, double time, List<Autorobot> robots) {
+            if (full) {
+                for (int i = 0; i < robots.size(); i++) {
+                    merge(robots.get(i));
+                }
+                full = false;
+            } else {
+                for (int m = 0; m < movedCount; m++) {
+                    merge(robots.get(movedIds[m]));
+                }
+            }
+            pendingTicks++;
+            pendingTick = tick;
+            pendingTime = time;
+            pendingRobotCount = robots.size();
+            if (demand.get() > 0) {
+                signal();
+            }
+        }
+
+        private void merge(Autorobot robot) {
+            int id = robot.getId();
+            if (id >= dirty.length) {
+                int length = Math.max(id + 1, dirty.length * 2);
+                dirty = Arrays.copyOf(dirty, length);
+                pendingX = Arrays.copyOf(pendingX, length);
+                pendingY = Arrays.copyOf(pendingY, length);
+                pendingAngle = Arrays.copyOf(pendingAngle, length);
+                dirtyIds = Arrays.copyOf(dirtyIds, length);
+            }
+            if (!dirty[id]) {
+                dirty[id] = true;
+                dirtyIds[dirtyCount++] = id;
+            }
+            pendingX[id] = robot.getPosition().getX();
+            pendingY[id] = robot.getPosition().getY();
+            pendingAngle[id] = robot.getAngle();
+        }
+
+        private synchronized TickDelta take() {
+            if (pendingTicks == 0) {
+                return null;
+            }
+            int[] ids = Arrays.copyOf(dirtyIds, dirtyCount);
+            double[] xs = new double[dirtyCount];
+            double[] ys = new double[dirtyCount];
+            double[] angles = new double[dirtyCount];
+            for (int i = 0; i < dirtyCount; i++) {
+                int id = ids[i];
+                xs[i] = pendingX[id];
+                ys[i] = pendingY[id];
+                angles[i] = pendingAngle[id];
+                dirty[id] = false;
+            }
+            TickDelta delta = new TickDelta(pendingTick, pendingTime, pendingTicks, pendingRobotCount, ids, xs, ys, angles);
+            dirtyCount = 0;
+            pendingTicks = 0;
+            return delta;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested " + n + " deltas, demand has to be positive");
+            } else {
+                long current;
+                do {
+                    current = demand.get();
+                } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+        }
+
+        private void complete() {
+            completed = true;
+            signal();
+        }
+
+        private void signal() {
+            if (work.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    // the executor is shut down, nothing is delivered anymore
+                    work.set(0);
+                }
+            }
+        }
+
+        /**
+         * Delivers pending deltas while there is demand, only ever running on one thread at a time.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                while (!cancelled && error == null && demand.get() > 0) {
+                    TickDelta delta = take();
+                    if (delta == null) {
+                        break;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    try {
+                        subscriber.onNext(delta);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        cancel();
+                    }
+                }
+                if (!cancelled && error != null) {
+                    cancel();
+                    subscriber.onError(error);
+                } else if (!cancelled && completed) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                }
+                missed = work.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
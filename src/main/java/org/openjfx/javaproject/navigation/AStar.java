@@ -0,0 +1,129 @@
+package org.openjfx.javaproject.navigation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A* search over a navigation grid with eight-way moves and the octile distance as heuristic.
+ * The resulting cell path is shortened by skipping waypoints that are in line of sight of each other.
+ */
+public final class AStar {
+    private AStar() {
+    }
+
+    private record Entry(int cell, double priority) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry o) {
+            return Double.compare(priority, o.priority);
+        }
+    }
+
+    /**
+     * Finds the shortest path between two points.
+     *
+     * @param grid  The navigation grid to search.
+     * @param fromX The x-coordinate of the start.
+     * @param fromY The y-coordinate of the start.
+     * @param toX   The x-coordinate of the goal.
+     * @param toY   The y-coordinate of the goal.
+     * @return The path from the start to the goal, or {@link Path#NONE} if the goal cannot be reached.
+     */
+    public static Path find(NavigationGrid grid, double fromX, double fromY, double toX, double toY) {
+        int start = grid.cellAt(fromX, fromY);
+        int goal = grid.cellAt(toX, toY);
+        if (grid.isBlocked(goal)) {
+            return Path.NONE;
+        }
+
+        double[] cost = new double[grid.getCellCount()];
+        int[] previous = new int[grid.getCellCount()];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        PriorityQueue<Entry> open = new PriorityQueue<>();
+        cost[start] = 0;
+        open.add(new Entry(start, heuristic(grid, start, goal)));
+
+        while (!open.isEmpty()) {
+            Entry entry = open.poll();
+            int cell = entry.cell();
+            if (cell == goal) {
+                return smooth(grid, fromX, fromY, toX, toY, cells(previous, start, goal));
+            }
+            if (entry.priority() > cost[cell] + heuristic(grid, cell, goal)) {
+                continue; // a cheaper way to this cell was found after it was queued
+            }
+            for (int direction = 0; direction < 8; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (next < 0) {
+                    continue;
+                }
+                double nextCost = cost[cell] + NavigationGrid.moveCost(direction);
+                if (nextCost < cost[next]) {
+                    cost[next] = nextCost;
+                    previous[next] = cell;
+                    open.add(new Entry(next, nextCost + heuristic(grid, next, goal)));
+                }
+            }
+        }
+        return Path.NONE;
+    }
+
+    private static double heuristic(NavigationGrid grid, int cell, int goal) {
+        int dx = Math.abs(cell % grid.getColumns() - goal % grid.getColumns());
+        int dy = Math.abs(cell / grid.getColumns() - goal / grid.getColumns());
+        return Math.max(dx, dy) + (Math.sqrt(2) - 1) * Math.min(dx, dy);
+    }
+
+    private static List<Integer> cells(int[] previous, int start, int goal) {
+        List<Integer> cells = new ArrayList<>();
+        for (int cell = goal; cell != start; cell = previous[cell]) {
+            cells.add(cell);
+        }
+        cells.add(start);
+        Collections.reverse(cells);
+        return cells;
+    }
+
+    /**
+     * Turns the cell path into waypoints, starting and ending at the exact points and leaving out
+     * every waypoint the previous one can see past.
+     */
+    private static Path smooth(NavigationGrid grid, double fromX, double fromY, double toX, double toY,
+                               List<Integer> cells) {
+        int count = cells.size() + 1;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        xs[0] = fromX;
+        ys[0] = fromY;
+        for (int i = 1; i < cells.size(); i++) {
+            xs[i] = grid.cellX(cells.get(i));
+            ys[i] = grid.cellY(cells.get(i));
+        }
+        xs[count - 1] = toX;
+        ys[count - 1] = toY;
+
+        List<Integer> kept = new ArrayList<>();
+        kept.add(0);
+        int anchor = 0;
+        for (int i = 2; i < count; i++) {
+            if (!grid.hasLineOfSight(xs[anchor], ys[anchor], xs[i], ys[i])) {
+                kept.add(i - 1);
+                anchor = i - 1;
+            }
+        }
+        if (count > 1) {
+            kept.add(count - 1);
+        }
+
+        double[] keptXs = new double[kept.size()];
+        double[] keptYs = new double[kept.size()];
+        for (int i = 0; i < kept.size(); i++) {
+            keptXs[i] = xs[kept.get(i)];
+            keptYs[i] = ys[kept.get(i)];
+        }
+        return new Path(keptXs, keptYs);
+    }
+}
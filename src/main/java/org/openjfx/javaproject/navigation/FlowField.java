@@ -0,0 +1,172 @@
+package org.openjfx.javaproject.navigation;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Directions towards one destination from every cell of a navigation grid.
+ * It is computed once by a Dijkstra search outwards from the destination, after that any number of robots
+ * heading to the same destination look up their next step in constant time, without allocating.
+ */
+public class FlowField {
+    private final NavigationGrid grid;
+    private final double goalX;
+    private final double goalY;
+    private final int goal;
+    private final int[] next; // the neighbour one step closer to the goal, -1 if the goal cannot be reached
+    private final float[] distance;
+
+    private record Entry(int cell, double distance) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry o) {
+            return Double.compare(distance, o.distance);
+        }
+    }
+
+    /**
+     * Computes the flow field towards a destination.
+     *
+     * @param grid  The navigation grid.
+     * @param goalX The x-coordinate of the destination.
+     * @param goalY The y-coordinate of the destination.
+     */
+    public FlowField(NavigationGrid grid, double goalX, double goalY) {
+        this.grid = grid;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.goal = grid.cellAt(goalX, goalY);
+        this.next = new int[grid.getCellCount()];
+        this.distance = new float[grid.getCellCount()];
+        Arrays.fill(next, -1);
+        Arrays.fill(distance, Float.POSITIVE_INFINITY);
+        if (grid.isBlocked(goal)) {
+            return;
+        }
+
+        double[] exact = new double[grid.getCellCount()];
+        Arrays.fill(exact, Double.POSITIVE_INFINITY);
+        PriorityQueue<Entry> open = new PriorityQueue<>();
+        exact[goal] = 0;
+        next[goal] = goal;
+        open.add(new Entry(goal, 0));
+        while (!open.isEmpty()) {
+            Entry entry = open.poll();
+            int cell = entry.cell();
+            if (entry.distance() > exact[cell]) {
+                continue;
+            }
+            for (int direction = 0; direction < 8; direction++) {
+                // Moves are symmetric, so the neighbours of a cell are the cells that can move into it
+                int from = grid.neighbour(cell, direction);
+                if (from < 0) {
+                    continue;
+                }
+                double through = exact[cell] + NavigationGrid.moveCost(direction);
+                if (through < exact[from]) {
+                    exact[from] = through;
+                    next[from] = cell;
+                    open.add(new Entry(from, through));
+                }
+            }
+        }
+        for (int cell = 0; cell < exact.length; cell++) {
+            distance[cell] = (float) (exact[cell] * grid.getCellSize());
+        }
+        // Robots pushed into a blocked cell head back to the nearest free neighbour on the way
+        for (int cell = 0; cell < next.length; cell++) {
+            if (grid.isBlocked(cell)) {
+                next[cell] = nearestFreeNeighbour(cell);
+            }
+        }
+    }
+
+    /**
+     * Restores a flow field that was computed before, see {@link NavigationCache}.
+     *
+     * @param grid     The navigation grid the field was computed on.
+     * @param goalX    The x-coordinate of the destination.
+     * @param goalY    The y-coordinate of the destination.
+     * @param next     For every cell, the neighbour one step closer to the destination, -1 if it cannot be reached.
+     * @param distance For every cell, the distance to the destination.
+     */
+    FlowField(NavigationGrid grid, double goalX, double goalY, int[] next, float[] distance) {
+        this.grid = grid;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.goal = grid.cellAt(goalX, goalY);
+        this.next = next;
+        this.distance = distance;
+    }
+
+    private int nearestFreeNeighbour(int cell) {
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        int columns = grid.getColumns();
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int column = cell % columns + dx;
+                int row = cell / columns + dy;
+                if (column < 0 || column >= columns || row < 0 || row >= grid.getRows()) {
+                    continue;
+                }
+                int neighbour = row * columns + column;
+                if (!grid.isBlocked(neighbour) && distance[neighbour] < bestDistance) {
+                    bestDistance = distance[neighbour];
+                    best = neighbour;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Retrieves the heading towards the destination from a point.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The angle (in radians) to head in, or NaN if the destination cannot be reached from the point.
+     */
+    public double angleAt(double x, double y) {
+        int cell = grid.cellAt(x, y);
+        int step = next[cell];
+        if (step < 0) {
+            return Double.NaN;
+        }
+        if (step == goal) {
+            return Math.atan2(goalY - y, goalX - x);
+        }
+        return Math.atan2(grid.cellY(step) - y, grid.cellX(step) - x);
+    }
+
+    /**
+     * Retrieves the length of the shortest path to the destination from a point, measured along the grid.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The distance, or infinity if the destination cannot be reached.
+     */
+    public double distanceAt(double x, double y) {
+        return distance[grid.cellAt(x, y)];
+    }
+
+    /**
+     * @return For every cell, the neighbour one step closer to the destination. Not to be modified.
+     */
+    int[] getNext() {
+        return next;
+    }
+
+    /**
+     * @return For every cell, the distance to the destination. Not to be modified.
+     */
+    float[] getDistances() {
+        return distance;
+    }
+
+    /**
+     * @return The grid the field was computed on.
+     */
+    public NavigationGrid getGrid() {
+        return grid;
+    }
+}
@@ -0,0 +1,102 @@
+package org.openjfx.javaproject.navigation;
+
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.Position;
+import org.openjfx.javaproject.room.Room;
+import org.openjfx.javaproject.room.Steering;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Steers a robot along flow fields through its goals, one after another, starting over after the last one.
+ * Keeps the fields of all its goals, so steering only asks the planner again after obstacles changed and
+ * does not allocate. While a field is being computed the robot keeps wandering.
+ * <p>
+ * A robot that got stuck against another one is left to its own collision avoidance for a few updates,
+ * otherwise robots queuing for the same dock would keep pushing into each other.
+ */
+public class GoalSteering implements Steering {
+    private static final int YIELD_UPDATES = 30; // updates a stuck robot wanders before heading to its goal again
+    private static final double STUCK_DISTANCE = 0.01; // moves shorter than this count as stuck
+
+    private final PlanningService planner;
+    private final List<Position> goals;
+    private final double tolerance;
+
+    private final CompletableFuture<?>[] pending;
+    private final FlowField[] fields;
+    private int goalIndex = 0;
+    private long version;
+    private double lastX = Double.NaN;
+    private double lastY = Double.NaN;
+    private int yielding = 0;
+
+    /**
+     * Constructs a steering through the given goals.
+     *
+     * @param planner The planning service computing the flow fields.
+     * @param goals   The goals to visit, in order.
+     */
+    public GoalSteering(PlanningService planner, List<Position> goals) {
+        this.planner = planner;
+        this.goals = goals;
+        this.tolerance = planner.getCellSize();
+        this.pending = new CompletableFuture<?>[goals.size()];
+        this.fields = new FlowField[goals.size()];
+    }
+
+    @Override
+    public double steer(Autorobot robot, Room room) {
+        if (goals.isEmpty()) {
+            return Double.NaN;
+        }
+        double x = robot.getPosition().getX();
+        double y = robot.getPosition().getY();
+        boolean stuck = Math.hypot(x - lastX, y - lastY) < STUCK_DISTANCE;
+        lastX = x;
+        lastY = y;
+        if (yielding > 0) {
+            yielding--;
+            return Double.NaN;
+        }
+        if (stuck) {
+            yielding = YIELD_UPDATES;
+            return Double.NaN;
+        }
+
+        Position goal = goals.get(goalIndex);
+        if (Math.hypot(goal.getX() - x, goal.getY() - y) <= tolerance) {
+            goalIndex = (goalIndex + 1) % goals.size();
+            goal = goals.get(goalIndex);
+        }
+
+        long current = planner.getVersion();
+        if (version != current || pending[0] == null) {
+            // Ask for all goals at once, later goal changes then only pick up finished fields
+            for (int i = 0; i < goals.size(); i++) {
+                pending[i] = planner.flowField(goals.get(i).getX(), goals.get(i).getY());
+            }
+            Arrays.fill(fields, null);
+            version = current;
+        }
+        FlowField field = fields[goalIndex];
+        if (field == null) {
+            CompletableFuture<?> future = pending[goalIndex];
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                return Double.NaN;
+            }
+            field = (FlowField) future.join();
+            fields[goalIndex] = field;
+        }
+        return field.angleAt(x, y);
+    }
+
+    /**
+     * @return The index of the goal the robot is heading to.
+     */
+    public int getGoalIndex() {
+        return goalIndex;
+    }
+}
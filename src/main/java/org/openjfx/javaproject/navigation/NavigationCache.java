@@ -0,0 +1,320 @@
+package org.openjfx.javaproject.navigation;
+
+import org.openjfx.javaproject.common.Obstacle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps navigation grids and flow fields on disk, so runs with a known obstacle layout start without computing them.
+ * <p>
+ * Files are named after a SHA-256 hash of the room size, the obstacles in any order and the grid parameters, a
+ * changed layout never finds the files of another one. A file starts with a header holding the hash, the grid size
+ * and a CRC32C of the data, followed by the data as little-endian arrays, which are memory-mapped when loaded. Files
+ * whose header or checksum does not match are deleted and computed again. New files are written under a temporary
+ * name and renamed when complete, so simulations sharing the directory never read half-written files.
+ * <p>
+ * The cache may be used from several threads at once.
+ */
+public class NavigationCache {
+    private static final long GRID_MAGIC = 0x50474E41_56475231L; // "PGNAVGR1"
+    private static final long FLOW_MAGIC = 0x50474E41_56464C31L; // "PGNAVFL1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int KEY_SIZE = 32;
+    // magic, key, columns, rows, goal x, goal y, data length, checksum
+    private static final int HEADER_SIZE = Long.BYTES + KEY_SIZE + 2 * Integer.BYTES + 2 * Double.BYTES + 2 * Long.BYTES;
+
+    private final Path directory;
+    private final Map<NavigationGrid, byte[]> keys = Collections.synchronizedMap(new WeakHashMap<>());
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructs a cache in a directory, creating the directory if needed.
+     *
+     * @param directory The directory holding the cache files.
+     * @throws IOException If the directory could not be created.
+     */
+    public NavigationCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Loads the navigation grid of a layout, or builds and stores it if it is not in the cache.
+     *
+     * @param width     The width of the room.
+     * @param height    The height of the room.
+     * @param obstacles The obstacles in the room.
+     * @param cellSize  The width and height of a cell.
+     * @param clearance The distance a robot center keeps from obstacles and walls.
+     * @return The navigation grid.
+     */
+    public NavigationGrid grid(double width, double height, List<Obstacle> obstacles, double cellSize, double clearance) {
+        byte[] key = key(width, height, obstacles, cellSize, clearance);
+        Path file = directory.resolve(HexFormat.of().formatHex(key) + ".grid");
+        NavigationGrid grid = loadGrid(file, key, cellSize);
+        if (grid == null) {
+            misses.incrementAndGet();
+            grid = new NavigationGrid(width, height, obstacles, cellSize, clearance);
+            storeGrid(file, key, grid);
+        } else {
+            hits.incrementAndGet();
+        }
+        keys.put(grid, key);
+        return grid;
+    }
+
+    /**
+     * Loads the flow field towards a destination, or computes and stores it if it is not in the cache.
+     * Only fields on grids obtained from this cache are stored, others are just computed.
+     *
+     * @param grid  The navigation grid.
+     * @param goalX The x-coordinate of the destination.
+     * @param goalY The y-coordinate of the destination.
+     * @return The flow field.
+     */
+    public FlowField flowField(NavigationGrid grid, double goalX, double goalY) {
+        byte[] key = keys.get(grid);
+        if (key == null) {
+            return new FlowField(grid, goalX, goalY);
+        }
+        Path file = directory.resolve(HexFormat.of().formatHex(key) + "-"
+                + Long.toHexString(Double.doubleToLongBits(goalX)) + "-"
+                + Long.toHexString(Double.doubleToLongBits(goalY)) + ".flow");
+        FlowField field = loadFlowField(file, key, grid, goalX, goalY);
+        if (field == null) {
+            misses.incrementAndGet();
+            field = new FlowField(grid, goalX, goalY);
+            storeFlowField(file, key, field, goalX, goalY);
+        } else {
+            hits.incrementAndGet();
+        }
+        return field;
+    }
+
+    /**
+     * Hashes everything a grid is built from. Obstacles are sorted first, so their order does not matter.
+     */
+    private static byte[] key(double width, double height, List<Obstacle> obstacles, double cellSize, double clearance) {
+        byte[][] encoded = new byte[obstacles.size()][];
+        for (int i = 0; i < obstacles.size(); i++) {
+            Obstacle obstacle = obstacles.get(i);
+            encoded[i] = ByteBuffer.allocate(1 + 3 * Double.BYTES)
+                    .put((byte) ("circle".equals(obstacle.getType()) ? 0 : 1))
+                    .putDouble(obstacle.getPosition().getX())
+                    .putDouble(obstacle.getPosition().getY())
+                    .putDouble(obstacle.getSize())
+                    .array();
+        }
+        Arrays.sort(encoded, Arrays::compare);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(ByteBuffer.allocate(Integer.BYTES + 4 * Double.BYTES + Integer.BYTES)
+                    .putInt(FORMAT_VERSION).putDouble(width).putDouble(height).putDouble(cellSize).putDouble(clearance)
+                    .putInt(obstacles.size()).array());
+            for (byte[] obstacle : encoded) {
+                digest.update(obstacle);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private NavigationGrid loadGrid(Path file, byte[] key, double cellSize) {
+        ByteBuffer data = map(file, GRID_MAGIC, key, Double.NaN, Double.NaN);
+        if (data == null) {
+            return null;
+        }
+        int columns = data.getInt(Long.BYTES + KEY_SIZE);
+        int rows = data.getInt(Long.BYTES + KEY_SIZE + Integer.BYTES);
+        int cells = columns * rows;
+        LongBuffer words = data.slice(HEADER_SIZE, data.capacity() - HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        if (words.remaining() != (cells + 63) / 64) {
+            reject(file);
+            return null;
+        }
+        boolean[] blocked = new boolean[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            blocked[cell] = (words.get(cell >>> 6) & (1L << cell)) != 0;
+        }
+        return new NavigationGrid(cellSize, columns, rows, blocked);
+    }
+
+    private void storeGrid(Path file, byte[] key, NavigationGrid grid) {
+        int cells = grid.getCellCount();
+        ByteBuffer data = ByteBuffer.allocate((cells + 63) / 64 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long word = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (grid.isBlocked(cell)) {
+                word |= 1L << cell;
+            }
+            if ((cell & 63) == 63 || cell == cells - 1) {
+                data.putLong(word);
+                word = 0;
+            }
+        }
+        store(file, GRID_MAGIC, key, grid.getColumns(), grid.getRows(), Double.NaN, Double.NaN, data.flip());
+    }
+
+    private FlowField loadFlowField(Path file, byte[] key, NavigationGrid grid, double goalX, double goalY) {
+        ByteBuffer data = map(file, FLOW_MAGIC, key, goalX, goalY);
+        if (data == null) {
+            return null;
+        }
+        int cells = grid.getCellCount();
+        if (data.getInt(Long.BYTES + KEY_SIZE) != grid.getColumns()
+                || data.getInt(Long.BYTES + KEY_SIZE + Integer.BYTES) != grid.getRows()
+                || data.capacity() - HEADER_SIZE != (long) cells * (Integer.BYTES + Float.BYTES)) {
+            reject(file);
+            return null;
+        }
+        int[] next = new int[cells];
+        float[] distance = new float[cells];
+        data.slice(HEADER_SIZE, cells * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(next);
+        data.slice(HEADER_SIZE + cells * Integer.BYTES, cells * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer().get(distance);
+        return new FlowField(grid, goalX, goalY, next, distance);
+    }
+
+    private void storeFlowField(Path file, byte[] key, FlowField field, double goalX, double goalY) {
+        int[] next = field.getNext();
+        float[] distance = field.getDistances();
+        long size = (long) next.length * (Integer.BYTES + Float.BYTES);
+        if (size > Integer.MAX_VALUE - HEADER_SIZE) {
+            return; // too large for a single mapping
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        data.asIntBuffer().put(next);
+        data.position(next.length * Integer.BYTES);
+        data.asFloatBuffer().put(distance);
+        data.position(0);
+        NavigationGrid grid = field.getGrid();
+        store(file, FLOW_MAGIC, key, grid.getColumns(), grid.getRows(), goalX, goalY, data);
+    }
+
+    /**
+     * Maps a cache file and checks its header and checksum.
+     *
+     * @return The whole file, or null if it does not exist or is not valid.
+     */
+    private ByteBuffer map(Path file, long magic, byte[] key, double goalX, double goalY) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                reject(file);
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            byte[] storedKey = new byte[KEY_SIZE];
+            buffer.get(Long.BYTES, storedKey);
+            int at = Long.BYTES + KEY_SIZE + 2 * Integer.BYTES;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_SIZE, (int) size - HEADER_SIZE));
+            if (buffer.getLong(0) != magic || !Arrays.equals(storedKey, key)
+                    || Double.compare(buffer.getDouble(at), goalX) != 0
+                    || Double.compare(buffer.getDouble(at + Double.BYTES), goalY) != 0
+                    || buffer.getLong(at + 2 * Double.BYTES) != size - HEADER_SIZE
+                    || buffer.getLong(at + 2 * Double.BYTES + Long.BYTES) != crc.getValue()) {
+                reject(file);
+                return null;
+            }
+            return buffer;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void store(Path file, long magic, byte[] key, int columns, int rows, double goalX, double goalY,
+                       ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(magic).put(key).putInt(columns).putInt(rows).putDouble(goalX).putDouble(goalY)
+                .putLong(data.remaining()).putLong(crc.getValue()).flip();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining() || data.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, data});
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void reject(Path file) {
+        rejected.incrementAndGet();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return The directory holding the cache files.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The number of grids and flow fields loaded from the cache so far.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of grids and flow fields computed as they were not in the cache so far.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of cache files found invalid and deleted so far.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,223 @@
+package org.openjfx.javaproject.navigation;
+
+import org.openjfx.javaproject.common.Obstacle;
+
+import java.util.List;
+
+/**
+ * A grid of square cells over the room, marking the cells an auto robot cannot stand in.
+ * A cell is blocked when a robot centered in it would touch an obstacle or a wall, so planners
+ * can treat robots as points moving between free cells.
+ * <p>
+ * The grid is immutable once built, so it can be shared between planning threads.
+ */
+public class NavigationGrid {
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final double DIAGONAL = Math.sqrt(2);
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final boolean[] blocked;
+
+    /**
+     * Builds a grid from a snapshot of the obstacles of a room.
+     *
+     * @param width     The width of the room.
+     * @param height    The height of the room.
+     * @param obstacles The obstacles in the room.
+     * @param cellSize  The width and height of a cell.
+     * @param clearance The distance a robot center keeps from obstacles and walls.
+     */
+    public NavigationGrid(double width, double height, List<Obstacle> obstacles, double cellSize, double clearance) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.blocked = new boolean[columns * rows];
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                double x = centerX(column);
+                double y = centerY(row);
+                if (x < clearance || x > width - clearance || y < clearance || y > height - clearance) {
+                    blocked[row * columns + column] = true;
+                }
+            }
+        }
+
+        for (Obstacle obstacle : obstacles) {
+            double reach = obstacle.getSize() + clearance;
+            int fromColumn = clampColumn(column(obstacle.getPosition().getX() - reach));
+            int toColumn = clampColumn(column(obstacle.getPosition().getX() + reach));
+            int fromRow = clampRow(row(obstacle.getPosition().getY() - reach));
+            int toRow = clampRow(row(obstacle.getPosition().getY() + reach));
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    if (obstacle.checkCollision(centerX(column), centerY(row), clearance)) {
+                        blocked[row * columns + column] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores a grid that was built before, see {@link NavigationCache}.
+     *
+     * @param cellSize The width and height of a cell.
+     * @param columns  The number of cells in a row.
+     * @param rows     The number of cells in a column.
+     * @param blocked  For every cell, true if it is blocked.
+     */
+    NavigationGrid(double cellSize, int columns, int rows, boolean[] blocked) {
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.blocked = blocked;
+    }
+
+    /**
+     * @return The width and height of a cell.
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return The number of cells in a row.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return The number of cells in a column.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return The total number of cells.
+     */
+    public int getCellCount() {
+        return columns * rows;
+    }
+
+    /**
+     * Retrieves the index of the cell containing a point, points outside the room map to the nearest cell.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The cell index.
+     */
+    public int cellAt(double x, double y) {
+        return clampRow(row(y)) * columns + clampColumn(column(x));
+    }
+
+    /**
+     * Checks if a robot can stand in a cell.
+     *
+     * @param cell The cell index.
+     * @return True if the cell is blocked, false if it is free.
+     */
+    public boolean isBlocked(int cell) {
+        return blocked[cell];
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return The x-coordinate of the center of the cell.
+     */
+    public double cellX(int cell) {
+        return centerX(cell % columns);
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return The y-coordinate of the center of the cell.
+     */
+    public double cellY(int cell) {
+        return centerY(cell / columns);
+    }
+
+    /**
+     * Retrieves a neighbour of a cell in one of eight directions. Diagonal moves that would cut
+     * the corner of a blocked cell are not allowed.
+     *
+     * @param cell      The cell index.
+     * @param direction The direction, 0 to 7: the four straight directions, then the four diagonals.
+     * @return The index of the free neighbour, or -1 if it is blocked or outside the grid.
+     */
+    public int neighbour(int cell, int direction) {
+        int column = cell % columns + DX[direction];
+        int row = cell / columns + DY[direction];
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        int next = row * columns + column;
+        if (blocked[next]) {
+            return -1;
+        }
+        if (direction >= 4 && (blocked[cell - cell % columns + column] || blocked[row * columns + cell % columns])) {
+            return -1;
+        }
+        return next;
+    }
+
+    /**
+     * Retrieves the cost of a move in the given direction, in cells.
+     *
+     * @param direction The direction, as in {@link #neighbour(int, int)}.
+     * @return 1 for straight moves, the square root of 2 for diagonal ones.
+     */
+    public static double moveCost(int direction) {
+        return direction >= 4 ? DIAGONAL : 1;
+    }
+
+    /**
+     * Checks if a robot can move in a straight line between two points without entering a blocked cell.
+     *
+     * @param fromX The x-coordinate of the start.
+     * @param fromY The y-coordinate of the start.
+     * @param toX   The x-coordinate of the end.
+     * @param toY   The y-coordinate of the end.
+     * @return True if every cell along the line is free, false otherwise.
+     */
+    public boolean hasLineOfSight(double fromX, double fromY, double toX, double toY) {
+        double distance = Math.hypot(toX - fromX, toY - fromY);
+        int steps = (int) Math.ceil(distance / (cellSize / 4));
+        for (int i = 0; i <= steps; i++) {
+            double t = steps == 0 ? 0 : (double) i / steps;
+            if (blocked[cellAt(fromX + (toX - fromX) * t, fromY + (toY - fromY) * t)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int column(double x) {
+        return (int) Math.floor(x / cellSize);
+    }
+
+    private int row(double y) {
+        return (int) Math.floor(y / cellSize);
+    }
+
+    private int clampColumn(int column) {
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    private int clampRow(int row) {
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    private double centerX(int column) {
+        return (column + 0.5) * cellSize;
+    }
+
+    private double centerY(int row) {
+        return (row + 0.5) * cellSize;
+    }
+}
@@ -0,0 +1,40 @@
+package org.openjfx.javaproject.navigation;
+
+/**
+ * A planned path as a list of waypoints, from the start to the goal.
+ * Consecutive waypoints are connected by straight lines that do not touch obstacles.
+ *
+ * @param xs The x-coordinates of the waypoints.
+ * @param ys The y-coordinates of the waypoints.
+ */
+public record Path(double[] xs, double[] ys) {
+    /**
+     * A path for goals that cannot be reached.
+     */
+    public static final Path NONE = new Path(new double[0], new double[0]);
+
+    /**
+     * @return The number of waypoints, 0 if the goal cannot be reached.
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    /**
+     * @return True if the goal can be reached, false otherwise.
+     */
+    public boolean isFound() {
+        return xs.length > 0;
+    }
+
+    /**
+     * @return The length of the path.
+     */
+    public double length() {
+        double length = 0;
+        for (int i = 1; i < xs.length; i++) {
+            length += Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+        }
+        return length;
+    }
+}
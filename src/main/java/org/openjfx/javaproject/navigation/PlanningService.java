@@ -0,0 +1,178 @@
+package org.openjfx.javaproject.navigation;
+
+import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.Room;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Plans routes through a room on a worker pool, away from the tick thread.
+ * <p>
+ * The service keeps a navigation grid built from the obstacles of the room and caches every path and
+ * flow field it computes. Flow fields are cached per destination cell, so any number of robots heading
+ * to the same dock share a single computation. Whenever obstacles are added or removed, the grid is rebuilt
+ * and all cached results are dropped; the obstacle version is checked on every request.
+ * <p>
+ * Requests have to come from the thread that changes the room, the planning itself runs on the executor.
+ */
+public class PlanningService {
+    public static final double DEFAULT_CELL_SIZE = 20;
+
+    private record PathKey(long from, long to) {
+    }
+
+    private final Room room;
+    private final Executor executor;
+    private final double cellSize;
+    private final double clearance;
+
+    private volatile NavigationCache cache;
+    private volatile long version = Long.MIN_VALUE;
+    private CompletableFuture<NavigationGrid> grid;
+    private final ConcurrentHashMap<PathKey, CompletableFuture<Path>> paths = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<FlowField>> flowFields = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a planning service for a room.
+     *
+     * @param room     The room to plan in.
+     * @param executor The worker pool the planning runs on.
+     * @param cellSize The width and height of a navigation cell, smaller cells find narrower passages but take longer.
+     */
+    public PlanningService(Room room, Executor executor, double cellSize) {
+        this.room = room;
+        this.executor = executor;
+        this.cellSize = cellSize;
+        this.clearance = Autorobot.RADIUS + Autorobot.SAFE_ZONE;
+    }
+
+    /**
+     * Retrieves the version of the planning data, checking the room for obstacle changes first.
+     * Results obtained under an older version are outdated and should be requested again.
+     *
+     * @return The version of the obstacles the current results are computed from.
+     */
+    public long getVersion() {
+        if (room.getObstacleVersion() != version) {
+            rebuild();
+        }
+        return version;
+    }
+
+    /**
+     * Snapshots the obstacles and starts building a new grid, dropping everything computed from the old one.
+     */
+    private synchronized void rebuild() {
+        long current = room.getObstacleVersion();
+        if (current == version) {
+            return;
+        }
+        List<Obstacle> obstacles = List.copyOf(room.getObstacles());
+        double width = room.getWidth();
+        double height = room.getHeight();
+        NavigationCache cache = this.cache;
+        grid = CompletableFuture.supplyAsync(() -> cache != null
+                ? cache.grid(width, height, obstacles, cellSize, clearance)
+                : new NavigationGrid(width, height, obstacles, cellSize, clearance), executor);
+        paths.clear();
+        flowFields.clear();
+        version = current;
+    }
+
+    /**
+     * Plans the shortest path between two points, or returns the cached one for the same cells.
+     *
+     * @param fromX The x-coordinate of the start.
+     * @param fromY The y-coordinate of the start.
+     * @param toX   The x-coordinate of the goal.
+     * @param toY   The y-coordinate of the goal.
+     * @return The path, completed once it has been planned. {@link Path#NONE} if the goal cannot be reached.
+     */
+    public CompletableFuture<Path> findPath(double fromX, double fromY, double toX, double toY) {
+        getVersion();
+        CompletableFuture<NavigationGrid> current = grid;
+        return paths.computeIfAbsent(new PathKey(cellKey(fromX, fromY), cellKey(toX, toY)),
+                key -> current.thenApplyAsync(g -> AStar.find(g, fromX, fromY, toX, toY), executor));
+    }
+
+    /**
+     * Computes the flow field towards a destination, or returns the cached one for the same cell.
+     * Destinations in the same cell share a field, which leads to the first destination requested.
+     *
+     * @param x The x-coordinate of the destination.
+     * @param y The y-coordinate of the destination.
+     * @return The flow field, completed once it has been computed.
+     */
+    public CompletableFuture<FlowField> flowField(double x, double y) {
+        getVersion();
+        CompletableFuture<NavigationGrid> current = grid;
+        return flowFields.computeIfAbsent(cellKey(x, y),
+                key -> current.thenApplyAsync(g -> {
+                    NavigationCache cache = this.cache;
+                    return cache != null ? cache.flowField(g, x, y) : new FlowField(g, x, y);
+                }, executor));
+    }
+
+    /**
+     * Retrieves the flow field towards a destination if it has already been computed, starting the
+     * computation otherwise.
+     *
+     * @param x The x-coordinate of the destination.
+     * @param y The y-coordinate of the destination.
+     * @return The flow field, or null if it is not ready yet.
+     */
+    public FlowField flowFieldNow(double x, double y) {
+        CompletableFuture<FlowField> field = flowField(x, y);
+        if (!field.isDone() || field.isCompletedExceptionally()) {
+            return null;
+        }
+        return field.join();
+    }
+
+    /**
+     * Keeps navigation grids and flow fields on disk from now on, grids already built are not stored.
+     *
+     * @param cache The cache, or null to compute everything again.
+     */
+    public void setCache(NavigationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return The cache grids and flow fields are kept in, or null.
+     */
+    public NavigationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return The number of cached paths.
+     */
+    public int getCachedPathCount() {
+        return paths.size();
+    }
+
+    /**
+     * @return The number of cached flow fields.
+     */
+    public int getCachedFlowFieldCount() {
+        return flowFields.size();
+    }
+
+    /**
+     * @return The width and height of a navigation cell.
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    private long cellKey(double x, double y) {
+        long column = (long) Math.floor(x / cellSize);
+        long row = (long) Math.floor(y / cellSize);
+        return (column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
@@ -2,20 +2,30 @@ package org.openjfx.javaproject.room;
 
 import javafx.scene.shape.Circle;
 import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.common.Sweep;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class Autorobot {
-    private static final double SPEED = 100; // pixels per second
-    private static final double RADIUS = 10; // radius of the robot
+    public static final double SPEED = 100; // pixels per second
+    public static final double RADIUS = 10; // radius of the robot
+
+    public static final double SAFE_ZONE = 10; // distance from the edge
 
-    private static final double SAFE_ZONE = 10; // distance from the edge
+    public static final double VIEW_DISTANCE = 75; // how far the robot can see
 
-    private static final double VIEW_DISTANCE = 75; // how far the robot can see
+    public static final double VIEW_ANGLE = Math.PI / 6; // 30 degrees
 
-    private static final double VIEW_ANGLE = Math.PI / 6; // 30 degrees
+    private static final double CONTACT_GAP = 0.01; // distance kept from whatever the robot runs into
 
     private final Position position;
     private double angle;
-    private final Circle shape;
+    private int id = -1;
+    private long randomState = 0; // state of the robot's own random sequence, seeded by its id
+    private Circle shape;
+    private List<Position> goals = new ArrayList<>();
+    private Steering steering;
 
     /**
      * Constructs a new auto robot with the specified initial position and facing angle.
@@ -26,8 +36,6 @@ public class Autorobot {
     private Autorobot(Position position, double angle) {
         this.position = position;
         this.angle = angle;
-        this.shape = new Circle(RADIUS);
-        updatePosition();
     }
 
     /**
@@ -47,35 +55,106 @@ public class Autorobot {
         return robot;
     }
 
+    /**
+     * Creates an auto robot without checking the position and without adding it to a room.
+     * Used to restore robots whose placement was already validated, for example when they are handed
+     * between simulations.
+     *
+     * @param position The position of the auto robot.
+     * @param angle The angle (in radians) the auto robot is facing.
+     * @return The newly created auto robot.
+     */
+    public static Autorobot restore(Position position, double angle) {
+        return new Autorobot(position, angle);
+    }
+
+    /**
+     * Restores an auto robot like {@link #restore(Position, double)}, carrying on with its random sequence.
+     * Used for robots handed between simulations that never add them to a room, which would seed the sequence.
+     *
+     * @param position    The position of the auto robot.
+     * @param angle       The angle (in radians) the auto robot is facing.
+     * @param randomState The state of the robot's random sequence, see {@link #getRandomState()}.
+     * @return The newly created auto robot.
+     */
+    public static Autorobot restore(Position position, double angle, long randomState) {
+        Autorobot robot = new Autorobot(position, angle);
+        robot.randomState = randomState;
+        return robot;
+    }
+
     /**
      * Updates the position and angle of the robot based on its current position, angle, and room conditions.
+     * Collisions are detected continuously along the whole motion of the step, so robots do not tunnel
+     * through thin obstacles or other robots when the step is large. On a collision the robot advances
+     * up to the point of contact before it turns away.
      *
      * @param room      The room in which the robot moves.
-     * @param deltaTime
+     * @param deltaTime The time elapsed since the last update, in seconds.
      */
     public void update(Room room, double deltaTime) {
+        update(room, deltaTime, true);
+    }
+
+    /**
+     * Updates the robot like {@link #update(Room, double)}, optionally without looking for walls in its field
+     * of view. Collisions are still detected, so skipping the view only makes the robot turn away from walls later.
+     *
+     * @param room       The room in which the robot moves.
+     * @param deltaTime  The time elapsed since the last update, in seconds.
+     * @param senseWalls True to turn away from walls in view, false to skip the view checks in this update.
+     */
+    public void update(Room room, double deltaTime, boolean senseWalls) {
         boolean hasCollision = false;
+        boolean escaped = false;
+
+        if (steering != null) {
+            double desired = steering.steer(this, room);
+            if (!Double.isNaN(desired)) {
+                angle = desired;
+            }
+        }
 
         // Next Vector
         double velX = SPEED * Math.cos(angle);
         double velY = SPEED * Math.sin(angle);
 
         // Next position
-        double nextX = position.getX() + velX * deltaTime;
-        double nextY = position.getY() + velY * deltaTime;
-
-        if (checkCollisionsWithObstacles(room, nextX, nextY)) {
+        double startX = position.getX();
+        double startY = position.getY();
+        double nextX = startX + velX * deltaTime;
+        double nextY = startY + velY * deltaTime;
+
+        // End of the unobstructed motion and the fraction of it travelled before the first contact
+        double moveX = nextX;
+        double moveY = nextY;
+        double contact = 1;
+
+        double obstacleContact = checkCollisionsWithObstacles(room, nextX, nextY);
+        if (obstacleContact <= 1) {
+            contact = Math.min(contact, obstacleContact);
             hasCollision = true;
         }
 
-        if (checkCollisionWithEdge(nextX, nextY, room)) {
+        double edgeContact = checkCollisionWithEdge(nextX, nextY, room);
+        if (edgeContact <= 1) {
+            reportContact(room, ContactKind.ROBOT_WALL, -1, startX, startY, nextX, nextY, edgeContact);
             // Změnit směr
             angle += 0.2;
+            contact = Math.min(contact, edgeContact);
             hasCollision = true;
         }
 
-        for (Autorobot otherRobot : room.getRobots()){
-            if (this != otherRobot && checkCollision(otherRobot, nextX, nextY)) {
+        List<Autorobot> robots = room.getRobots();
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot otherRobot = robots.get(i);
+            if (this == otherRobot) {
+                continue;
+            }
+            double robotContact = checkCollision(otherRobot, moveX, moveY);
+            if (robotContact <= 1) {
+                reportContact(room, ContactKind.ROBOT_ROBOT, otherRobot.getId(), startX, startY, moveX, moveY, robotContact);
+                contact = Math.min(contact, robotContact);
 
                 double dx = otherRobot.getPosition().getX() - position.getX();
                 double dy = otherRobot.getPosition().getY() - position.getY();
@@ -89,9 +168,11 @@ public class Autorobot {
         }
 
         if (!hasCollision) {
-            if(room.isControlledRobotSet()){
-                ControlledRobot controlledRobot = room.getControlledRobot();
-                if (controlledRobot != null && checkCollision(controlledRobot, nextX, nextY)) {
+            // escape from the first controlled robot in the way
+            List<ControlledRobot> controlledRobots = room.getControlledRobots();
+            for (int i = 0; i < controlledRobots.size() && !escaped; i++) {
+                ControlledRobot controlledRobot = controlledRobots.get(i);
+                if (checkCollision(controlledRobot, nextX, nextY) <= 1) {
                     double dx = controlledRobot.getPosition().getX() - position.getX();
                     double dy = controlledRobot.getPosition().getY() - position.getY();
 
@@ -100,6 +181,8 @@ public class Autorobot {
 
                     // Set escape angle
                     angle = angleAway;
+                    escaped = true;
+                    reportContact(room, ContactKind.ROBOT_CONTROLLED, controlledRobot.getId(), startX, startY, startX, startY, 0);
 
                     // RUN AWAY
                     velX = SPEED * Math.cos(angleAway);
@@ -107,18 +190,16 @@ public class Autorobot {
                     nextX = position.getX() + velX * deltaTime;
                     nextY = position.getY() + velY * deltaTime;
 
-                    if(checkCollisionWithEdge(nextX,nextY,room) || checkCollisionsWithObstacles(room,nextX,nextY)){
+                    if(checkCollisionWithEdge(nextX,nextY,room) <= 1 || checkCollisionsWithObstacles(room,nextX,nextY) <= 1){
+                        // Cornered while escaping, stay in place
+                        contact = 0;
                         hasCollision = true;
                     }
                 }
             }
         }
-        if(isInViewOfEdgeCenter(nextX, nextY, room)){
-            angle += 0.1;
-        } else if (isInViewOfEdgeLeft(nextX, nextY, room)){
-            angle += 0.1;
-        } else if (isInViewOfEdgeRight(nextX, nextY, room)) {
-            angle -= 0.1;
+        if (senseWalls) {
+            steerFromWalls(nextX, nextY, room);
         }
 
         // Update position
@@ -126,8 +207,55 @@ public class Autorobot {
             position.setX(nextX);
             position.setY(nextY);
 
+        } else if (contact > 0) {
+            moveToContact(startX, startY, moveX, moveY, contact);
         }
         updatePosition();
+
+        if ((hasCollision || escaped) && room.hasCollisionListeners()) {
+            room.reportCollision(this, hasCollision && contact <= 0);
+        }
+    }
+
+    /**
+     * Reports a contact to the collision listeners of the room, with the robot center at the moment of contact.
+     *
+     * @param room    The room in which the robot moves.
+     * @param kind    What the robot ran into.
+     * @param otherId The id of what the robot ran into, see {@link CollisionListener#contact}.
+     * @param startX  The x-coordinate at the start of the motion.
+     * @param startY  The y-coordinate at the start of the motion.
+     * @param endX    The x-coordinate at the end of the unobstructed motion.
+     * @param endY    The y-coordinate at the end of the unobstructed motion.
+     * @param contact The fraction of the motion travelled before the contact.
+     */
+    private void reportContact(Room room, ContactKind kind, int otherId, double startX, double startY,
+                               double endX, double endY, double contact) {
+        if (room.hasCollisionListeners()) {
+            double fraction = Math.max(0, Math.min(1, contact));
+            room.reportContact(kind, id, otherId, startX + (endX - startX) * fraction, startY + (endY - startY) * fraction);
+        }
+    }
+
+    /**
+     * Moves the robot along its motion up to the point of contact, keeping a small gap.
+     *
+     * @param startX  The x-coordinate at the start of the motion.
+     * @param startY  The y-coordinate at the start of the motion.
+     * @param endX    The x-coordinate at the end of the unobstructed motion.
+     * @param endY    The y-coordinate at the end of the unobstructed motion.
+     * @param contact The fraction of the motion travelled before the contact.
+     */
+    private void moveToContact(double startX, double startY, double endX, double endY, double contact) {
+        double dx = endX - startX;
+        double dy = endY - startY;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance == 0) {
+            return;
+        }
+        double fraction = Math.max(0, contact - CONTACT_GAP / distance);
+        position.setX(startX + dx * fraction);
+        position.setY(startY + dy * fraction);
     }
 
     /**
@@ -135,6 +263,9 @@ public class Autorobot {
      * This method is called after every movement update.
      */
     private void updatePosition() {
+        if (shape == null) {
+            return;
+        }
         // Update robot's position
         shape.setCenterX(position.getX());
         shape.setCenterY(position.getY());
@@ -146,9 +277,44 @@ public class Autorobot {
      * @return The Circle representing the robots shape.
      */
     public Circle getShape() {
+        if (shape == null) {
+            shape = new Circle(RADIUS);
+            updatePosition();
+        }
         return shape;
     }
 
+    /**
+     * Turns the robot away from walls that are in its field of view at its current position.
+     *
+     * @param room The room in which the robot exists.
+     * @return True if a wall was in view and the robot turned, false otherwise.
+     */
+    public boolean steerFromWalls(Room room) {
+        return steerFromWalls(position.getX(), position.getY(), room);
+    }
+
+    /**
+     * Turns the robot away from walls that are in its field of view from the given position.
+     *
+     * @param x The x-coordinate the robot looks from.
+     * @param y The y-coordinate the robot looks from.
+     * @param room The room in which the robot exists.
+     * @return True if a wall was in view and the robot turned, false otherwise.
+     */
+    private boolean steerFromWalls(double x, double y, Room room) {
+        if(isInViewOfEdgeCenter(x, y, room)){
+            angle += 0.1;
+        } else if (isInViewOfEdgeLeft(x, y, room)){
+            angle += 0.1;
+        } else if (isInViewOfEdgeRight(x, y, room)) {
+            angle -= 0.1;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Checks if the robots left field of view is intersecting with any wall in the room.
      *
@@ -222,15 +388,16 @@ public class Autorobot {
     }
 
     /**
-     * Retrieves a string representation of the robots position and angle.
+     * Moves the robot to the specified coordinates without any collision checks.
+     * Used by simulation engines that compute the motion of robots themselves.
      *
-     * @return A string representing the robots position and angle in the format "x y angle",
-     *         which is further used for creating logs.
+     * @param x The new x-coordinate.
+     * @param y The new y-coordinate.
      */
-    public String getPositionAsString() {
-        return String.format("%.2f %.2f %.2f", position.getX(), position.getY(), getAngle());
-
-        //return "x: " + position.getX() + ", y: " + position.getY();
+    public void moveTo(double x, double y) {
+        position.setX(x);
+        position.setY(y);
+        updatePosition();
     }
 
     /**
@@ -252,80 +419,171 @@ public class Autorobot {
     }
 
     /**
-     * Checks if the robot collides with a controlled robot at the next position.
+     * Sets the angle (in radians) the robot is facing.
+     *
+     * @param angle The new angle, in radians.
+     */
+    public void setAngle(double angle) {
+        this.angle = angle;
+    }
+
+    /**
+     * Retrieves the id of the robot, given by the room when the robot is added. Ids count up from 0 in the order
+     * robots are added, so they match the order of robots in the log as long as none is removed.
+     *
+     * @return The id, or -1 if the robot was never added to a room.
+     */
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+        this.randomState = id * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Retrieves the state of the robot's own random sequence, to hand the robot to another simulation.
+     *
+     * @return The state of the sequence.
+     */
+    public long getRandomState() {
+        return randomState;
+    }
+
+    /**
+     * Draws the next number of the robot's own random sequence (SplitMix64). The sequence is seeded by the id, so
+     * runs of the same scene with the same inputs repeat exactly, whichever thread updates the robot.
+     *
+     * @return A number between 0 (inclusive) and 1 (exclusive).
+     */
+    public double nextRandom() {
+        long z = randomState += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Retrieves the goals the robot travels between, in order.
+     *
+     * @return The goals, empty if the robot wanders.
+     */
+    public List<Position> getGoals() {
+        return goals;
+    }
+
+    /**
+     * Sets the goals the robot travels between, like a pickup and a drop-off point.
+     * Goals only take effect once a steering that follows them is set, see {@link #setSteering(Steering)}.
+     *
+     * @param goals The goals, in order.
+     */
+    public void setGoals(List<Position> goals) {
+        this.goals = goals;
+    }
+
+    /**
+     * Retrieves the steering choosing the heading of the robot.
+     *
+     * @return The steering, or null if the robot wanders.
+     */
+    public Steering getSteering() {
+        return steering;
+    }
+
+    /**
+     * Sets the steering asked for a heading at the start of every update.
+     * Collisions and walls in view still turn the robot away as usual.
+     *
+     * @param steering The steering, or null to let the robot wander.
+     */
+    public void setSteering(Steering steering) {
+        this.steering = steering;
+    }
+
+    /**
+     * Checks when the robot collides with a controlled robot while moving to the next position.
      *
      * @param robot The controlled robot to check collision against.
      * @param nextX The x-coordinate of the next position of the robot.
      * @param nextY The y-coordinate of the next position of the robot.
-     * @return True if the robot collides with the controlled robot, false otherwise.
+     * @return The fraction of the motion before the collision, or {@link Sweep#NONE} if there is none.
      */
-    private boolean checkCollision(ControlledRobot robot, double nextX, double nextY) {
-        double dx = nextX - robot.getPosition().getX();
-        double dy = nextY - robot.getPosition().getY();
-        double distance = Math.sqrt(dx * dx + dy * dy);
-
-        return distance < (RADIUS + robot.getSize() + SAFE_ZONE);
+    private double checkCollision(ControlledRobot robot, double nextX, double nextY) {
+        return Sweep.circle(position.getX(), position.getY(), nextX, nextY,
+                robot.getPosition().getX(), robot.getPosition().getY(), RADIUS + robot.getSize() + SAFE_ZONE);
     }
 
     /**
-     * Checks if the robot collides with another robot at the specified next position.
+     * Checks when the robot collides with another robot while moving to the next position.
      *
      * @param robot The robot to check collision against.
      * @param nextX The x-coordinate of the next position of the current robot.
      * @param nextY The y-coordinate of the next position of the current robot.
-     * @return True if the current robot collides with the specified robot, false otherwise.
+     * @return The fraction of the motion before the collision, or {@link Sweep#NONE} if there is none.
      */
-    private boolean checkCollision(Autorobot robot, double nextX, double nextY) {
-        double dx = nextX - robot.getPosition().getX();
-        double dy = nextY - robot.getPosition().getY();
-        double distance = Math.sqrt(dx * dx + dy * dy);
-
-        return distance < (RADIUS + robot.getSize() + SAFE_ZONE);
+    private double checkCollision(Autorobot robot, double nextX, double nextY) {
+        return Sweep.circle(position.getX(), position.getY(), nextX, nextY,
+                robot.getPosition().getX(), robot.getPosition().getY(), RADIUS + robot.getSize() + SAFE_ZONE);
     }
 
     /**
-     * Checks if the robot collides with an obstacle at the next position.
+     * Checks when the robot collides with an obstacle while moving to the next position.
      *
      * @param obstacle The obstacle to check collision against.
      * @param nextX The x-coordinate of the next position of the robot.
      * @param nextY The y-coordinate of the next position of the robot.
-     * @return True if the robot collides with the specified obstacle, false otherwise.
+     * @return The fraction of the motion before the collision, or {@link Sweep#NONE} if there is none.
      */
-    private boolean checkCollisionObstacle(Obstacle obstacle, double nextX, double nextY) {
-        return obstacle.checkCollision(nextX, nextY, RADIUS + SAFE_ZONE);
+    private double checkCollisionObstacle(Obstacle obstacle, double nextX, double nextY) {
+        return obstacle.sweepCollision(position.getX(), position.getY(), nextX, nextY, RADIUS + SAFE_ZONE);
     }
 
     /**
-     * Checks if the robot collides with the edges of the room at the next position.
+     * Checks when the robot collides with the edges of the room while moving to the next position.
      *
      * @param nextX The x-coordinate of the next position of the robot.
      * @param nextY The y-coordinate of the next position of the robot.
      * @param room The room in which the robot exists.
-     * @return True if the robot collides with any edge of the room, false otherwise.
+     * @return The fraction of the motion before the collision, or {@link Sweep#NONE} if there is none.
      */
-    private boolean checkCollisionWithEdge(double nextX, double nextY, Room room) {
-        if (nextX - RADIUS < 0 || nextX + RADIUS > room.getWidth()) {;
-            return true;
-        }
-        return nextY - RADIUS < 0 || nextY + RADIUS > room.getHeight();
+    private double checkCollisionWithEdge(double nextX, double nextY, Room room) {
+        return Sweep.exitBox(position.getX(), position.getY(), nextX, nextY,
+                RADIUS, RADIUS, room.getWidth() - RADIUS, room.getHeight() - RADIUS);
     }
 
     /**
-     * Checks if the robot collides with any obstacles in the room at the specified next position.
+     * Checks when the robot collides with any obstacle in the room while moving to the next position.
+     * If it does, the robot turns away from the obstacle it would hit first.
      *
      * @param room The room in which the robot exists.
      * @param nextX The x-coordinate of the next position of the robot.
      * @param nextY The y-coordinate of the next position of the robot.
-     * @return True if the robot collides with any obstacle in the room, false otherwise.
-     */
-    private boolean checkCollisionsWithObstacles(Room room, double nextX, double nextY) {
-        for (Obstacle obstacle : room.getObstacles()) {
-            if (checkCollisionObstacle(obstacle, nextX, nextY)) {
-                double angleToObstacle = obstacle.calculateAngleTo(position.getX(), position.getY());
-                angle = angleToObstacle + Math.PI / 2 + (Math.random() - 0.5) * Math.PI / 4; // 90° ± random up to 22.5°
-                return true;
+     * @return The fraction of the motion before the first collision, or {@link Sweep#NONE} if there is none.
+     */
+    private double checkCollisionsWithObstacles(Room room, double nextX, double nextY) {
+        double firstContact = Sweep.NONE;
+        Obstacle firstObstacle = null;
+        int firstIndex = -1;
+        List<Obstacle> obstacles = room.getObstacles();
+        for (int i = 0; i < obstacles.size(); i++) {
+            Obstacle obstacle = obstacles.get(i);
+            double contact = checkCollisionObstacle(obstacle, nextX, nextY);
+            if (contact < firstContact) {
+                firstContact = contact;
+                firstObstacle = obstacle;
+                firstIndex = i;
             }
         }
-        return false;
+        if (firstObstacle != null) {
+            reportContact(room, ContactKind.ROBOT_OBSTACLE, firstIndex, position.getX(), position.getY(), nextX, nextY, firstContact);
+            double contactX = position.getX() + (nextX - position.getX()) * firstContact;
+            double contactY = position.getY() + (nextY - position.getY()) * firstContact;
+            double angleToObstacle = firstObstacle.calculateAngleTo(contactX, contactY);
+            angle = angleToObstacle + Math.PI / 2 + (nextRandom() - 0.5) * Math.PI / 4; // 90° ± random up to 22.5°
+        }
+        return firstContact;
     }
 }
\ No newline at end of file
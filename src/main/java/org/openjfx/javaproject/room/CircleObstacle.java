@@ -3,12 +3,14 @@ package org.openjfx.javaproject.room;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.common.Sweep;
 
 /**
  * Represents a circular obstacle in a room.
  */
 public class CircleObstacle extends Obstacle {
-    private final Circle circle;
+    private final double radius;
+    private Circle circle;
 
     /**
      * Constructs a CircleObstacle with the specified position and radius.
@@ -18,8 +20,7 @@ public class CircleObstacle extends Obstacle {
      */
     public CircleObstacle(Position position, double radius) {
         super(position);
-        circle = new Circle(position.getX(), position.getY(), radius);
-        circle.setFill(Color.GRAY);
+        this.radius = radius;
     }
 
     /**
@@ -29,6 +30,10 @@ public class CircleObstacle extends Obstacle {
      */
     @Override
     public Circle getShape() {
+        if (circle == null) {
+            circle = new Circle(position.getX(), position.getY(), radius);
+            circle.setFill(Color.GRAY);
+        }
         return circle;
     }
 
@@ -39,7 +44,7 @@ public class CircleObstacle extends Obstacle {
      */
     @Override
     public double getSize() {
-        return circle.getRadius();
+        return radius;
     }
 
     /**
@@ -68,6 +73,21 @@ public class CircleObstacle extends Obstacle {
         return distance < (radius + getSize());
     }
 
+    /**
+     * Calculates when a circle moving along a segment first collides with this CircleObstacle.
+     *
+     * @param fromX The x-coordinate of the circle's center at the start of the motion.
+     * @param fromY The y-coordinate of the circle's center at the start of the motion.
+     * @param toX The x-coordinate of the circle's center at the end of the motion.
+     * @param toY The y-coordinate of the circle's center at the end of the motion.
+     * @param radius The radius of the circle.
+     * @return The fraction of the motion before the collision, or {@link Sweep#NONE} if there is none.
+     */
+    @Override
+    public double sweepCollision(double fromX, double fromY, double toX, double toY, double radius) {
+        return Sweep.circle(fromX, fromY, toX, toY, position.getX(), position.getY(), radius + getSize());
+    }
+
     /**
      * Calculates the angle from a given point to the center of this CircleObstacle.
      *
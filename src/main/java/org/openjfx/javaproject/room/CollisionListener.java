@@ -0,0 +1,29 @@
+package org.openjfx.javaproject.room;
+
+/**
+ * Gets notified when robots run into obstacles, walls or each other during an update.
+ * Listeners are called on the tick thread and should return quickly.
+ */
+public interface CollisionListener {
+    /**
+     * Called at the end of an update in which an auto robot turned away from something in its way.
+     *
+     * @param robot   The robot, already at its new position.
+     * @param blocked True if the robot could not move at all in this update.
+     */
+    default void collided(Autorobot robot, boolean blocked) {
+    }
+
+    /**
+     * Called for every contact detected during an update, before the robot reacts to it.
+     *
+     * @param kind    What the robot ran into.
+     * @param robotId The id of the robot, an auto robot id or a controlled robot id depending on the kind.
+     * @param otherId The id of the other auto or controlled robot, the index of the obstacle in the room,
+     *                or -1 for walls.
+     * @param x       The x-coordinate of the robot center at the moment of contact.
+     * @param y       The y-coordinate of the robot center at the moment of contact.
+     */
+    default void contact(ContactKind kind, int robotId, int otherId, double x, double y) {
+    }
+}
@@ -0,0 +1,39 @@
+package org.openjfx.javaproject.room;
+
+/**
+ * What a robot ran into.
+ */
+public enum ContactKind {
+    /**
+     * An auto robot ran into another auto robot.
+     */
+    ROBOT_ROBOT,
+    /**
+     * An auto robot ran into an obstacle.
+     */
+    ROBOT_OBSTACLE,
+    /**
+     * An auto robot ran into a wall of the room.
+     */
+    ROBOT_WALL,
+    /**
+     * An auto robot had to escape from a controlled robot.
+     */
+    ROBOT_CONTROLLED,
+    /**
+     * A controlled robot was stopped by an auto robot.
+     */
+    CONTROLLED_ROBOT,
+    /**
+     * A controlled robot was stopped by an obstacle.
+     */
+    CONTROLLED_OBSTACLE,
+    /**
+     * A controlled robot was stopped by a wall of the room.
+     */
+    CONTROLLED_WALL,
+    /**
+     * A controlled robot was stopped by another controlled robot.
+     */
+    CONTROLLED_CONTROLLED
+}
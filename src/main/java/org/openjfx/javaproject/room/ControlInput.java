@@ -0,0 +1,23 @@
+package org.openjfx.javaproject.room;
+
+/**
+ * An input of the controlled robot, held down or released like the key it is bound to.
+ */
+public enum ControlInput {
+    /**
+     * Drives forward, bound to W.
+     */
+    FORWARD,
+    /**
+     * Turns to the left, bound to A.
+     */
+    TURN_LEFT,
+    /**
+     * Bound to S, the robot does not drive backward yet.
+     */
+    BACKWARD,
+    /**
+     * Turns to the right, bound to D.
+     */
+    TURN_RIGHT
+}
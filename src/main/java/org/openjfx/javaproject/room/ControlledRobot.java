@@ -1,26 +1,39 @@
 package org.openjfx.javaproject.room;
 import javafx.scene.paint.Color;
 import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.common.Sweep;
 
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 
+import java.util.List;
+
 public class ControlledRobot {
     private static final double SPEED = 100; // pixels per second
     private static final double RADIUS = 10; // radius of the robot
+    private static final int INPUT_QUEUE_CAPACITY = 256;
 
     private final Position position;
     private double angle;
-    private final Circle shape;
-    private final Line directionLine;
+    private int id = -1;
+    private Circle shape;
+    private Line directionLine;
 
+    // input state, only touched by the tick thread, other threads go through the input queue
     private boolean wPressed = false;
     private boolean aPressed = false;
     private boolean sPressed = false;
     private boolean dPressed = false;
 
+    private final InputQueue inputQueue = new InputQueue(INPUT_QUEUE_CAPACITY);
+    private final boolean[] keyState = new boolean[ControlInput.values().length]; // keys held, application thread only
+    private final ControlInput[] appliedInputs = new ControlInput[inputQueue.getCapacity()];
+    private final boolean[] appliedPressed = new boolean[inputQueue.getCapacity()];
+    private final long[] appliedStamps = new long[inputQueue.getCapacity()];
+    private int appliedCount = 0;
+
     /**
      * Constructs a ControlledRobot with the specified position and angle.
      *
@@ -30,13 +43,6 @@ public class ControlledRobot {
     public ControlledRobot(Position position, double angle) {
         this.position = position;
         this.angle = angle;
-        this.shape = new Circle(RADIUS);
-        shape.setFill(Color.PURPLE);
-        this.directionLine = new Line();
-        this.directionLine.setStartX(position.getX());
-        this.directionLine.setStartY(position.getY());
-        updateDirectionLine();
-        updatePosition();
     }
 
     /**
@@ -45,10 +51,10 @@ public class ControlledRobot {
      * @param room The room in which the robot is created.
      * @param position The initial position of the robot.
      * @param angle The initial angle (in degrees) of the robot.
-     * @return The created ControlledRobot instance, or null if it cannot be created due to obstacle collision.
+     * @return The created ControlledRobot instance, or null if it cannot be created due to a collision.
      */
     public static ControlledRobot create(Room room, Position position, double angle) {
-        if (!room.canCreate(position, RADIUS) || room.isControlledRobotSet()) {    //there is obstacle or robot already exists
+        if (!room.canCreate(position, RADIUS)) {    //there is obstacle or robot
             return null;
         }
         ControlledRobot robot = new ControlledRobot(position, angle);
@@ -80,26 +86,49 @@ public class ControlledRobot {
             double nextY = position.getY() + velY;
 
             // Check collision with robots
-            for (Autorobot robot : room.getRobots()) {
+            List<Autorobot> robots = room.getRobots();
+            for (int i = 0; i < robots.size(); i++) {
+                Autorobot robot = robots.get(i);
                 if (checkCollisionWithRobot(robot, nextX, nextY)) {
+                    reportContact(room, ContactKind.CONTROLLED_ROBOT, robot.getId());
+                    updateDirectionLine();
+                    return;
+                }
+            }
+
+            // Check collision with the other controlled robots
+            List<ControlledRobot> controlledRobots = room.getControlledRobots();
+            for (int i = 0; i < controlledRobots.size(); i++) {
+                ControlledRobot other = controlledRobots.get(i);
+                if (other != this && Sweep.circle(position.getX(), position.getY(), nextX, nextY,
+                        other.position.getX(), other.position.getY(), RADIUS + other.getSize()) <= 1) {
+                    reportContact(room, ContactKind.CONTROLLED_CONTROLLED, other.getId());
                     updateDirectionLine();
                     return;
                 }
             }
 
             // Check collision with obstacles
-            for (Obstacle obstacle : room.getObstacles()) {
+            List<Obstacle> obstacles = room.getObstacles();
+            for (int i = 0; i < obstacles.size(); i++) {
+                Obstacle obstacle = obstacles.get(i);
                 if (checkCollisionWithObstacle(obstacle, nextX, nextY)) {
+                    reportContact(room, ContactKind.CONTROLLED_OBSTACLE, i);
                     updateDirectionLine();
                     return;
                 }
             }
 
             // Collision check with room boundaries
-            if (nextX >= RADIUS && nextX <= room.getWidth() - RADIUS) {
+            boolean insideX = nextX >= RADIUS && nextX <= room.getWidth() - RADIUS;
+            boolean insideY = nextY >= RADIUS && nextY <= room.getHeight() - RADIUS;
+            if (!insideX || !insideY) {
+                reportContact(room, ContactKind.CONTROLLED_WALL, -1);
+            }
+            if (insideX) {
                 position.setX(nextX);
             }
-            if (nextY >= RADIUS && nextY <= room.getHeight() - RADIUS) {
+            if (insideY) {
                 position.setY(nextY);
             }
         }
@@ -107,8 +136,19 @@ public class ControlledRobot {
         updatePosition();
     }
 
+    /**
+     * Reports a contact at the current position to the collision listeners of the room.
+     */
+    private void reportContact(Room room, ContactKind kind, int otherId) {
+        if (room.hasCollisionListeners()) {
+            room.reportContact(kind, id, otherId, position.getX(), position.getY());
+        }
+    }
 
     private void updatePosition() {
+        if (shape == null) {
+            return;
+        }
         // Update robot's position
         shape.setCenterX(position.getX());
         shape.setCenterY(position.getY());
@@ -120,46 +160,150 @@ public class ControlledRobot {
      * @return The Circle representing the robot's shape.
      */
     public Circle getShape() {
+        if (shape == null) {
+            shape = new Circle(RADIUS);
+            shape.setFill(Color.PURPLE);
+            updatePosition();
+        }
         return shape;
     }
 
     /**
-     * Handles key press events.
+     * Handles key press events by queueing the input, held keys repeating their press are queued once.
      *
      * @param event The KeyEvent representing the key press event.
      */
     public void keyPressed(KeyEvent event) {
-        KeyCode code = event.getCode();
-        if (code == KeyCode.W) {
-            wPressed = true;
-        } else if (code == KeyCode.A) {
-            aPressed = true;
-        } else if (code == KeyCode.S) {
-            sPressed = true;
-        } else if (code == KeyCode.D) {
-            dPressed = true;
-        }
+        queueKey(event.getCode(), true);
     }
 
     /**
-     * Handles key release events.
+     * Handles key release events by queueing the input.
      *
      * @param event The KeyEvent representing the key release event.
      */
     public void keyReleased(KeyEvent event) {
-        KeyCode code = event.getCode();
+        queueKey(event.getCode(), false);
+    }
+
+    private void queueKey(KeyCode code, boolean pressed) {
+        ControlInput input = toInput(code);
+        if (input != null && keyState[input.ordinal()] != pressed && inputQueue.offer(input, pressed)) {
+            keyState[input.ordinal()] = pressed;
+        }
+    }
+
+    /**
+     * Maps a key to the input it is bound to.
+     *
+     * @param code The key.
+     * @return The input bound to the key, or null if the key is not bound.
+     */
+    public static ControlInput toInput(KeyCode code) {
         if (code == KeyCode.W) {
-            wPressed = false;
+            return ControlInput.FORWARD;
         } else if (code == KeyCode.A) {
-            aPressed = false;
+            return ControlInput.TURN_LEFT;
         } else if (code == KeyCode.S) {
-            sPressed = false;
+            return ControlInput.BACKWARD;
         } else if (code == KeyCode.D) {
-            dPressed = false;
+            return ControlInput.TURN_RIGHT;
+        }
+        return null;
+    }
+
+    /**
+     * Applies the commands waiting in the input queue, at most one queue full. Called by the tick thread at the start
+     * of a tick, the applied commands stay available until the next call.
+     *
+     * @return The number of commands applied.
+     */
+    public int applyQueuedInputs() {
+        appliedCount = 0;
+        while (appliedCount < appliedStamps.length && inputQueue.poll()) {
+            setInput(inputQueue.getInput(), inputQueue.isPressed());
+            appliedInputs[appliedCount] = inputQueue.getInput();
+            appliedPressed[appliedCount] = inputQueue.isPressed();
+            appliedStamps[appliedCount++] = inputQueue.getStamp();
+        }
+        return appliedCount;
+    }
+
+    /**
+     * @return The number of commands applied by the last {@link #applyQueuedInputs()}.
+     */
+    public int getAppliedInputCount() {
+        return appliedCount;
+    }
+
+    /**
+     * @param index The index of a command applied by the last {@link #applyQueuedInputs()}.
+     * @return The input of the command.
+     */
+    public ControlInput getAppliedInput(int index) {
+        return appliedInputs[index];
+    }
+
+    /**
+     * @param index The index of a command applied by the last {@link #applyQueuedInputs()}.
+     * @return True if the command held its input down, false if it released it.
+     */
+    public boolean isAppliedInputPressed(int index) {
+        return appliedPressed[index];
+    }
+
+    /**
+     * @param index The index of a command applied by the last {@link #applyQueuedInputs()}.
+     * @return The {@link System#nanoTime()} at which the command was offered.
+     */
+    public long getAppliedInputStamp(int index) {
+        return appliedStamps[index];
+    }
+
+    /**
+     * Retrieves the queue other threads send input commands through, like operator stations.
+     *
+     * @return The input queue.
+     */
+    public InputQueue getInputQueue() {
+        return inputQueue;
+    }
+
+    /**
+     * Holds down or releases an input, like pressing or releasing its key. Called on the tick thread, other threads
+     * offer commands to the input queue instead.
+     *
+     * @param input   The input.
+     * @param pressed True to hold the input down, false to release it.
+     */
+    public void setInput(ControlInput input, boolean pressed) {
+        switch (input) {
+            case FORWARD -> wPressed = pressed;
+            case TURN_LEFT -> aPressed = pressed;
+            case BACKWARD -> sPressed = pressed;
+            case TURN_RIGHT -> dPressed = pressed;
         }
     }
 
+    /**
+     * Checks if an input is held down.
+     *
+     * @param input The input.
+     * @return True if the input is held down.
+     */
+    public boolean isInputActive(ControlInput input) {
+        return switch (input) {
+            case FORWARD -> wPressed;
+            case TURN_LEFT -> aPressed;
+            case BACKWARD -> sPressed;
+            case TURN_RIGHT -> dPressed;
+        };
+    }
+
     private void updateDirectionLine() {
+        if (directionLine == null) {
+            return;
+        }
         double startX = position.getX(); // Start X is the robot's current X position
         double startY = position.getY(); // Start Y is the robot's current Y position
         double endX = position.getX() + Math.cos(Math.toRadians(angle)) * RADIUS * 1.5;
@@ -177,6 +321,10 @@ public class ControlledRobot {
      * @return The Line representing the direction.
      */
     public Line getDirectionLine() {
+        if (directionLine == null) {
+            directionLine = new Line();
+            updateDirectionLine();
+        }
         return directionLine;
     }
 
@@ -190,12 +338,17 @@ public class ControlledRobot {
     }
 
     /**
-     * Retrieves a string representation of the robot's position and angle.
+     * Retrieves the id of the robot, given by the room when the robot is added. Controlled robots are counted
+     * separately from auto robots, from 0 in the order they are added.
      *
-     * @return A string representing the robot's position and angle in the format "x y angle".
+     * @return The id, or -1 if the robot was never added to a room.
      */
-    public String getPositionAsString() {
-        return String.format("%.2f %.2f %.2f", position.getX(), position.getY(), getAngle());
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
     }
 
     /**
@@ -217,7 +370,7 @@ public class ControlledRobot {
     }
 
     /**
-     * Checks if the ControlledRobot collides with an Autorobot at the specified next position.
+     * Checks if the ControlledRobot collides with an Autorobot anywhere on its way to the specified next position.
      *
      * @param robot The Autorobot to check collision against.
      * @param nextX The x-coordinate of the next position of the ControlledRobot.
@@ -225,15 +378,12 @@ public class ControlledRobot {
      * @return True if the ControlledRobot collides with the specified Autorobot, false otherwise.
      */
     private boolean checkCollisionWithRobot(Autorobot robot, double nextX, double nextY) {
-        double dx = nextX - robot.getPosition().getX();
-        double dy = nextY - robot.getPosition().getY();
-        double distance = Math.sqrt(dx * dx + dy * dy);
-
-        return distance < (RADIUS + robot.getSize());
+        return Sweep.circle(position.getX(), position.getY(), nextX, nextY,
+                robot.getPosition().getX(), robot.getPosition().getY(), RADIUS + robot.getSize()) <= 1;
     }
 
     /**
-     * Checks if the ControlledRobot collides with an Obstacle at the specified next position.
+     * Checks if the ControlledRobot collides with an Obstacle anywhere on its way to the specified next position.
      *
      * @param obstacle The Obstacle to check collision against.
      * @param nextX The x-coordinate of the next position of the ControlledRobot.
@@ -241,7 +391,7 @@ public class ControlledRobot {
      * @return True if the ControlledRobot collides with the specified Obstacle, false otherwise.
      */
     private boolean checkCollisionWithObstacle(Obstacle obstacle, double nextX, double nextY) {
-        return obstacle.checkCollision(nextX, nextY, RADIUS);
+        return obstacle.sweepCollision(position.getX(), position.getY(), nextX, nextY, RADIUS) <= 1;
     }
 
 
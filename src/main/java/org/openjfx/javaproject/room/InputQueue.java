@@ -0,0 +1,131 @@
+package org.openjfx.javaproject.room;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded queue of input commands for a controlled robot, filled by any number of threads, like the application
+ * thread or the threads of remote operator stations, and emptied by the tick thread at the start of every tick.
+ * <p>
+ * The queue is a ring of primitive arrays with a sequence number per slot (after Dmitry Vyukov's bounded queue).
+ * Producers claim a slot with a compare-and-set on the tail and publish it by advancing its sequence, the consumer
+ * reads a slot once its sequence shows it is published. Neither side locks or allocates. Every command is stamped
+ * with {@link System#nanoTime()} when it is offered, so the engine can measure how long it took to move the robot.
+ * Commands offered to a full queue are dropped and counted.
+ */
+public class InputQueue {
+    private static final ControlInput[] INPUTS = ControlInput.values();
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final byte[] commands; // ordinal of the input, plus 0x80 when it is pressed
+    private final long[] stamps;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head = 0; // only touched by the consumer
+
+    private ControlInput input; // the command taken by the last poll
+    private boolean pressed;
+    private long stamp;
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity The number of commands the queue holds, rounded up to a power of two.
+     */
+    public InputQueue(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        commands = new byte[size];
+        stamps = new long[size];
+    }
+
+    /**
+     * Offers a command, from any thread.
+     *
+     * @param input   The input to hold down or release.
+     * @param pressed True to hold the input down, false to release it.
+     * @return True if the command was queued, false if the queue was full and the command was dropped.
+     */
+    public boolean offer(ControlInput input, boolean pressed) {
+        long now = System.nanoTime();
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    commands[slot] = (byte) (input.ordinal() | (pressed ? 0x80 : 0));
+                    stamps[slot] = now;
+                    sequences.lazySet(slot, position + 1); // publishes the slot to the consumer
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get(); // another producer claimed the slot
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest command, which can then be read through {@link #getInput()}, {@link #isPressed()} and
+     * {@link #getStamp()}. Only called by the tick thread.
+     *
+     * @return True if a command was taken, false if the queue is empty.
+     */
+    public boolean poll() {
+        int slot = (int) (head & mask);
+        if (sequences.get(slot) != head + 1) {
+            return false;
+        }
+        int command = commands[slot] & 0xFF;
+        input = INPUTS[command & 0x7F];
+        pressed = (command & 0x80) != 0;
+        stamp = stamps[slot];
+        sequences.lazySet(slot, head + mask + 1); // hands the slot back to the producers
+        head++;
+        return true;
+    }
+
+    /**
+     * @return The input of the command taken by the last poll.
+     */
+    public ControlInput getInput() {
+        return input;
+    }
+
+    /**
+     * @return True if the command taken by the last poll holds its input down.
+     */
+    public boolean isPressed() {
+        return pressed;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which the command taken by the last poll was offered.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * @return The number of slots of the queue.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return The number of commands dropped because the queue was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
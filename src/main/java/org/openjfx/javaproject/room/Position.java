@@ -1,7 +1,5 @@
 package org.openjfx.javaproject.room;
 
-import java.util.Objects;
-
 public class Position {
     private double x;
     private double y;
@@ -79,7 +77,7 @@ public class Position {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * Double.hashCode(x) + Double.hashCode(y);
     }
 
     /**
@@ -90,8 +88,9 @@ public class Position {
      * @return True if this position is near the other position, false otherwise.
      */
     public boolean isNear(Position other, double threshold) {
-        double distance = Math.sqrt(Math.pow((x - other.x), 2) + Math.pow((y - other.y), 2));
-        return distance <= threshold;
+        double dx = x - other.x;
+        double dy = y - other.y;
+        return dx * dx + dy * dy <= threshold * threshold;
     }
 
 }
@@ -3,9 +3,11 @@ package org.openjfx.javaproject.room;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.common.Sweep;
 
 public class RectangleObstacle extends Obstacle {
-    private final Rectangle rectangle;
+    private final double size;
+    private Rectangle rectangle;
 
     /**
      * Constructs a RectangleObstacle with the specified position and size.
@@ -15,10 +17,7 @@ public class RectangleObstacle extends Obstacle {
      */
     public RectangleObstacle(Position position, double size) {
         super(position);
-        size *= 2;
-        // Adjust the position so the rectangle is created from the middle
-        rectangle = new Rectangle(position.getX() - size / 2, position.getY() - size / 2, size, size);
-        rectangle.setFill(Color.GRAY);
+        this.size = size * 2;
     }
 
     /**
@@ -28,6 +27,11 @@ public class RectangleObstacle extends Obstacle {
      */
     @Override
     public Rectangle getShape() {
+        if (rectangle == null) {
+            // Adjust the position so the rectangle is created from the middle
+            rectangle = new Rectangle(position.getX() - size / 2, position.getY() - size / 2, size, size);
+            rectangle.setFill(Color.GRAY);
+        }
         return rectangle;
     }
 
@@ -38,7 +42,7 @@ public class RectangleObstacle extends Obstacle {
      */
     @Override
     public double getSize() { //TODO: return correct value, not
-        return rectangle.getHeight();
+        return size;
     }
 
     /**
@@ -69,6 +73,25 @@ public class RectangleObstacle extends Obstacle {
         return x >= left && x <= right && y >= top && y <= bottom;
     }
 
+    /**
+     * Calculates when a circle moving along a segment first collides with this RectangleObstacle.
+     * Like {@link #checkCollision(double, double, double)}, the rectangle is grown by the radius on every side.
+     *
+     * @param fromX The x-coordinate of the circle's center at the start of the motion.
+     * @param fromY The y-coordinate of the circle's center at the start of the motion.
+     * @param toX The x-coordinate of the circle's center at the end of the motion.
+     * @param toY The y-coordinate of the circle's center at the end of the motion.
+     * @param radius The radius of the circle.
+     * @return The fraction of the motion before the collision, or {@link Sweep#NONE} if there is none.
+     */
+    @Override
+    public double sweepCollision(double fromX, double fromY, double toX, double toY, double radius) {
+        double halfSize = getSize() / 2;
+        return Sweep.box(fromX, fromY, toX, toY,
+                position.getX() - halfSize - radius, position.getY() - halfSize - radius,
+                position.getX() + halfSize + radius, position.getY() + halfSize + radius);
+    }
+
     /**
      * Calculates the angle from a given position to the nearest point on this RectangleObstacle.
      *
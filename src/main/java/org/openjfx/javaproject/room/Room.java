@@ -4,17 +4,33 @@ import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.common.SpatialGrid;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * A room with obstacles, auto robots and controlled robots.
+ * <p>
+ * The robots and obstacles create their JavaFX shapes on the first call to {@code getShape}, and only the
+ * window asks for them. A room simulated without a window therefore never starts JavaFX.
+ */
 public class Room {
+    private static final double INDEX_CELL_SIZE = 200; // cell size of the spatial index of obstacles
+
     private final double width;
     private final double height;
     private final List<Obstacle> obstacles; // List of obstacles
+    private final SpatialGrid<Obstacle> obstacleIndex = new SpatialGrid<>(INDEX_CELL_SIZE);
+    private long obstacleVersion = 0; // increased whenever obstacles are added or removed
 
     private final List<Autorobot> robots;
-    public ControlledRobot controlledRobot;
+    private final List<ControlledRobot> controlledRobots = new ArrayList<>();
+    private CollisionListener[] collisionListeners = new CollisionListener[0];
+    private int nextRobotId = 0;
+    private int nextControlledRobotId = 0;
 
     /**
      * Constructs a Room object with the specified width and height.
@@ -73,6 +89,104 @@ public class Room {
      */
     public void addObstacle(Obstacle obstacle) {
         obstacles.add(obstacle);
+        obstacleVersion++;
+        obstacleIndex.add(obstacle, obstacle.getPosition().getX(), obstacle.getPosition().getY(), obstacle.getSize());
+    }
+
+    /**
+     * Removes an obstacle from the room.
+     *
+     * @param obstacle The obstacle to remove.
+     * @return True if the obstacle was in the room, false otherwise.
+     */
+    public boolean removeObstacle(Obstacle obstacle) {
+        obstacleIndex.remove(obstacle, obstacle.getPosition().getX(), obstacle.getPosition().getY());
+        obstacleVersion++;
+        return obstacles.remove(obstacle);
+    }
+
+    /**
+     * Adds a listener notified when robots run into something, for example to collect traffic statistics.
+     *
+     * @param listener The listener to add.
+     */
+    public void addCollisionListener(CollisionListener listener) {
+        CollisionListener[] listeners = Arrays.copyOf(collisionListeners, collisionListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        collisionListeners = listeners;
+    }
+
+    /**
+     * Removes a listener added with {@link #addCollisionListener(CollisionListener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeCollisionListener(CollisionListener listener) {
+        for (int i = 0; i < collisionListeners.length; i++) {
+            if (collisionListeners[i] == listener) {
+                CollisionListener[] listeners = new CollisionListener[collisionListeners.length - 1];
+                System.arraycopy(collisionListeners, 0, listeners, 0, i);
+                System.arraycopy(collisionListeners, i + 1, listeners, i, listeners.length - i);
+                collisionListeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks if anything listens for collisions, so robots can skip preparing reports nobody receives.
+     *
+     * @return True if at least one collision listener is added, false otherwise.
+     */
+    public boolean hasCollisionListeners() {
+        return collisionListeners.length > 0;
+    }
+
+    /**
+     * Notifies the collision listeners that an auto robot turned away from something in its way.
+     *
+     * @param robot   The robot.
+     * @param blocked True if the robot could not move at all.
+     */
+    void reportCollision(Autorobot robot, boolean blocked) {
+        CollisionListener[] listeners = collisionListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].collided(robot, blocked);
+        }
+    }
+
+    /**
+     * Notifies the collision listeners of a contact, see {@link CollisionListener#contact}.
+     */
+    void reportContact(ContactKind kind, int robotId, int otherId, double x, double y) {
+        CollisionListener[] listeners = collisionListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].contact(kind, robotId, otherId, x, y);
+        }
+    }
+
+    /**
+     * Retrieves a number that changes whenever obstacles are added or removed.
+     * Lets anything derived from the obstacles, like navigation data, notice that it is outdated.
+     *
+     * @return The version of the obstacles.
+     */
+    public long getObstacleVersion() {
+        return obstacleVersion;
+    }
+
+    /**
+     * Visits the obstacles that may overlap the given rectangle, found through a spatial index.
+     * Obstacles close to the rectangle may be visited as well.
+     *
+     * @param left    The left edge of the rectangle.
+     * @param top     The top edge of the rectangle.
+     * @param right   The right edge of the rectangle.
+     * @param bottom  The bottom edge of the rectangle.
+     * @param visitor Called once for every obstacle found.
+     */
+    public void queryObstacles(double left, double top, double right, double bottom, Consumer<Obstacle> visitor) {
+        obstacleIndex.query(left, top, right, bottom, visitor);
     }
 
     /**
@@ -85,16 +199,28 @@ public class Room {
     }
 
     /**
-     * Adds an autorobot to the room.
+     * Adds an autorobot to the room and gives it the next robot id of the room.
      *
      * @param robot The autorobot to add.
      */
     public void addRobot(Autorobot robot) {
-        if (!this.robots.contains(robot)) {
+        // robots get their id when they are added, so a robot without one cannot be in the list yet
+        if (robot.getId() < 0 || !this.robots.contains(robot)) {
             this.robots.add(robot);
+            robot.setId(nextRobotId++);
         }
     }
 
+    /**
+     * Removes an autorobot from the room.
+     *
+     * @param robot The autorobot to remove.
+     * @return True if the autorobot was in the room, false otherwise.
+     */
+    public boolean removeRobot(Autorobot robot) {
+        return this.robots.remove(robot);
+    }
+
     /**
      * Retrieves the list of autorobots in the room.
      *
@@ -114,25 +240,44 @@ public class Room {
     /**
      * Checks if a controlled robot is set in the room.
      *
-     * @return True if a controlled robot is set, false otherwise.
+     * @return True if at least one controlled robot is set, false otherwise.
      */
     public boolean isControlledRobotSet(){
-        return this.controlledRobot != null;
+        return !this.controlledRobots.isEmpty();
     }
 
     /**
-     * Adds a controlled robot to the room.
+     * Adds a controlled robot to the room and gives it the next controlled robot id of the room.
      *
      * @param controlledRobot The controlled robot to add.
-     * @return True if the controlled robot is added successfully, false otherwise.
+     * @return True if the controlled robot is added successfully, false if it already is in the room.
      */
     public boolean addControlledRobot(ControlledRobot controlledRobot) {
-        if (this.controlledRobot == null) {
-            this.controlledRobot = controlledRobot;
-            return true;
-        } else {
+        if (this.controlledRobots.contains(controlledRobot)) {
             return false;
         }
+        this.controlledRobots.add(controlledRobot);
+        controlledRobot.setId(nextControlledRobotId++);
+        return true;
+    }
+
+    /**
+     * Removes a controlled robot from the room.
+     *
+     * @param controlledRobot The controlled robot to remove.
+     * @return True if the controlled robot was in the room, false otherwise.
+     */
+    public boolean removeControlledRobot(ControlledRobot controlledRobot) {
+        return this.controlledRobots.remove(controlledRobot);
+    }
+
+    /**
+     * Retrieves the controlled robots in the room, in the order they were added.
+     *
+     * @return The list of controlled robots.
+     */
+    public List<ControlledRobot> getControlledRobots() {
+        return controlledRobots;
     }
 
     /**
@@ -143,37 +288,59 @@ public class Room {
      * @return True if a robot can be created at the specified position, false otherwise.
      */
     public boolean canCreate(Position position, double radius){
-        // check boundary collisions
-        double x = position.getX();
-        double y = position.getY();
-        if(x - radius < 0 || x + radius > width ||
-           y - radius < 0 || y + radius > height) {
+        if (!isFree(position, radius)) {
             return false;
         }
 
         // loop through robots
-        for (Autorobot robot : robots) {
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
             if (position.isNear(robot.getPosition(), radius + robot.getSize())) {
                 return false;
             }
         }
-        // loop through obstacles
-        for (Obstacle obstacle : obstacles) {
-            if (obstacle.checkCollision(position.getX(), position.getY(), radius)) {
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot robot = controlledRobots.get(i);
+            if (position.isNear(robot.getPosition(), radius + robot.getSize())) {
                 return false;
             }
         }
-
         return true;
     }
 
     /**
-     * Retrieves the controlled robot in the room.
+     * Checks if a circle lies inside the room without touching an obstacle, regardless of the robots.
+     *
+     * @param position The center of the circle.
+     * @param radius   The radius of the circle.
+     * @return True if the circle is inside the room and clear of obstacles, false otherwise.
+     */
+    public boolean isFree(Position position, double radius) {
+        // check boundary collisions
+        double x = position.getX();
+        double y = position.getY();
+        if(x - radius < 0 || x + radius > width ||
+           y - radius < 0 || y + radius > height) {
+            return false;
+        }
+
+        // check the obstacles near the position
+        boolean[] blocked = {false};
+        obstacleIndex.query(x - radius, y - radius, x + radius, y + radius, obstacle -> {
+            if (!blocked[0] && obstacle.checkCollision(x, y, radius)) {
+                blocked[0] = true;
+            }
+        });
+        return !blocked[0];
+    }
+
+    /**
+     * Retrieves the first controlled robot in the room, the one driven by the keyboard.
      *
-     * @return The controlled robot in the room.
+     * @return The first controlled robot, or null if there is none.
      */
     public ControlledRobot getControlledRobot(){
-        return this.controlledRobot;
+        return this.controlledRobots.isEmpty() ? null : this.controlledRobots.get(0);
     }
 
     /**
@@ -182,6 +349,10 @@ public class Room {
     public void clearAll() {
         this.robots.clear();
         this.obstacles.clear();
-        this.controlledRobot = null;
+        this.obstacleIndex.clear();
+        this.obstacleVersion++;
+        this.nextRobotId = 0;
+        this.controlledRobots.clear();
+        this.nextControlledRobotId = 0;
     }
 }
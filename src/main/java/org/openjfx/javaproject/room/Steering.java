@@ -0,0 +1,15 @@
+package org.openjfx.javaproject.room;
+
+/**
+ * Chooses the heading of an auto robot, for example to make it travel to a goal instead of wandering.
+ */
+public interface Steering {
+    /**
+     * Chooses the heading of the robot for the coming update.
+     *
+     * @param robot The robot to steer.
+     * @param room  The room in which the robot moves.
+     * @return The angle (in radians) the robot should face, or NaN to keep its current heading.
+     */
+    double steer(Autorobot robot, Room room);
+}
@@ -0,0 +1,328 @@
+package org.openjfx.javaproject.shard;
+
+import org.openjfx.javaproject.Log;
+import org.openjfx.javaproject.common.ConfigParser;
+import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.CircleObstacle;
+import org.openjfx.javaproject.room.Room;
+import org.openjfx.javaproject.shard.ShardProtocol.RobotState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a scene split into vertical strips, each simulated by a separate worker process on this host.
+ * Spreading the robots over several JVMs keeps every heap small and lets their garbage collectors work
+ * independently.
+ * <p>
+ * The coordinator is the tick barrier: it sends a tick to every worker and waits for all of them to answer
+ * before the next one. Each answer holds the robots that left the strip, which are passed to the shard
+ * they moved into, and the robots near the strip borders, which are sent to the neighbouring shards as
+ * ghosts for the next tick. When recording, workers also report all their robots and the coordinator merges
+ * them into a single log in the format written by the simulation engine.
+ * <p>
+ * Controlled robots are not supported in sharded runs and are ignored.
+ */
+public class ShardCoordinator {
+    private static final double TICK_TIME = 1.0 / 60;
+
+    private String configFile = "config.json";
+    private int shardCount = 2;
+    private int ticks = 10_000;
+    private String logFile = null;
+    private String workerHeap = null;
+
+    private Room room;
+    private double[] lefts;
+    private double[] rights;
+    private Process[] processes;
+    private DataInputStream[] inputs;
+    private DataOutputStream[] outputs;
+    private List<List<RobotState>> immigrants;
+    private List<List<RobotState>> ghosts;
+
+    /**
+     * Runs a sharded simulation.
+     *
+     * @param args Command line arguments: [--config file] [--shards n] [--ticks n] [--log file] [--worker-heap size]
+     */
+    public static void main(String[] args) {
+        ShardCoordinator coordinator = new ShardCoordinator();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--config" -> coordinator.configFile = args[++i];
+                case "--shards" -> coordinator.shardCount = Integer.parseInt(args[++i]);
+                case "--ticks" -> coordinator.ticks = Integer.parseInt(args[++i]);
+                case "--log" -> coordinator.logFile = args[++i];
+                case "--worker-heap" -> coordinator.workerHeap = args[++i];
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        try {
+            coordinator.run();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts the workers, runs all ticks and shuts the workers down.
+     *
+     * @throws IOException If a worker could not be started or the connection to it failed.
+     */
+    public void run() throws IOException {
+        room = ConfigParser.parse(configFile);
+        if (room == null) {
+            throw new IOException("Scene could not be parsed: " + configFile);
+        }
+        if (room.isControlledRobotSet()) {
+            System.out.println("Controlled robots are not simulated in sharded runs.");
+        }
+        split();
+
+        try (ServerSocket server = new ServerSocket(0, shardCount, InetAddress.getLoopbackAddress())) {
+            startWorkers(server.getLocalPort());
+            for (int i = 0; i < shardCount; i++) {
+                accept(server.accept());
+            }
+            for (int shard = 0; shard < shardCount; shard++) {
+                sendInit(shard);
+            }
+
+            Log log = null;
+            double[] states = null;
+            if (logFile != null) {
+                log = new Log();
+                log.initLogs(logFile);
+                states = new double[room.getRobots().size() * 3];
+            }
+
+            long start = System.nanoTime();
+            for (int step = 0; step < ticks; step++) {
+                tick(states);
+                if (log != null) {
+                    log.recordStep(step, states, states.length / 3);
+                    if (log.isFull()) {
+                        log.bufferOut(logFile);
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (log != null) {
+                log.bufferOut(logFile);
+            }
+            System.out.printf("%d ticks of %d robots on %d shards: %.1f ticks/s%n",
+                    ticks, room.getRobots().size(), shardCount, ticks * 1_000_000_000.0 / elapsed);
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Splits the room into strips of equal width and assigns every robot to the strip holding its center.
+     * Robot ids are their indices in the config file, which keeps the merged log in the original order.
+     */
+    private void split() {
+        lefts = new double[shardCount];
+        rights = new double[shardCount];
+        immigrants = new ArrayList<>();
+        ghosts = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            lefts[shard] = room.getWidth() * shard / shardCount;
+            rights[shard] = room.getWidth() * (shard + 1) / shardCount;
+            immigrants.add(new ArrayList<>());
+            ghosts.add(new ArrayList<>());
+        }
+        rights[shardCount - 1] = Double.POSITIVE_INFINITY; // the last strip also owns robots on the right wall
+
+        List<Autorobot> robots = room.getRobots();
+        for (int id = 0; id < robots.size(); id++) {
+            Autorobot robot = robots.get(id);
+            RobotState state = new RobotState(id, robot.getPosition().getX(), robot.getPosition().getY(), robot.getAngle(),
+                    robot.getRandomState());
+            immigrants.get(shardOf(state.x())).add(state);
+        }
+    }
+
+    private int shardOf(double x) {
+        int shard = (int) (x / room.getWidth() * shardCount);
+        return Math.max(0, Math.min(shardCount - 1, shard));
+    }
+
+    /**
+     * Launches the workers with the same Java runtime and module or class path as this process.
+     */
+    private void startWorkers(int port) throws IOException {
+        processes = new Process[shardCount];
+        inputs = new DataInputStream[shardCount];
+        outputs = new DataOutputStream[shardCount];
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String modulePath = System.getProperty("jdk.module.path");
+        for (int shard = 0; shard < shardCount; shard++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            if (workerHeap != null) {
+                command.add("-Xmx" + workerHeap);
+            }
+            if (modulePath != null) {
+                command.add("--module-path");
+                command.add(modulePath);
+                command.add("--module");
+                command.add("org.openjfx.javaproject/" + ShardWorker.class.getName());
+            } else {
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(ShardWorker.class.getName());
+            }
+            command.add(Integer.toString(port));
+            command.add(Integer.toString(shard));
+            processes[shard] = new ProcessBuilder(command).inheritIO().start();
+        }
+    }
+
+    private void accept(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        ShardProtocol.expect(in, ShardProtocol.HELLO);
+        int shard = in.readInt();
+        inputs[shard] = in;
+        outputs[shard] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Sends a worker the room, the obstacles reaching into its strip or halo, and its robots.
+     */
+    private void sendInit(int shard) throws IOException {
+        DataOutputStream out = outputs[shard];
+        double reachLeft = lefts[shard] - ShardProtocol.HALO;
+        double reachRight = rights[shard] + ShardProtocol.HALO;
+
+        List<Obstacle> obstacles = new ArrayList<>();
+        room.queryObstacles(reachLeft, 0, Math.min(reachRight, room.getWidth()), room.getHeight(), obstacles::add);
+
+        out.writeByte(ShardProtocol.INIT);
+        out.writeDouble(room.getWidth());
+        out.writeDouble(room.getHeight());
+        out.writeDouble(lefts[shard]);
+        out.writeDouble(rights[shard]);
+        out.writeDouble(ShardProtocol.HALO);
+        out.writeInt(obstacles.size());
+        for (Obstacle obstacle : obstacles) {
+            boolean circle = obstacle instanceof CircleObstacle;
+            out.writeByte(circle ? ShardProtocol.CIRCLE : ShardProtocol.RECTANGLE);
+            out.writeDouble(obstacle.getPosition().getX());
+            out.writeDouble(obstacle.getPosition().getY());
+            out.writeDouble(circle ? obstacle.getSize() : obstacle.getSize() / 2);
+        }
+        ShardProtocol.writeRobots(out, immigrants.get(shard));
+        out.flush();
+        immigrants.get(shard).clear();
+    }
+
+    /**
+     * Runs one tick on all workers and routes migrating robots and ghosts for the next one.
+     *
+     * @param states If not null, filled with the state of every robot after the tick.
+     */
+    private void tick(double[] states) throws IOException {
+        for (int shard = 0; shard < shardCount; shard++) {
+            DataOutputStream out = outputs[shard];
+            out.writeByte(ShardProtocol.TICK);
+            out.writeDouble(TICK_TIME);
+            out.writeBoolean(states != null);
+            ShardProtocol.writeRobots(out, immigrants.get(shard));
+            ShardProtocol.writeRobots(out, ghosts.get(shard));
+            out.flush();
+            immigrants.get(shard).clear();
+            ghosts.get(shard).clear();
+        }
+
+        List<RobotState> received = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            DataInputStream in = inputs[shard];
+            ShardProtocol.expect(in, ShardProtocol.STEP);
+
+            received.clear();
+            ShardProtocol.readRobots(in, in.readInt(), received);
+            for (RobotState robot : received) {
+                int owner = shardOf(robot.x());
+                immigrants.get(owner).add(robot);
+                addGhost(robot, owner);
+                storeState(robot, states);
+            }
+
+            received.clear();
+            ShardProtocol.readRobots(in, in.readInt(), received);
+            for (RobotState robot : received) {
+                addGhost(robot, shard);
+            }
+
+            int owned = in.readInt();
+            if (owned >= 0) {
+                received.clear();
+                ShardProtocol.readRobots(in, owned, received);
+                for (RobotState robot : received) {
+                    storeState(robot, states);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends a robot as a ghost to the neighbours of its shard whose halo it is in.
+     */
+    private void addGhost(RobotState robot, int owner) {
+        for (int neighbour = owner - 1; neighbour <= owner + 1; neighbour += 2) {
+            if (neighbour >= 0 && neighbour < shardCount
+                    && robot.x() >= lefts[neighbour] - ShardProtocol.HALO
+                    && robot.x() < rights[neighbour] + ShardProtocol.HALO) {
+                ghosts.get(neighbour).add(robot);
+            }
+        }
+    }
+
+    private static void storeState(RobotState robot, double[] states) {
+        if (states != null) {
+            states[robot.id() * 3] = robot.x();
+            states[robot.id() * 3 + 1] = robot.y();
+            states[robot.id() * 3 + 2] = robot.angle();
+        }
+    }
+
+    private void shutdown() {
+        if (outputs != null) {
+            for (DataOutputStream out : outputs) {
+                if (out != null) {
+                    try {
+                        out.writeByte(ShardProtocol.SHUTDOWN);
+                        out.flush();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        if (processes != null) {
+            for (Process process : processes) {
+                if (process != null) {
+                    try {
+                        process.waitFor();
+                    } catch (InterruptedException e) {
+                        process.destroy();
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.openjfx.javaproject.shard;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The binary protocol between the shard coordinator and its workers.
+ * Messages are a tag byte followed by big-endian fields. A robot is sent as int id, double x, y, angle and
+ * long random, the state of its random sequence.
+ * <pre>
+ * worker -&gt; coordinator  HELLO    int shard
+ * coordinator -&gt; worker  INIT     double width, height, left, right, halo
+ *                                  int obstacles, per obstacle: byte type, double x, y, size
+ *                                  int robots, robots
+ * coordinator -&gt; worker  TICK     double deltaTime, boolean report, int immigrants, robots, int ghosts, robots
+ * worker -&gt; coordinator  STEP     int emigrants, robots, int border robots, robots, int owned (-1 if not reported), robots
+ * coordinator -&gt; worker  SHUTDOWN
+ * </pre>
+ */
+final class ShardProtocol {
+    static final byte HELLO = 1;
+    static final byte INIT = 2;
+    static final byte TICK = 3;
+    static final byte STEP = 4;
+    static final byte SHUTDOWN = 5;
+
+    static final byte CIRCLE = 0;
+    static final byte RECTANGLE = 1;
+
+    /**
+     * Width of the band along a shard border in which robots are copied to the neighbouring shard as ghosts.
+     * It covers the reach of a robot collision check within one step.
+     */
+    static final double HALO = 100;
+
+    /**
+     * State of a robot as it travels between processes.
+     *
+     * @param id     The id of the robot, unique across all shards.
+     * @param x      The x-coordinate of the robot.
+     * @param y      The y-coordinate of the robot.
+     * @param angle  The angle the robot is facing, in radians.
+     * @param random The state of the robot's own random sequence, so it carries on where it left off.
+     */
+    record RobotState(int id, double x, double y, double angle, long random) {
+    }
+
+    private ShardProtocol() {
+    }
+
+    static void writeRobots(DataOutputStream out, List<RobotState> robots) throws IOException {
+        out.writeInt(robots.size());
+        for (int i = 0; i < robots.size(); i++) {
+            RobotState robot = robots.get(i);
+            out.writeInt(robot.id());
+            out.writeDouble(robot.x());
+            out.writeDouble(robot.y());
+            out.writeDouble(robot.angle());
+            out.writeLong(robot.random());
+        }
+    }
+
+    /**
+     * Reads a list of robots written by {@link #writeRobots(DataOutputStream, List)}.
+     *
+     * @param in    The stream to read from.
+     * @param count The number of robots, already read from the stream.
+     * @param into  The list the robots are added to.
+     */
+    static void readRobots(DataInputStream in, int count, List<RobotState> into) throws IOException {
+        for (int i = 0; i < count; i++) {
+            into.add(new RobotState(in.readInt(), in.readDouble(), in.readDouble(), in.readDouble(), in.readLong()));
+        }
+    }
+
+    static void expect(DataInputStream in, byte tag) throws IOException {
+        byte read = in.readByte();
+        if (read != tag) {
+            throw new IOException("Unexpected message " + read + ", expected " + tag);
+        }
+    }
+}
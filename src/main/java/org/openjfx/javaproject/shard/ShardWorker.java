@@ -0,0 +1,198 @@
+package org.openjfx.javaproject.shard;
+
+import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.CircleObstacle;
+import org.openjfx.javaproject.room.Position;
+import org.openjfx.javaproject.room.RectangleObstacle;
+import org.openjfx.javaproject.room.Room;
+import org.openjfx.javaproject.shard.ShardProtocol.RobotState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A worker process simulating one vertical strip of the room.
+ * It owns the robots whose center lies in its strip and updates only those. Robots of neighbouring shards
+ * near the border are present as ghosts, so robots on both sides of a border see each other, but ghosts
+ * are never updated here. Robots leaving the strip are handed back to the coordinator, which passes them
+ * on to the shard they moved into.
+ */
+public class ShardWorker {
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    private Room room;
+    private double left;
+    private double right;
+    private double halo;
+
+    private final Map<Integer, Autorobot> owned = new LinkedHashMap<>();
+    private final Map<Integer, Autorobot> ghostPool = new HashMap<>();
+    private final List<Autorobot> ghosts = new ArrayList<>();
+
+    private final List<RobotState> immigrants = new ArrayList<>();
+    private final List<RobotState> ghostStates = new ArrayList<>();
+    private final List<RobotState> emigrants = new ArrayList<>();
+    private final List<RobotState> border = new ArrayList<>();
+    private final List<RobotState> report = new ArrayList<>();
+
+    private ShardWorker(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Connects to the coordinator and simulates the assigned shard until it is shut down.
+     *
+     * @param args Command line arguments: port shard
+     */
+    public static void main(String[] args) {
+        int port = Integer.parseInt(args[0]);
+        int shard = Integer.parseInt(args[1]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            ShardWorker worker = new ShardWorker(socket);
+            worker.out.writeByte(ShardProtocol.HELLO);
+            worker.out.writeInt(shard);
+            worker.out.flush();
+            worker.run();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private void run() throws IOException {
+        init();
+        while (true) {
+            byte tag = in.readByte();
+            if (tag == ShardProtocol.SHUTDOWN) {
+                return;
+            }
+            if (tag != ShardProtocol.TICK) {
+                throw new IOException("Unexpected message " + tag);
+            }
+            tick();
+        }
+    }
+
+    private void init() throws IOException {
+        ShardProtocol.expect(in, ShardProtocol.INIT);
+        room = new Room(in.readDouble(), in.readDouble());
+        left = in.readDouble();
+        right = in.readDouble();
+        halo = in.readDouble();
+
+        int obstacles = in.readInt();
+        for (int i = 0; i < obstacles; i++) {
+            byte type = in.readByte();
+            Position position = new Position(in.readDouble(), in.readDouble());
+            double size = in.readDouble();
+            Obstacle obstacle = type == ShardProtocol.CIRCLE
+                    ? new CircleObstacle(position, size)
+                    : new RectangleObstacle(position, size);
+            room.addObstacle(obstacle);
+        }
+
+        immigrants.clear();
+        ShardProtocol.readRobots(in, in.readInt(), immigrants);
+        adopt(immigrants);
+    }
+
+    private void tick() throws IOException {
+        double deltaTime = in.readDouble();
+        boolean reportAll = in.readBoolean();
+        immigrants.clear();
+        ShardProtocol.readRobots(in, in.readInt(), immigrants);
+        ghostStates.clear();
+        ShardProtocol.readRobots(in, in.readInt(), ghostStates);
+
+        adopt(immigrants);
+        placeGhosts();
+
+        for (Autorobot robot : owned.values()) {
+            robot.update(room, deltaTime);
+        }
+
+        emigrants.clear();
+        border.clear();
+        report.clear();
+        Iterator<Map.Entry<Integer, Autorobot>> iterator = owned.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Autorobot> entry = iterator.next();
+            Autorobot robot = entry.getValue();
+            double x = robot.getPosition().getX();
+            RobotState state = new RobotState(entry.getKey(), x, robot.getPosition().getY(), robot.getAngle(),
+                    robot.getRandomState());
+            if (x < left || x >= right) {
+                emigrants.add(state);
+                iterator.remove();
+                continue;
+            }
+            if (x < left + halo || x >= right - halo) {
+                border.add(state);
+            }
+            if (reportAll) {
+                report.add(state);
+            }
+        }
+
+        out.writeByte(ShardProtocol.STEP);
+        ShardProtocol.writeRobots(out, emigrants);
+        ShardProtocol.writeRobots(out, border);
+        if (reportAll) {
+            ShardProtocol.writeRobots(out, report);
+        } else {
+            out.writeInt(-1);
+        }
+        out.flush();
+    }
+
+    private void adopt(List<RobotState> states) {
+        for (int i = 0; i < states.size(); i++) {
+            RobotState state = states.get(i);
+            owned.put(state.id(), Autorobot.restore(new Position(state.x(), state.y()), state.angle(), state.random()));
+        }
+    }
+
+    /**
+     * Moves the ghost copies of neighbouring robots to their latest states and rebuilds the robots of the room
+     * from the owned robots and the ghosts.
+     */
+    private void placeGhosts() {
+        ghosts.clear();
+        for (int i = 0; i < ghostStates.size(); i++) {
+            RobotState state = ghostStates.get(i);
+            Autorobot ghost = ghostPool.get(state.id());
+            if (ghost == null) {
+                ghost = Autorobot.restore(new Position(state.x(), state.y()), state.angle());
+                ghostPool.put(state.id(), ghost);
+            } else {
+                ghost.moveTo(state.x(), state.y());
+                ghost.setAngle(state.angle());
+            }
+            ghosts.add(ghost);
+        }
+        if (ghostPool.size() > 2 * ghosts.size() + 64) {
+            ghostPool.values().retainAll(new HashSet<>(ghosts));
+        }
+
+        List<Autorobot> robots = room.getRobots();
+        robots.clear();
+        robots.addAll(owned.values());
+        robots.addAll(ghosts);
+    }
+}
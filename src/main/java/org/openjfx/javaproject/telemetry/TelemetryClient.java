@@ -0,0 +1,251 @@
+package org.openjfx.javaproject.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Connects to a {@link TelemetryServer} on the same host and keeps the robots of the subscribed region up to date.
+ */
+public class TelemetryClient implements AutoCloseable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final double width;
+    private final double height;
+
+    private long tick;
+    private double time;
+    private int coalescedTicks;
+    private int robotCount;
+    private float tickRate;
+    private float tickLatency;
+    private int entryCount;
+
+    // latest state of the robots in the region, by id
+    private boolean[] present = new boolean[0];
+    private float[] states = new float[0];
+    private int presentCount = 0;
+
+    /**
+     * Connects to a server and reads its greeting.
+     *
+     * @param port The port of the server on the loopback interface.
+     * @throws IOException If the server could not be reached.
+     */
+    public TelemetryClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        this.out = new DataOutputStream(socket.getOutputStream());
+        if (in.readByte() != TelemetryProtocol.HELLO) {
+            socket.close();
+            throw new IOException("Not a telemetry server on port " + port);
+        }
+        this.width = in.readDouble();
+        this.height = in.readDouble();
+    }
+
+    /**
+     * Asks for the robots in a region at a frame rate, replacing the previous subscription.
+     *
+     * @param left   The left edge of the region.
+     * @param top    The top edge of the region.
+     * @param right  The right edge of the region.
+     * @param bottom The bottom edge of the region.
+     * @param rate   The frames per second, or 0 for a frame every tick.
+     * @throws IOException If the request could not be sent.
+     */
+    public void subscribe(double left, double top, double right, double bottom, double rate) throws IOException {
+        out.writeByte(TelemetryProtocol.SUBSCRIBE);
+        out.writeFloat((float) left);
+        out.writeFloat((float) top);
+        out.writeFloat((float) right);
+        out.writeFloat((float) bottom);
+        out.writeFloat((float) rate);
+        out.flush();
+    }
+
+    /**
+     * Waits for the next frame and applies it.
+     *
+     * @throws IOException If the connection failed or was closed by the server.
+     */
+    public void readFrame() throws IOException {
+        byte tag = in.readByte();
+        if (tag != TelemetryProtocol.FRAME) {
+            throw new IOException("Unexpected message " + tag);
+        }
+        tick = in.readLong();
+        time = in.readDouble();
+        coalescedTicks = in.readInt();
+        robotCount = in.readInt();
+        tickRate = in.readFloat();
+        tickLatency = in.readFloat();
+        entryCount = in.readInt();
+        for (int i = 0; i < entryCount; i++) {
+            int id = in.readInt();
+            float x = in.readFloat();
+            float y = in.readFloat();
+            float angle = in.readFloat();
+            boolean left = (in.readByte() & TelemetryProtocol.LEFT_REGION) != 0;
+            if (id >= present.length) {
+                int length = Math.max(id + 1, present.length * 2);
+                present = Arrays.copyOf(present, length);
+                states = Arrays.copyOf(states, length * 3);
+            }
+            if (present[id] == left) {
+                presentCount += left ? -1 : 1;
+            }
+            present[id] = !left;
+            states[id * 3] = x;
+            states[id * 3 + 1] = y;
+            states[id * 3 + 2] = angle;
+        }
+    }
+
+    /**
+     * @return The width of the simulated room.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the simulated room.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The tick of the last frame.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The simulated time of the last frame, in seconds.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return The number of ticks the last frame covered.
+     */
+    public int getCoalescedTicks() {
+        return coalescedTicks;
+    }
+
+    /**
+     * @return The number of robots in the whole room.
+     */
+    public int getRobotCount() {
+        return robotCount;
+    }
+
+    /**
+     * @return The ticks per second of the simulation.
+     */
+    public float getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * @return The 99th percentile tick latency of the simulation, in microseconds.
+     */
+    public float getTickLatency() {
+        return tickLatency;
+    }
+
+    /**
+     * @return The number of robots sent in the last frame.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return The number of robots currently in the region.
+     */
+    public int getRegionRobotCount() {
+        return presentCount;
+    }
+
+    /**
+     * @param id The id of a robot.
+     * @return True if the robot is in the region.
+     */
+    public boolean isInRegion(int id) {
+        return id < present.length && present[id];
+    }
+
+    /**
+     * @param id The id of a robot in the region.
+     * @return The x-coordinate of the robot.
+     */
+    public float getX(int id) {
+        return states[id * 3];
+    }
+
+    /**
+     * @param id The id of a robot in the region.
+     * @return The y-coordinate of the robot.
+     */
+    public float getY(int id) {
+        return states[id * 3 + 1];
+    }
+
+    /**
+     * @param id The id of a robot in the region.
+     * @return The angle of the robot, in radians.
+     */
+    public float getAngle(int id) {
+        return states[id * 3 + 2];
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * Prints a line per frame received from a running simulation.
+     *
+     * @param args Command line arguments: [port] [--region left,top,right,bottom] [--rate fps] [--frames n]
+     */
+    public static void main(String[] args) {
+        int port = TelemetryServer.DEFAULT_PORT;
+        double[] region = null;
+        double rate = 10;
+        long frames = Long.MAX_VALUE;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--region" -> region = Arrays.stream(args[++i].split(",")).mapToDouble(Double::parseDouble).toArray();
+                case "--rate" -> rate = Double.parseDouble(args[++i]);
+                case "--frames" -> frames = Long.parseLong(args[++i]);
+                default -> port = Integer.parseInt(args[i]);
+            }
+        }
+        try (TelemetryClient client = new TelemetryClient(port)) {
+            if (region == null) {
+                region = new double[]{0, 0, client.getWidth(), client.getHeight()};
+            }
+            client.subscribe(region[0], region[1], region[2], region[3], rate);
+            for (long frame = 0; frame < frames; frame++) {
+                client.readFrame();
+                System.out.printf("tick %d, %.2f s, %d sent, %d in region of %d, %d ticks, %.0f ticks/s, p99 %.0f us%n",
+                        client.getTick(), client.getTime(), client.getEntryCount(), client.getRegionRobotCount(),
+                        client.getRobotCount(), client.getCoalescedTicks(), client.getTickRate(), client.getTickLatency());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.openjfx.javaproject.telemetry;
+
+/**
+ * The binary protocol between the telemetry server and its viewers.
+ * Messages are a tag byte followed by big-endian fields. Positions are sent as floats, which is precise
+ * to well below a pixel for any room size the simulator handles.
+ * <pre>
+ * server -&gt; viewer  HELLO      double width, height
+ * viewer -&gt; server  SUBSCRIBE  float left, top, right, bottom, float rate (frames per second, 0 for every tick)
+ * server -&gt; viewer  FRAME      long tick, double time, int coalesced ticks, int robots in the room,
+ *                              float tick rate, float 99th percentile tick latency (microseconds),
+ *                              int entries, per entry: int id, float x, float y, float angle, byte flags
+ * </pre>
+ * After every SUBSCRIBE, the next frame holds all robots in the region. Following frames only hold the robots
+ * that moved, including those that just left the region, which are flagged with {@link #LEFT_REGION}.
+ */
+final class TelemetryProtocol {
+    static final byte HELLO = 1;
+    static final byte SUBSCRIBE = 2;
+    static final byte FRAME = 3;
+
+    static final byte LEFT_REGION = 1;
+
+    static final int FRAME_HEADER_SIZE = 1 + Long.BYTES + Double.BYTES + 2 * Integer.BYTES + 2 * Float.BYTES + Integer.BYTES;
+    static final int ENTRY_SIZE = Integer.BYTES + 3 * Float.BYTES + 1;
+
+    private TelemetryProtocol() {
+    }
+}
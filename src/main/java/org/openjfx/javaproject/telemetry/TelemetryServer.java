@@ -0,0 +1,303 @@
+package org.openjfx.javaproject.telemetry;
+
+import org.openjfx.javaproject.engine.SimulationEngine;
+import org.openjfx.javaproject.engine.TickDelta;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streams the robots of a running simulation to viewers on the same host over TCP, see {@link TelemetryProtocol}.
+ * <p>
+ * Every viewer chooses a region of the room and a frame rate. It is fed by its own subscription to the
+ * {@link org.openjfx.javaproject.engine.TickPublisher} of the engine and only the robots in its region are encoded.
+ * The next delta is only requested once a frame has been written and the interval of the frame rate has passed,
+ * so a slow or throttled viewer receives coalesced frames and never holds up the simulation. Connections and
+ * deliveries run on virtual threads, a viewer blocked on the network costs no platform thread.
+ */
+public class TelemetryServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7070;
+    private static final int ACCEPT_BACKLOG = 1024; // room for hundreds of viewers connecting at once
+
+    private final SimulationEngine engine;
+    private final ServerSocket serverSocket;
+    private final Set<Viewer> viewers = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    private TelemetryServer(SimulationEngine engine, ServerSocket serverSocket) {
+        this.engine = engine;
+        this.serverSocket = serverSocket;
+    }
+
+    /**
+     * Starts accepting viewers on the loopback interface.
+     *
+     * @param engine The engine whose robots are streamed.
+     * @param port   The TCP port, or 0 for any free port.
+     * @return The running server, to be closed when the simulation ends.
+     * @throws IOException If the port could not be bound.
+     */
+    public static TelemetryServer start(SimulationEngine engine, int port) throws IOException {
+        ServerSocket serverSocket = new ServerSocket(port, ACCEPT_BACKLOG, InetAddress.getLoopbackAddress());
+        TelemetryServer server = new TelemetryServer(engine, serverSocket);
+        Thread.ofVirtual().name("telemetry-accept").start(server::accept);
+        return server;
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Viewer viewer = new Viewer(socket);
+                viewers.add(viewer);
+                Thread.ofVirtual().name("telemetry-viewer").start(viewer);
+            } catch (IOException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The number of connected viewers.
+     */
+    public int getViewerCount() {
+        return viewers.size();
+    }
+
+    /**
+     * Stops accepting viewers and disconnects all of them.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Viewer viewer : viewers) {
+            viewer.close();
+        }
+    }
+
+    /**
+     * A connected viewer. Its thread reads the commands of the viewer, frames are written by its current feed.
+     */
+    private class Viewer implements Runnable {
+        private final Socket socket;
+        private final ReentrantLock writeLock = new ReentrantLock(); // a replaced feed may still be writing
+        private OutputStream out;
+        private Feed feed;
+
+        private Viewer(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+                DataOutputStream hello = new DataOutputStream(out);
+                hello.writeByte(TelemetryProtocol.HELLO);
+                hello.writeDouble(engine.getRoom().getWidth());
+                hello.writeDouble(engine.getRoom().getHeight());
+                hello.flush();
+
+                while (true) {
+                    byte tag = in.readByte();
+                    if (tag != TelemetryProtocol.SUBSCRIBE) {
+                        throw new IOException("Unexpected message " + tag);
+                    }
+                    Feed next = new Feed(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+                    replaceFeed(next);
+                    engine.getTickPublisher().subscribe(next);
+                }
+            } catch (EOFException e) {
+                // the viewer disconnected
+            } catch (IOException e) {
+                if (running && !socket.isClosed()) {
+                    e.printStackTrace();
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void replaceFeed(Feed next) {
+            writeLock.lock();
+            try {
+                if (feed != null) {
+                    feed.stop();
+                }
+                feed = next;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void close() {
+            replaceFeed(null);
+            viewers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * One subscription of the viewer with the region and frame rate it asked for.
+         */
+        private class Feed implements Flow.Subscriber<TickDelta> {
+            private final float left;
+            private final float top;
+            private final float right;
+            private final float bottom;
+            private final long intervalNanos;
+            private volatile Flow.Subscription subscription;
+            private volatile boolean stopped = false;
+            private boolean[] inside = new boolean[0]; // robots in the region as of the last frame, by id
+            private ByteBuffer frame = ByteBuffer.allocate(1 << 12);
+            private long lastFrame = 0;
+
+            private Feed(float left, float top, float right, float bottom, float rate) {
+                this.left = left;
+                this.top = top;
+                this.right = right;
+                this.bottom = bottom;
+                this.intervalNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                if (stopped) {
+                    subscription.cancel();
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onNext(TickDelta delta) {
+                encode(delta);
+                writeLock.lock();
+                try {
+                    if (stopped) {
+                        return;
+                    }
+                    out.write(frame.array(), 0, frame.position());
+                    out.flush();
+                } catch (IOException e) {
+                    stopped = true;
+                    subscription.cancel();
+                    closeSocket();
+                    return;
+                } finally {
+                    writeLock.unlock();
+                }
+
+                long wait = lastFrame + intervalNanos - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                lastFrame = System.nanoTime();
+                subscription.request(1);
+            }
+
+            private void encode(TickDelta delta) {
+                int needed = TelemetryProtocol.FRAME_HEADER_SIZE + delta.size() * TelemetryProtocol.ENTRY_SIZE;
+                if (frame.capacity() < needed) {
+                    frame = ByteBuffer.allocate(Math.max(needed, frame.capacity() * 2));
+                }
+                frame.clear();
+                frame.put(TelemetryProtocol.FRAME);
+                frame.putLong(delta.getTick());
+                frame.putDouble(delta.getTime());
+                frame.putInt(delta.getCoalescedTicks());
+                frame.putInt(delta.getRobotCount());
+                frame.putFloat((float) engine.getTickRate());
+                frame.putFloat(engine.getTickLatency().getPercentile(0.99) / 1000f);
+                int countAt = frame.position();
+                frame.putInt(0);
+
+                int entries = 0;
+                for (int i = 0; i < delta.size(); i++) {
+                    int id = delta.getId(i);
+                    float x = (float) delta.getX(i);
+                    float y = (float) delta.getY(i);
+                    boolean now = x >= left && x <= right && y >= top && y <= bottom;
+                    if (id >= inside.length) {
+                        inside = Arrays.copyOf(inside, Math.max(id + 1, inside.length * 2));
+                    }
+                    if (!now && !inside[id]) {
+                        continue;
+                    }
+                    inside[id] = now;
+                    frame.putInt(id);
+                    frame.putFloat(x);
+                    frame.putFloat(y);
+                    frame.putFloat((float) delta.getAngle(i));
+                    frame.put(now ? 0 : TelemetryProtocol.LEFT_REGION);
+                    entries++;
+                }
+                frame.putInt(countAt, entries);
+            }
+
+            private void stop() {
+                stopped = true;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throwable.printStackTrace();
+                closeSocket();
+            }
+
+            @Override
+            public void onComplete() {
+                closeSocket();
+            }
+        }
+
+        private void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package org.openjfx.javaproject.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streams rows back out of a file written by {@link ColumnarWriter}.
+ * <p>
+ * Filters are ranges on columns. Chunks whose stored minimum and maximum cannot satisfy every filter are skipped
+ * without being decompressed, and of the remaining chunks only the selected and filtered columns are read.
+ * Columns that are not needed are passed to the handler as -1 for integers and NaN for numbers.
+ */
+public class ColumnarReader implements AutoCloseable {
+    private static final int COLUMN_COUNT = TrajectoryColumn.values().length;
+    private static final int CHUNK_HEADER_SIZE = Integer.BYTES + COLUMN_COUNT * (2 * Double.BYTES + Integer.BYTES);
+
+    /**
+     * Receives the rows of a scan.
+     */
+    public interface RowHandler {
+        /**
+         * Called for every row passing the filters, in file order.
+         *
+         * @param step  The step number, or -1 if the column is not read.
+         * @param robot The index of the robot, or -1 if the column is not read.
+         * @param x     The x-coordinate, or NaN if the column is not read.
+         * @param y     The y-coordinate, or NaN if the column is not read.
+         * @param angle The angle, or NaN if the column is not read.
+         */
+        void row(int step, int robot, double x, double y, double angle);
+    }
+
+    private final FileChannel channel;
+    private final int chunkRows;
+    private final double[] filterMins = new double[COLUMN_COUNT];
+    private final double[] filterMaxes = new double[COLUMN_COUNT];
+    private final boolean[] filtered = new boolean[COLUMN_COUNT];
+    private final Set<TrajectoryColumn> selected = EnumSet.allOf(TrajectoryColumn.class);
+
+    private final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+    private final ByteBuffer[] values = new ByteBuffer[COLUMN_COUNT];
+    private final Inflater inflater = new Inflater();
+    private ByteBuffer compressed = ByteBuffer.allocate(1 << 16);
+
+    private long chunksRead = 0;
+    private long chunksSkipped = 0;
+
+    /**
+     * Opens a columnar trajectory file.
+     *
+     * @param file The file to read.
+     * @throws IOException If the file could not be opened or is not a columnar trajectory file.
+     */
+    public ColumnarReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer start = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        readFully(start, 0);
+        if (start.getLong(0) != ColumnarWriter.MAGIC) {
+            channel.close();
+            throw new IOException("Not a columnar trajectory file: " + file);
+        }
+        this.chunkRows = start.getInt(Long.BYTES);
+        for (TrajectoryColumn column : TrajectoryColumn.values()) {
+            values[column.ordinal()] = ByteBuffer.allocate(chunkRows * column.width()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Only passes rows whose value in a column lies in a range, on top of any other filters.
+     *
+     * @param column The column to filter on.
+     * @param min    The smallest value accepted.
+     * @param max    The largest value accepted.
+     * @return This reader.
+     */
+    public ColumnarReader where(TrajectoryColumn column, double min, double max) {
+        int c = column.ordinal();
+        filterMins[c] = filtered[c] ? Math.max(filterMins[c], min) : min;
+        filterMaxes[c] = filtered[c] ? Math.min(filterMaxes[c], max) : max;
+        filtered[c] = true;
+        return this;
+    }
+
+    /**
+     * Restricts the columns passed to the handler, all columns are selected by default.
+     *
+     * @param columns The columns to read.
+     * @return This reader.
+     */
+    public ColumnarReader select(TrajectoryColumn... columns) {
+        selected.clear();
+        for (TrajectoryColumn column : columns) {
+            selected.add(column);
+        }
+        return this;
+    }
+
+    /**
+     * Reads the file from the start and passes every row that passes the filters to the handler.
+     *
+     * @param handler Receives the rows.
+     * @return The number of rows passed to the handler.
+     * @throws IOException If the file could not be read or is corrupt.
+     */
+    public long scan(RowHandler handler) throws IOException {
+        boolean[] needed = new boolean[COLUMN_COUNT];
+        for (TrajectoryColumn column : TrajectoryColumn.values()) {
+            needed[column.ordinal()] = selected.contains(column) || filtered[column.ordinal()];
+        }
+
+        long matched = 0;
+        long position = Long.BYTES + Integer.BYTES;
+        while (true) {
+            header.clear().limit(Integer.BYTES);
+            readFully(header, position);
+            int rows = header.getInt(0);
+            if (rows == 0) {
+                return matched;
+            }
+            header.clear();
+            readFully(header, position);
+            position += CHUNK_HEADER_SIZE;
+
+            boolean skip = false;
+            long[] offsets = new long[COLUMN_COUNT];
+            int[] lengths = new int[COLUMN_COUNT];
+            long offset = position;
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                int at = Integer.BYTES + c * (2 * Double.BYTES + Integer.BYTES);
+                double min = header.getDouble(at);
+                double max = header.getDouble(at + Double.BYTES);
+                lengths[c] = header.getInt(at + 2 * Double.BYTES);
+                offsets[c] = offset;
+                offset += lengths[c];
+                if (filtered[c] && (max < filterMins[c] || min > filterMaxes[c])) {
+                    skip = true;
+                }
+            }
+            position = offset;
+            if (skip) {
+                chunksSkipped++;
+                continue;
+            }
+            chunksRead++;
+
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                if (needed[c]) {
+                    inflate(c, offsets[c], lengths[c], rows);
+                }
+            }
+            matched += emit(handler, needed, rows);
+        }
+    }
+
+    private long emit(RowHandler handler, boolean[] needed, int rows) {
+        ByteBuffer steps = values[TrajectoryColumn.STEP.ordinal()];
+        ByteBuffer robots = values[TrajectoryColumn.ROBOT.ordinal()];
+        ByteBuffer xs = values[TrajectoryColumn.X.ordinal()];
+        ByteBuffer ys = values[TrajectoryColumn.Y.ordinal()];
+        ByteBuffer angles = values[TrajectoryColumn.ANGLE.ordinal()];
+        long matched = 0;
+        for (int row = 0; row < rows; row++) {
+            int step = needed[0] ? steps.getInt(row * Integer.BYTES) : -1;
+            int robot = needed[1] ? robots.getInt(row * Integer.BYTES) : -1;
+            double x = needed[2] ? xs.getDouble(row * Double.BYTES) : Double.NaN;
+            double y = needed[3] ? ys.getDouble(row * Double.BYTES) : Double.NaN;
+            double angle = needed[4] ? angles.getDouble(row * Double.BYTES) : Double.NaN;
+            if (!accepts(0, step) || !accepts(1, robot) || !accepts(2, x) || !accepts(3, y) || !accepts(4, angle)) {
+                continue;
+            }
+            handler.row(selected.contains(TrajectoryColumn.STEP) ? step : -1,
+                    selected.contains(TrajectoryColumn.ROBOT) ? robot : -1,
+                    selected.contains(TrajectoryColumn.X) ? x : Double.NaN,
+                    selected.contains(TrajectoryColumn.Y) ? y : Double.NaN,
+                    selected.contains(TrajectoryColumn.ANGLE) ? angle : Double.NaN);
+            matched++;
+        }
+        return matched;
+    }
+
+    private boolean accepts(int column, double value) {
+        return !filtered[column] || (value >= filterMins[column] && value <= filterMaxes[column]);
+    }
+
+    private void inflate(int column, long offset, int length, int rows) throws IOException {
+        if (compressed.capacity() < length) {
+            compressed = ByteBuffer.allocate(Math.max(length, compressed.capacity() * 2));
+        }
+        compressed.clear().limit(length);
+        readFully(compressed, offset);
+
+        ByteBuffer target = values[column];
+        int expected = rows * TrajectoryColumn.values()[column].width();
+        inflater.reset();
+        inflater.setInput(compressed.array(), 0, length);
+        try {
+            int total = 0;
+            while (total < expected && !inflater.finished()) {
+                int inflated = inflater.inflate(target.array(), total, expected - total);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                total += inflated;
+            }
+            if (total != expected) {
+                throw new IOException("Corrupt column chunk at offset " + offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column chunk at offset " + offset, e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of columnar trajectory file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * @return The number of chunks decompressed by scans so far.
+     */
+    public long getChunksRead() {
+        return chunksRead;
+    }
+
+    /**
+     * @return The number of chunks skipped by scans so far thanks to their statistics.
+     */
+    public long getChunksSkipped() {
+        return chunksSkipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    /**
+     * Prints the rows of a columnar trajectory file as CSV.
+     *
+     * @param args Command line arguments: file [--where column=min:max]... [--select column,...]
+     */
+    public static void main(String[] args) {
+        try (ColumnarReader reader = new ColumnarReader(Path.of(args[0]))) {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--where" -> {
+                        String[] filter = args[++i].split("[=:]");
+                        reader.where(TrajectoryColumn.valueOf(filter[0].toUpperCase()),
+                                Double.parseDouble(filter[1]), Double.parseDouble(filter[2]));
+                    }
+                    case "--select" -> {
+                        String[] names = args[++i].split(",");
+                        TrajectoryColumn[] columns = new TrajectoryColumn[names.length];
+                        for (int c = 0; c < names.length; c++) {
+                            columns[c] = TrajectoryColumn.valueOf(names[c].trim().toUpperCase());
+                        }
+                        reader.select(columns);
+                    }
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            StringBuilder line = new StringBuilder();
+            long rows = reader.scan((step, robot, x, y, angle) -> {
+                line.setLength(0);
+                line.append(step).append(',').append(robot).append(',')
+                        .append(x).append(',').append(y).append(',').append(angle);
+                System.out.println(line);
+            });
+            System.err.printf("%d rows, %d chunks read, %d skipped%n", rows, reader.getChunksRead(), reader.getChunksSkipped());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.openjfx.javaproject.trajectory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes trajectories column by column instead of row by row like the log, so analytic readers only have to
+ * decompress the columns they need. Rows are grouped into chunks, and every column of a chunk is compressed
+ * separately and stored with its minimum and maximum, which lets readers skip chunks that cannot match a filter.
+ * <p>
+ * File layout, numbers in big-endian order:
+ * <pre>
+ * long  magic
+ * int   rows per chunk
+ * chunks:
+ *     int   row count, 0 ends the file
+ *     for each column: double min, double max, int compressed length
+ *     for each column: the compressed values, little-endian, see {@link TrajectoryColumn}
+ * </pre>
+ * See {@link ColumnarReader}.
+ */
+public class ColumnarWriter implements AutoCloseable {
+    static final long MAGIC = 0x5047434F_4C303031L; // "PGCOL001"
+    public static final int DEFAULT_CHUNK_ROWS = 65_536;
+
+    private static final int COLUMN_COUNT = TrajectoryColumn.values().length;
+
+    private final DataOutputStream out;
+    private final int chunkRows;
+    private final ByteBuffer[] columns = new ByteBuffer[COLUMN_COUNT];
+    private final double[] mins = new double[COLUMN_COUNT];
+    private final double[] maxes = new double[COLUMN_COUNT];
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] compressed;
+    private int rows = 0;
+    private long totalRows = 0;
+
+    /**
+     * Creates a columnar trajectory file.
+     *
+     * @param file      The file to write.
+     * @param chunkRows The number of rows per chunk, smaller chunks can be skipped more precisely but compress worse.
+     * @throws IOException If the file could not be created.
+     */
+    public ColumnarWriter(Path file, int chunkRows) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        this.chunkRows = chunkRows;
+        for (TrajectoryColumn column : TrajectoryColumn.values()) {
+            columns[column.ordinal()] = ByteBuffer.allocate(chunkRows * column.width()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.compressed = new byte[chunkRows * Double.BYTES];
+        resetStatistics();
+        out.writeLong(MAGIC);
+        out.writeInt(chunkRows);
+    }
+
+    /**
+     * Adds one row.
+     *
+     * @param step  The step number.
+     * @param robot The index of the robot.
+     * @param x     The x-coordinate of the robot.
+     * @param y     The y-coordinate of the robot.
+     * @param angle The angle of the robot.
+     * @throws IOException If a full chunk could not be written.
+     */
+    public void write(int step, int robot, double x, double y, double angle) throws IOException {
+        putInt(TrajectoryColumn.STEP, step);
+        putInt(TrajectoryColumn.ROBOT, robot);
+        putDouble(TrajectoryColumn.X, x);
+        putDouble(TrajectoryColumn.Y, y);
+        putDouble(TrajectoryColumn.ANGLE, angle);
+        rows++;
+        if (rows == chunkRows) {
+            flushChunk();
+        }
+    }
+
+    /**
+     * Adds a row for every robot of a step.
+     *
+     * @param step   The step number.
+     * @param states The states of robots, three values per robot as in {@link LogReader#getStates()}.
+     * @param count  The number of robots.
+     * @throws IOException If a full chunk could not be written.
+     */
+    public void writeStep(int step, double[] states, int count) throws IOException {
+        for (int robot = 0; robot < count; robot++) {
+            write(step, robot, states[robot * 3], states[robot * 3 + 1], states[robot * 3 + 2]);
+        }
+    }
+
+    private void putInt(TrajectoryColumn column, int value) {
+        columns[column.ordinal()].putInt(value);
+        updateStatistics(column, value);
+    }
+
+    private void putDouble(TrajectoryColumn column, double value) {
+        columns[column.ordinal()].putDouble(value);
+        updateStatistics(column, value);
+    }
+
+    private void updateStatistics(TrajectoryColumn column, double value) {
+        int c = column.ordinal();
+        mins[c] = Math.min(mins[c], value);
+        maxes[c] = Math.max(maxes[c], value);
+    }
+
+    private void resetStatistics() {
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            mins[c] = Double.POSITIVE_INFINITY;
+            maxes[c] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Compresses the buffered columns and writes them as one chunk.
+     */
+    private void flushChunk() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        byte[][] blocks = new byte[COLUMN_COUNT][];
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            blocks[c] = compress(columns[c]);
+        }
+        out.writeInt(rows);
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            out.writeDouble(mins[c]);
+            out.writeDouble(maxes[c]);
+            out.writeInt(blocks[c].length);
+        }
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            out.write(blocks[c]);
+        }
+        totalRows += rows;
+        rows = 0;
+        resetStatistics();
+    }
+
+    private byte[] compress(ByteBuffer column) {
+        deflater.reset();
+        deflater.setInput(column.array(), 0, column.position());
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        column.clear();
+        return Arrays.copyOf(compressed, length);
+    }
+
+    /**
+     * @return The number of rows written so far.
+     */
+    public long getRowCount() {
+        return totalRows + rows;
+    }
+
+    /**
+     * Writes the last chunk and the end marker and closes the file.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushChunk();
+            out.writeInt(0);
+        } finally {
+            out.close();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Converts a simulation log into a columnar trajectory file.
+     *
+     * @param args Command line arguments: log output [--chunk-rows n]
+     */
+    public static void main(String[] args) {
+        int chunkRows = DEFAULT_CHUNK_ROWS;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--chunk-rows")) {
+                chunkRows = Integer.parseInt(args[++i]);
+            }
+        }
+        long start = System.nanoTime();
+        try (LogReader reader = new LogReader(Path.of(args[0]));
+             ColumnarWriter writer = new ColumnarWriter(Path.of(args[1]), chunkRows)) {
+            while (reader.next()) {
+                writer.writeStep(reader.getStep(), reader.getStates(), reader.getRobotCount());
+            }
+            System.out.printf("Wrote %d rows in %.1f s%n", writer.getRowCount(), (System.nanoTime() - start) / 1e9);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
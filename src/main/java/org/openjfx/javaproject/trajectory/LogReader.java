@@ -0,0 +1,234 @@
+package org.openjfx.javaproject.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams the steps of a simulation log written by {@link org.openjfx.javaproject.Log}, one line per step.
+ * Lines are parsed straight from the bytes of the file into a reused array, which is many times faster than
+ * parsing them as JSON and keeps memory constant for logs of any size.
+ * <p>
+ * Every number on a line is taken in order: the step number first, then x, y and angle of each robot.
+ * Robots are identified by their index on the line.
+ */
+public class LogReader implements AutoCloseable {
+    private static final int READ_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final long end;
+    private final ByteBuffer input = ByteBuffer.allocate(READ_SIZE);
+    private long position; // file offset of the first byte in the input buffer
+    private boolean eof = false;
+
+    private byte[] line = new byte[4096];
+    private int lineLength;
+    private long lineOffset;
+    private long nextOffset;
+
+    private int step;
+    private int robotCount;
+    private double[] states = new double[3 * 64];
+
+    /**
+     * Opens a log for reading from the start.
+     *
+     * @param log The log file.
+     * @throws IOException If the file could not be opened.
+     */
+    public LogReader(Path log) throws IOException {
+        this(log, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens a part of a log for reading.
+     *
+     * @param log   The log file.
+     * @param start The offset of the first line to read, has to be the start of a line.
+     * @param end   The offset after the last line to read.
+     * @throws IOException If the file could not be opened.
+     */
+    public LogReader(Path log, long start, long end) throws IOException {
+        this.channel = FileChannel.open(log, StandardOpenOption.READ);
+        this.end = Math.min(end, channel.size());
+        this.position = start;
+        this.nextOffset = start;
+        input.flip();
+    }
+
+    /**
+     * Reads the next step. Blank or malformed lines are skipped.
+     *
+     * @return True if a step was read, false at the end of the log.
+     * @throws IOException If the log could not be read.
+     */
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (parseLine()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        lineOffset = nextOffset;
+        if (lineOffset >= end) {
+            return false;
+        }
+        while (true) {
+            if (!input.hasRemaining()) {
+                if (eof || !fill()) {
+                    nextOffset = lineOffset + lineLength;
+                    return lineLength > 0;
+                }
+            }
+            byte b = input.get();
+            if (b == '\n') {
+                nextOffset = lineOffset + lineLength + 1;
+                return true;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = b;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        position += input.limit();
+        input.clear();
+        long remaining = end - position;
+        if (remaining <= 0) {
+            eof = true;
+            input.flip();
+            return false;
+        }
+        if (remaining < input.capacity()) {
+            input.limit((int) remaining);
+        }
+        int read = channel.read(input, position);
+        input.flip();
+        if (read <= 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Extracts all numbers of the current line, the first is the step and the rest are robot states.
+     */
+    private boolean parseLine() {
+        int values = 0;
+        int i = 0;
+        while (i < lineLength) {
+            byte b = line[i];
+            if ((b >= '0' && b <= '9') || b == '-') {
+                int start = i;
+                i++;
+                while (i < lineLength && isNumberByte(line[i])) {
+                    i++;
+                }
+                double value = parseNumber(start, i);
+                if (values == 0) {
+                    step = (int) value;
+                } else {
+                    if (values - 1 == states.length) {
+                        states = Arrays.copyOf(states, states.length * 2);
+                    }
+                    states[values - 1] = value;
+                }
+                values++;
+            } else {
+                i++;
+            }
+        }
+        if (values == 0 || (values - 1) % 3 != 0) {
+            return false;
+        }
+        robotCount = (values - 1) / 3;
+        return true;
+    }
+
+    private static boolean isNumberByte(byte b) {
+        return (b >= '0' && b <= '9') || b == '.' || b == '-' || b == '+' || b == 'e' || b == 'E';
+    }
+
+    private double parseNumber(int start, int end) {
+        int i = start;
+        boolean negative = line[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long whole = 0;
+        while (i < end && line[i] >= '0' && line[i] <= '9') {
+            whole = whole * 10 + (line[i++] - '0');
+        }
+        long fraction = 0;
+        long scale = 1;
+        if (i < end && line[i] == '.') {
+            i++;
+            while (i < end && line[i] >= '0' && line[i] <= '9' && scale < 1_000_000_000_000L) {
+                fraction = fraction * 10 + (line[i++] - '0');
+                scale *= 10;
+            }
+            while (i < end && line[i] >= '0' && line[i] <= '9') {
+                i++;
+            }
+        }
+        if (i < end) {
+            // Exponent or other unusual notation, rare enough to take the slow path
+            return Double.parseDouble(new String(line, start, end - start, StandardCharsets.US_ASCII));
+        }
+        double value = whole + (double) fraction / scale;
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return The number of the current step.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * @return The number of robots in the current step.
+     */
+    public int getRobotCount() {
+        return robotCount;
+    }
+
+    /**
+     * Retrieves the robot states of the current step. The array is reused by the next call to {@link #next()}.
+     *
+     * @return x, y and angle of every robot, three values per robot, valid up to the robot count.
+     */
+    public double[] getStates() {
+        return states;
+    }
+
+    /**
+     * @return The file offset of the line of the current step.
+     */
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
+    /**
+     * @return The file offset after the line of the current step.
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,32 @@
+package org.openjfx.javaproject.trajectory;
+
+/**
+ * The columns of a columnar trajectory file, in the order they are stored in every chunk.
+ */
+public enum TrajectoryColumn {
+    STEP(true),
+    ROBOT(true),
+    X(false),
+    Y(false),
+    ANGLE(false);
+
+    private final boolean integer;
+
+    TrajectoryColumn(boolean integer) {
+        this.integer = integer;
+    }
+
+    /**
+     * @return True if the column holds 32-bit integers, false if it holds 64-bit floating point numbers.
+     */
+    public boolean isInteger() {
+        return integer;
+    }
+
+    /**
+     * @return The number of bytes a value of this column takes before compression.
+     */
+    public int width() {
+        return integer ? Integer.BYTES : Double.BYTES;
+    }
+}
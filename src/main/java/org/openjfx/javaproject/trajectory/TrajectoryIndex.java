@@ -0,0 +1,469 @@
+package org.openjfx.javaproject.trajectory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Spatio-temporal index over a recorded simulation log, answering region and nearest-approach queries
+ * without scanning the whole log.
+ * <p>
+ * The log is cut into buckets of consecutive steps. For every bucket the index keeps the file offset of its
+ * first line and the bounding box of each robot over the bucket. A query only reads the buckets whose time
+ * range and bounding boxes can contain a match, and many answers are decided from the boxes alone.
+ * The index is small compared to the log: 16 bytes per robot and bucket.
+ * <p>
+ * The index is stored next to the log with the suffix ".idx" and is rebuilt when the log changed since.
+ */
+public class TrajectoryIndex {
+    public static final int DEFAULT_BUCKET_STEPS = 30;
+
+    private static final int MAGIC = 0x50475449; // "PGTI"
+    private static final int FORMAT_VERSION = 2; // boxes are rounded outward since version 2
+
+    /**
+     * The closest a robot came to a point.
+     *
+     * @param robot    The index of the robot.
+     * @param step     The step at which it was closest.
+     * @param distance The distance of the robot center from the point.
+     * @param x        The x-coordinate of the robot at that step.
+     * @param y        The y-coordinate of the robot at that step.
+     */
+    public record Approach(int robot, int step, double distance, double x, double y) {
+    }
+
+    private final Path log;
+    private final long logSize;
+    private final long logModified;
+    private final int bucketSteps;
+
+    private int bucketCount = 0;
+    private long[] offsets = new long[64]; // offset of the first line of each bucket, plus the end of the log
+    private int[] firstSteps = new int[64];
+    private int[] lastSteps = new int[64];
+    private float[][] boxes = new float[64][]; // minX, minY, maxX, maxY of each robot in each bucket
+
+    private TrajectoryIndex(Path log, long logSize, long logModified, int bucketSteps) {
+        this.log = log;
+        this.logSize = logSize;
+        this.logModified = logModified;
+        this.bucketSteps = bucketSteps;
+    }
+
+    /**
+     * Opens the index of a log, loading it from the index file if it is up to date and building and storing
+     * it otherwise.
+     *
+     * @param log The log file.
+     * @return The index.
+     * @throws IOException If the log could not be read.
+     */
+    public static TrajectoryIndex open(Path log) throws IOException {
+        Path file = indexFile(log);
+        if (Files.exists(file)) {
+            try {
+                TrajectoryIndex index = load(log, file);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // broken index, build it again
+            }
+        }
+        TrajectoryIndex index = build(log, DEFAULT_BUCKET_STEPS);
+        try {
+            index.save(file);
+        } catch (IOException e) {
+            e.printStackTrace(); // the index still works, it is just not kept
+        }
+        return index;
+    }
+
+    /**
+     * Builds the index of a log with one pass over it.
+     *
+     * @param log         The log file.
+     * @param bucketSteps The number of steps per bucket, smaller buckets make queries read less but the index larger.
+     * @return The index.
+     * @throws IOException If the log could not be read.
+     */
+    public static TrajectoryIndex build(Path log, int bucketSteps) throws IOException {
+        TrajectoryIndex index = new TrajectoryIndex(log, Files.size(log),
+                Files.getLastModifiedTime(log).toMillis(), bucketSteps);
+        try (LogReader reader = new LogReader(log, 0, index.logSize)) {
+            int inBucket = 0;
+            float[] box = null;
+            while (reader.next()) {
+                if (inBucket == 0) {
+                    box = index.startBucket(reader.getLineOffset(), reader.getStep());
+                }
+                int count = reader.getRobotCount();
+                if (count * 4 > box.length) {
+                    box = index.growBox(count);
+                }
+                double[] states = reader.getStates();
+                for (int robot = 0; robot < count; robot++) {
+                    double x = states[robot * 3];
+                    double y = states[robot * 3 + 1];
+                    int b = robot * 4;
+                    box[b] = Math.min(box[b], roundDown(x));
+                    box[b + 1] = Math.min(box[b + 1], roundDown(y));
+                    box[b + 2] = Math.max(box[b + 2], roundUp(x));
+                    box[b + 3] = Math.max(box[b + 3], roundUp(y));
+                }
+                index.lastSteps[index.bucketCount - 1] = reader.getStep();
+                index.offsets[index.bucketCount] = reader.getNextOffset();
+                inBucket = (inBucket + 1) % bucketSteps;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Rounds to the largest float not above the value, so a box never ends inside the path it bounds.
+     */
+    private static float roundDown(double value) {
+        float rounded = (float) value;
+        return rounded > value ? Math.nextDown(rounded) : rounded;
+    }
+
+    /**
+     * Rounds to the smallest float not below the value.
+     */
+    private static float roundUp(double value) {
+        float rounded = (float) value;
+        return rounded < value ? Math.nextUp(rounded) : rounded;
+    }
+
+    private float[] startBucket(long offset, int step) {
+        if (bucketCount + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            firstSteps = Arrays.copyOf(firstSteps, firstSteps.length * 2);
+            lastSteps = Arrays.copyOf(lastSteps, lastSteps.length * 2);
+            boxes = Arrays.copyOf(boxes, boxes.length * 2);
+        }
+        offsets[bucketCount] = offset;
+        firstSteps[bucketCount] = step;
+        lastSteps[bucketCount] = step;
+        boxes[bucketCount] = new float[0];
+        bucketCount++;
+        return boxes[bucketCount - 1];
+    }
+
+    private float[] growBox(int robotCount) {
+        float[] old = boxes[bucketCount - 1];
+        float[] box = Arrays.copyOf(old, robotCount * 4);
+        for (int b = old.length; b < box.length; b += 4) {
+            box[b] = Float.POSITIVE_INFINITY;
+            box[b + 1] = Float.POSITIVE_INFINITY;
+            box[b + 2] = Float.NEGATIVE_INFINITY;
+            box[b + 3] = Float.NEGATIVE_INFINITY;
+        }
+        boxes[bucketCount - 1] = box;
+        return box;
+    }
+
+    /**
+     * Finds the robots whose center was inside a rectangle at any step of a time window.
+     *
+     * @param left     The left edge of the rectangle.
+     * @param top      The top edge of the rectangle.
+     * @param right    The right edge of the rectangle.
+     * @param bottom   The bottom edge of the rectangle.
+     * @param fromStep The first step of the window.
+     * @param toStep   The last step of the window.
+     * @return The indices of the robots, in ascending order.
+     * @throws IOException If the log could not be read.
+     */
+    public List<Integer> robotsInRegion(double left, double top, double right, double bottom,
+                                        int fromStep, int toStep) throws IOException {
+        boolean[] found = new boolean[maxRobotCount()];
+        boolean[] candidate = new boolean[found.length];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            if (lastSteps[bucket] < fromStep || firstSteps[bucket] > toStep) {
+                continue;
+            }
+            boolean wholeBucket = firstSteps[bucket] >= fromStep && lastSteps[bucket] <= toStep;
+            int candidates = 0;
+            float[] box = boxes[bucket];
+            for (int robot = 0; robot * 4 < box.length; robot++) {
+                candidate[robot] = false;
+                int b = robot * 4;
+                if (found[robot] || box[b] > right || box[b + 2] < left || box[b + 1] > bottom || box[b + 3] < top) {
+                    continue;
+                }
+                if (wholeBucket && box[b] >= left && box[b + 2] <= right && box[b + 1] >= top && box[b + 3] <= bottom) {
+                    found[robot] = true; // the robot never left the rectangle during the bucket
+                    continue;
+                }
+                candidate[robot] = true;
+                candidates++;
+            }
+            if (candidates == 0) {
+                continue;
+            }
+            try (LogReader reader = new LogReader(log, offsets[bucket], offsets[bucket + 1])) {
+                while (candidates > 0 && reader.next()) {
+                    if (reader.getStep() < fromStep || reader.getStep() > toStep) {
+                        continue;
+                    }
+                    double[] states = reader.getStates();
+                    int count = Math.min(reader.getRobotCount(), box.length / 4);
+                    for (int robot = 0; robot < count; robot++) {
+                        if (candidate[robot]) {
+                            double x = states[robot * 3];
+                            double y = states[robot * 3 + 1];
+                            if (x >= left && x <= right && y >= top && y <= bottom) {
+                                found[robot] = true;
+                                candidate[robot] = false;
+                                candidates--;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Integer> robots = new ArrayList<>();
+        for (int robot = 0; robot < found.length; robot++) {
+            if (found[robot]) {
+                robots.add(robot);
+            }
+        }
+        return robots;
+    }
+
+    /**
+     * Finds the closest any robot, or one given robot, came to a point during a time window.
+     * Buckets are read in the order of the lower bound their bounding boxes give on the distance,
+     * and the search stops as soon as no remaining bucket can come closer.
+     *
+     * @param x        The x-coordinate of the point.
+     * @param y        The y-coordinate of the point.
+     * @param robot    The index of the robot, or -1 for any robot.
+     * @param fromStep The first step of the window.
+     * @param toStep   The last step of the window.
+     * @return The closest approach, or null if no robot was recorded in the window.
+     * @throws IOException If the log could not be read.
+     */
+    public Approach nearestApproach(double x, double y, int robot, int fromStep, int toStep) throws IOException {
+        List<double[]> order = new ArrayList<>(); // lower bound and bucket index
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            if (lastSteps[bucket] < fromStep || firstSteps[bucket] > toStep) {
+                continue;
+            }
+            double bound = Double.POSITIVE_INFINITY;
+            float[] box = boxes[bucket];
+            int from = robot < 0 ? 0 : robot;
+            int to = robot < 0 ? box.length / 4 : Math.min(robot + 1, box.length / 4);
+            for (int r = from; r < to; r++) {
+                bound = Math.min(bound, boxDistance(box, r, x, y));
+            }
+            if (bound < Double.POSITIVE_INFINITY) {
+                order.add(new double[]{bound, bucket});
+            }
+        }
+        order.sort((a, b) -> Double.compare(a[0], b[0]));
+
+        Approach best = null;
+        for (double[] entry : order) {
+            if (best != null && entry[0] >= best.distance()) {
+                break;
+            }
+            int bucket = (int) entry[1];
+            try (LogReader reader = new LogReader(log, offsets[bucket], offsets[bucket + 1])) {
+                while (reader.next()) {
+                    int step = reader.getStep();
+                    if (step < fromStep || step > toStep) {
+                        continue;
+                    }
+                    double[] states = reader.getStates();
+                    int from = robot < 0 ? 0 : robot;
+                    int to = robot < 0 ? reader.getRobotCount() : Math.min(robot + 1, reader.getRobotCount());
+                    for (int r = from; r < to; r++) {
+                        double rx = states[r * 3];
+                        double ry = states[r * 3 + 1];
+                        double distance = Math.hypot(rx - x, ry - y);
+                        if (best == null || distance < best.distance()) {
+                            best = new Approach(r, step, distance, rx, ry);
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static double boxDistance(float[] box, int robot, double x, double y) {
+        int b = robot * 4;
+        if (box[b] > box[b + 2]) {
+            return Double.POSITIVE_INFINITY; // the robot was not recorded in this bucket
+        }
+        double dx = Math.max(0, Math.max(box[b] - x, x - box[b + 2]));
+        double dy = Math.max(0, Math.max(box[b + 1] - y, y - box[b + 3]));
+        return Math.hypot(dx, dy);
+    }
+
+    private int maxRobotCount() {
+        int count = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            count = Math.max(count, boxes[bucket].length / 4);
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the file the index of a log is stored in.
+     *
+     * @param log The log file.
+     * @return The index file next to it.
+     */
+    public static Path indexFile(Path log) {
+        return log.resolveSibling(log.getFileName() + ".idx");
+    }
+
+    /**
+     * Stores the index in a file.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file could not be written.
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(logSize);
+            out.writeLong(logModified);
+            out.writeInt(bucketSteps);
+            out.writeInt(bucketCount);
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                out.writeLong(offsets[bucket]);
+                out.writeInt(firstSteps[bucket]);
+                out.writeInt(lastSteps[bucket]);
+                float[] box = boxes[bucket];
+                out.writeInt(box.length);
+                for (float value : box) {
+                    out.writeFloat(value);
+                }
+            }
+            out.writeLong(offsets[bucketCount]);
+        }
+    }
+
+    /**
+     * Loads a stored index if it belongs to the current version of the log.
+     *
+     * @return The index, or null if the log changed since it was built.
+     */
+    private static TrajectoryIndex load(Path log, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long size = in.readLong();
+            long modified = in.readLong();
+            if (size != Files.size(log) || modified != Files.getLastModifiedTime(log).toMillis()) {
+                return null;
+            }
+            TrajectoryIndex index = new TrajectoryIndex(log, size, modified, in.readInt());
+            int count = in.readInt();
+            index.offsets = new long[count + 1];
+            index.firstSteps = new int[count];
+            index.lastSteps = new int[count];
+            index.boxes = new float[count][];
+            for (int bucket = 0; bucket < count; bucket++) {
+                index.offsets[bucket] = in.readLong();
+                index.firstSteps[bucket] = in.readInt();
+                index.lastSteps[bucket] = in.readInt();
+                float[] box = new float[in.readInt()];
+                for (int i = 0; i < box.length; i++) {
+                    box[i] = in.readFloat();
+                }
+                index.boxes[bucket] = box;
+            }
+            index.offsets[count] = in.readLong();
+            index.bucketCount = count;
+            return index;
+        }
+    }
+
+    /**
+     * @return The number of buckets.
+     */
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * @return The number of steps per bucket.
+     */
+    public int getBucketSteps() {
+        return bucketSteps;
+    }
+
+    /**
+     * Answers a query over a log from the command line, building its index first if needed.
+     * Times are given in seconds and converted to steps with the physics rate.
+     *
+     * @param args Command line arguments: log [--rate steps-per-second] [--from s] [--to s]
+     *             (--region left,top,right,bottom | --near x,y [--robot n])
+     */
+    public static void main(String[] args) {
+        double rate = 60;
+        double from = 0;
+        double to = Double.MAX_VALUE / 1000;
+        double[] region = null;
+        double[] near = null;
+        int robot = -1;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rate" -> rate = Double.parseDouble(args[++i]);
+                case "--from" -> from = Double.parseDouble(args[++i]);
+                case "--to" -> to = Double.parseDouble(args[++i]);
+                case "--region" -> region = parseNumbers(args[++i], 4);
+                case "--near" -> near = parseNumbers(args[++i], 2);
+                case "--robot" -> robot = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        int fromStep = (int) Math.max(0, Math.floor(from * rate));
+        int toStep = (int) Math.min(Integer.MAX_VALUE, Math.ceil(to * rate));
+        try {
+            long start = System.nanoTime();
+            TrajectoryIndex index = open(Path.of(args[0]));
+            long opened = System.nanoTime();
+            if (region != null) {
+                List<Integer> robots = index.robotsInRegion(region[0], region[1], region[2], region[3], fromStep, toStep);
+                System.out.println(robots.size() + " robots: " + robots);
+            }
+            if (near != null) {
+                Approach approach = index.nearestApproach(near[0], near[1], robot, fromStep, toStep);
+                System.out.println(approach == null ? "No robots in the window." : approach.toString());
+            }
+            long done = System.nanoTime();
+            System.out.printf("Index ready in %.1f ms, query took %.1f ms%n", (opened - start) / 1e6, (done - opened) / 1e6);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static double[] parseNumbers(String text, int count) {
+        String[] parts = text.split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " comma separated numbers: " + text);
+        }
+        double[] numbers = new double[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = Double.parseDouble(parts[i].trim());
+        }
+        return numbers;
+    }
+}
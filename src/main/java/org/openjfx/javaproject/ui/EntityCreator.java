@@ -1,26 +1,27 @@
 package org.openjfx.javaproject.ui;
 
-import javafx.scene.layout.Pane;
 import org.openjfx.javaproject.common.EntityEnum;
 import org.openjfx.javaproject.common.Obstacle;
 import org.openjfx.javaproject.room.*;
 
+import java.util.List;
+
 /**
  * A class responsible for creating and managing entities within a room.
  */
 public class EntityCreator {
     private final Room room;
-    private final Pane roomPane;
+    private final Viewport viewport;
 
     /**
-     * Constructs an EntityCreator with the specified room and pane.
+     * Constructs an EntityCreator with the specified room and viewport.
      *
      * @param room     The room where entities will be created.
-     * @param roomPane The pane representing the room in the UI.
+     * @param viewport The viewport showing the room in the UI.
      */
-    public EntityCreator(Room room, Pane roomPane) {
+    public EntityCreator(Room room, Viewport viewport) {
         this.room = room;
-        this.roomPane = roomPane;
+        this.viewport = viewport;
     }
 
 
@@ -31,14 +32,37 @@ public class EntityCreator {
             case AUTO_ROBOT -> createAutoRobot(position);
             case CONTROLLED_ROBOT -> createControlledRobot(position);
         }
+        viewport.refresh();
+    }
+
+    /**
+     * Removes the entity at the specified position, if there is one.
+     * Entities are looked up in the room rather than through their shapes, so this works for entities
+     * that are currently not in the scene graph and for entities loaded from a config file.
+     *
+     * @param position The position in the room.
+     */
+    public void removeEntity(Position position) {
+        double x = position.getX();
+        double y = position.getY();
+        if (!removeControlledRobot(position) && !removeAutoRobot(position)) {
+            Obstacle[] hit = new Obstacle[1];
+            room.queryObstacles(x, y, x, y, obstacle -> {
+                if (obstacle.checkCollision(x, y, 0)) {
+                    hit[0] = obstacle;
+                }
+            });
+            if (hit[0] != null) {
+                room.removeObstacle(hit[0]);
+            }
+        }
+        viewport.refresh();
     }
 
     private void createRectangleObstacle(Position position) {
         Obstacle obstacle = Obstacle.create(room, position, 30, "rectangle");
         if (obstacle != null) {
             room.addObstacle(obstacle);
-            roomPane.getChildren().add(obstacle.getShape());
-            setupObstacleRemoval(obstacle);
         }
     }
 
@@ -46,8 +70,6 @@ public class EntityCreator {
         Obstacle obstacle = Obstacle.create(room, position, 30, "circle");
         if (obstacle != null) {
             room.addObstacle(obstacle);
-            roomPane.getChildren().add(obstacle.getShape());
-            setupObstacleRemoval(obstacle);
         }
     }
 
@@ -55,8 +77,6 @@ public class EntityCreator {
         Autorobot robot = Autorobot.create(room, position, 0);
         if (robot != null) {
             room.addRobot(robot);
-            roomPane.getChildren().add(robot.getShape());
-            setupRobotRemoval(robot);
         }
     }
 
@@ -64,38 +84,28 @@ public class EntityCreator {
         ControlledRobot robot = ControlledRobot.create(room, position, 0);
         if (robot != null) {
             room.addControlledRobot(robot);
-            roomPane.getChildren().add(robot.getShape());
-            roomPane.getChildren().add(robot.getDirectionLine());
-            setupControlledRobotRemoval(robot);
         }
     }
 
-    private void setupObstacleRemoval(Obstacle obstacle) {
-        obstacle.getShape().setOnMouseClicked(e -> {
-            if (e.getButton() == javafx.scene.input.MouseButton.SECONDARY) {
-                room.getObstacles().remove(obstacle);
-                roomPane.getChildren().remove(obstacle.getShape());
-            }
-        });
-    }
-
-    private void setupRobotRemoval(Autorobot robot) {
-        robot.getShape().setOnMouseClicked(e -> {
-            if (e.getButton() == javafx.scene.input.MouseButton.SECONDARY) {
-                room.getRobots().remove(robot);
-                roomPane.getChildren().remove(robot.getShape());
+    private boolean removeControlledRobot(Position position) {
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot controlled = controlledRobots.get(i);
+            if (position.isNear(controlled.getPosition(), controlled.getSize())) {
+                return room.removeControlledRobot(controlled);
             }
-        });
+        }
+        return false;
     }
 
-    private void setupControlledRobotRemoval(ControlledRobot robot) {
-        robot.getShape().setOnMouseClicked(e -> {
-            if (e.getButton() == javafx.scene.input.MouseButton.SECONDARY) {
-                room.controlledRobot = null;
-                roomPane.getChildren().remove(robot.getShape());
-                roomPane.getChildren().remove(robot.getDirectionLine());
+    private boolean removeAutoRobot(Position position) {
+        List<Autorobot> robots = room.getRobots();
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            if (position.isNear(robot.getPosition(), robot.getSize())) {
+                return room.removeRobot(robot);
             }
-        });
+        }
+        return false;
     }
 }
-
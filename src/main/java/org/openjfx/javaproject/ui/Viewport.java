@@ -0,0 +1,299 @@
+package org.openjfx.javaproject.ui;
+
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+import org.openjfx.javaproject.common.Obstacle;
+import org.openjfx.javaproject.room.Autorobot;
+import org.openjfx.javaproject.room.ControlledRobot;
+import org.openjfx.javaproject.room.Room;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A camera over the room pane that can be panned and zoomed.
+ * The room pane is moved and scaled inside a clipped region, and only entities inside the visible part
+ * of the room have their shapes in the scene graph. Obstacles are found through the spatial index of the room,
+ * so the number of nodes, and with it the render cost, depends on what is on screen and not on the size of the room.
+ * <p>
+ * Drag with the middle or right mouse button to pan, scroll to zoom around the cursor.
+ */
+public final class Viewport extends Region {
+    private static final double MAX_ZOOM = 4;
+    private static final double ZOOM_STEP = 1.1;
+
+    private final Room room;
+    private final Pane roomPane;
+    private final Translate pan = new Translate();
+    private final Scale zoom = new Scale(1, 1);
+
+    private final Set<Obstacle> shownObstacles = new HashSet<>();
+    private final Set<Obstacle> visibleObstacles = new HashSet<>();
+    private final Set<Autorobot> shownRobots = new HashSet<>();
+    private final Set<Autorobot> visibleRobots = new HashSet<>();
+    private final Set<ControlledRobot> shownControlledRobots = new HashSet<>();
+    private final Set<ControlledRobot> visibleControlledRobots = new HashSet<>();
+
+    private double visibleLeft;
+    private double visibleTop;
+    private double visibleRight;
+    private double visibleBottom;
+
+    private double dragX;
+    private double dragY;
+
+    /**
+     * Constructs a viewport over the given room pane.
+     *
+     * @param room     The room shown in the viewport.
+     * @param roomPane The pane representing the room, entity shapes are added to and removed from it.
+     */
+    public Viewport(Room room, Pane roomPane) {
+        this.room = room;
+        this.roomPane = roomPane;
+
+        roomPane.setManaged(false);
+        roomPane.getTransforms().setAll(pan, zoom);
+        getChildren().add(roomPane);
+
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(widthProperty());
+        clip.heightProperty().bind(heightProperty());
+        setClip(clip);
+
+        setPrefSize(Math.min(room.getWidth(), 1000), Math.min(room.getHeight(), 700));
+        setMinSize(100, 100);
+
+        setOnMousePressed(e -> {
+            dragX = e.getX();
+            dragY = e.getY();
+        });
+        setOnMouseDragged(e -> {
+            if (e.getButton() == MouseButton.MIDDLE || e.getButton() == MouseButton.SECONDARY) {
+                panBy(e.getX() - dragX, e.getY() - dragY);
+                dragX = e.getX();
+                dragY = e.getY();
+            }
+        });
+        setOnScroll(e -> {
+            double factor = e.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+            zoomAt(getZoom() * factor, e.getX(), e.getY());
+        });
+        widthProperty().addListener((obs, old, value) -> clampPan());
+        heightProperty().addListener((obs, old, value) -> clampPan());
+    }
+
+    /**
+     * Fits the whole room into the viewport, or shows it at its natural size if it fits already.
+     */
+    public void fitRoom() {
+        double width = getWidth() > 0 ? getWidth() : getPrefWidth();
+        double height = getHeight() > 0 ? getHeight() : getPrefHeight();
+        zoom.setX(Math.min(1, Math.min(width / room.getWidth(), height / room.getHeight())));
+        zoom.setY(zoom.getX());
+        pan.setX(0);
+        pan.setY(0);
+        refresh();
+    }
+
+    /**
+     * Retrieves the current zoom factor.
+     *
+     * @return The number of screen pixels per room unit.
+     */
+    public double getZoom() {
+        return zoom.getX();
+    }
+
+    /**
+     * Moves the view by the given distance on screen.
+     *
+     * @param dx The horizontal distance, in screen pixels.
+     * @param dy The vertical distance, in screen pixels.
+     */
+    public void panBy(double dx, double dy) {
+        pan.setX(pan.getX() + dx);
+        pan.setY(pan.getY() + dy);
+        clampPan();
+    }
+
+    /**
+     * Zooms the view, keeping the room point under the given screen point in place.
+     *
+     * @param value   The new zoom factor, limited so the room is never smaller than the viewport.
+     * @param screenX The x-coordinate of the fixed point in the viewport.
+     * @param screenY The y-coordinate of the fixed point in the viewport.
+     */
+    public void zoomAt(double value, double screenX, double screenY) {
+        double minZoom = Math.min(1, Math.min(getWidth() / room.getWidth(), getHeight() / room.getHeight()));
+        double clamped = Math.max(minZoom, Math.min(MAX_ZOOM, value));
+        double roomX = (screenX - pan.getX()) / getZoom();
+        double roomY = (screenY - pan.getY()) / getZoom();
+        zoom.setX(clamped);
+        zoom.setY(clamped);
+        pan.setX(screenX - roomX * clamped);
+        pan.setY(screenY - roomY * clamped);
+        clampPan();
+    }
+
+    /**
+     * Keeps the room inside the viewport, a room smaller than the viewport stays in the top left corner.
+     */
+    private void clampPan() {
+        double minX = Math.min(0, getWidth() - room.getWidth() * getZoom());
+        double minY = Math.min(0, getHeight() - room.getHeight() * getZoom());
+        pan.setX(Math.max(minX, Math.min(0, pan.getX())));
+        pan.setY(Math.max(minY, Math.min(0, pan.getY())));
+        refresh();
+    }
+
+    /**
+     * Adds the shapes of entities that came into view and removes those that left it.
+     * Called once per frame and whenever entities are added or removed.
+     */
+    public void refresh() {
+        double scale = getZoom();
+        double width = getWidth() > 0 ? getWidth() : getPrefWidth();
+        double height = getHeight() > 0 ? getHeight() : getPrefHeight();
+        double left = -pan.getX() / scale;
+        double top = -pan.getY() / scale;
+        double right = left + width / scale;
+        double bottom = top + height / scale;
+        visibleLeft = left;
+        visibleTop = top;
+        visibleRight = right;
+        visibleBottom = bottom;
+
+        visibleObstacles.clear();
+        room.queryObstacles(left, top, right, bottom, visibleObstacles::add);
+        for (Obstacle obstacle : visibleObstacles) {
+            if (shownObstacles.add(obstacle)) {
+                roomPane.getChildren().add(obstacle.getShape());
+            }
+        }
+        shownObstacles.removeIf(obstacle -> {
+            if (visibleObstacles.contains(obstacle)) {
+                return false;
+            }
+            roomPane.getChildren().remove(obstacle.getShape());
+            return true;
+        });
+
+        // Robots move every tick, a bounds check per robot is cheaper than keeping an index up to date
+        visibleRobots.clear();
+        List<Autorobot> robots = room.getRobots();
+        for (int i = 0; i < robots.size(); i++) {
+            Autorobot robot = robots.get(i);
+            if (isInside(robot.getPosition().getX(), robot.getPosition().getY(), robot.getSize(),
+                    left, top, right, bottom)) {
+                visibleRobots.add(robot);
+                if (shownRobots.add(robot)) {
+                    roomPane.getChildren().add(robot.getShape());
+                }
+            }
+        }
+        if (shownRobots.size() > visibleRobots.size()) {
+            shownRobots.removeIf(robot -> {
+                if (visibleRobots.contains(robot)) {
+                    return false;
+                }
+                roomPane.getChildren().remove(robot.getShape());
+                return true;
+            });
+        }
+
+        visibleControlledRobots.clear();
+        List<ControlledRobot> controlledRobots = room.getControlledRobots();
+        for (int i = 0; i < controlledRobots.size(); i++) {
+            ControlledRobot controlled = controlledRobots.get(i);
+            if (isInside(controlled.getPosition().getX(), controlled.getPosition().getY(), controlled.getSize(),
+                    left, top, right, bottom)) {
+                visibleControlledRobots.add(controlled);
+                if (shownControlledRobots.add(controlled)) {
+                    roomPane.getChildren().addAll(controlled.getShape(), controlled.getDirectionLine());
+                }
+            }
+        }
+        if (shownControlledRobots.size() > visibleControlledRobots.size()) {
+            shownControlledRobots.removeIf(controlled -> {
+                if (visibleControlledRobots.contains(controlled)) {
+                    return false;
+                }
+                roomPane.getChildren().removeAll(controlled.getShape(), controlled.getDirectionLine());
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Removes all entity shapes, used after the room was cleared.
+     */
+    public void reset() {
+        for (Obstacle obstacle : shownObstacles) {
+            roomPane.getChildren().remove(obstacle.getShape());
+        }
+        for (Autorobot robot : shownRobots) {
+            roomPane.getChildren().remove(robot.getShape());
+        }
+        for (ControlledRobot controlled : shownControlledRobots) {
+            roomPane.getChildren().removeAll(controlled.getShape(), controlled.getDirectionLine());
+        }
+        shownObstacles.clear();
+        shownRobots.clear();
+        shownControlledRobots.clear();
+        refresh();
+    }
+
+    /**
+     * @return The left edge of the part of the room shown at the last refresh, in room coordinates.
+     */
+    public double getVisibleLeft() {
+        return visibleLeft;
+    }
+
+    /**
+     * @return The top edge of the part of the room shown at the last refresh, in room coordinates.
+     */
+    public double getVisibleTop() {
+        return visibleTop;
+    }
+
+    /**
+     * @return The right edge of the part of the room shown at the last refresh, in room coordinates.
+     */
+    public double getVisibleRight() {
+        return visibleRight;
+    }
+
+    /**
+     * @return The bottom edge of the part of the room shown at the last refresh, in room coordinates.
+     */
+    public double getVisibleBottom() {
+        return visibleBottom;
+    }
+
+    /**
+     * Retrieves the number of entity shapes currently in the scene graph.
+     *
+     * @return The number of shown entities.
+     */
+    public int getShownCount() {
+        return shownObstacles.size() + shownRobots.size() + shownControlledRobots.size();
+    }
+
+    private static boolean isInside(double x, double y, double extent,
+                                    double left, double top, double right, double bottom) {
+        return x + extent >= left && x - extent <= right && y + extent >= top && y - extent <= bottom;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        // The room pane keeps its own size and is positioned by the pan and zoom transforms
+        roomPane.resize(room.getWidth(), room.getHeight());
+    }
+}
@@ -1,30 +1,26 @@
 package org.openjfx.javaproject.ui.buttons;
 
+import javafx.concurrent.Task;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
-import org.openjfx.javaproject.common.ConfigParser;
-import org.openjfx.javaproject.common.Obstacle;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextInputDialog;
+import org.openjfx.javaproject.common.ConfigWriter;
+import org.openjfx.javaproject.common.SceneConfig;
 import org.openjfx.javaproject.room.Room;
-import org.openjfx.javaproject.room.Autorobot;
-import org.openjfx.javaproject.room.ControlledRobot;
-import org.openjfx.javaproject.room.RectangleObstacle;
-import org.openjfx.javaproject.room.CircleObstacle;
-import org.openjfx.javaproject.RobotSimulator;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.List;
-
-import javafx.scene.control.Button;
-import javafx.scene.control.TextInputDialog;
+import java.nio.file.Path;
 import java.util.Optional;
 
 /**
  * A button used to save the current configuration of the simulation to a JSON config file.
+ * The room is copied when the button is pressed and written on a background thread, the progress bar
+ * of the button shows how far the save got.
  */
 public class ConfigButton extends Button {
     private Room room;
+    private final ProgressBar progressBar = new ProgressBar();
 
     /**
      * Constructs a ConfigButton.
@@ -35,32 +31,54 @@ public class ConfigButton extends Button {
         super("Save To Config");
         this.room = room;
         this.setOnAction(e -> saveToConfig());
+        progressBar.managedProperty().bind(progressBar.visibleProperty());
+        progressBar.setVisible(false);
+    }
+
+    /**
+     * Retrieves the progress bar shown while a save is running, to be placed next to the button.
+     *
+     * @return The progress bar.
+     */
+    public ProgressBar getProgressBar() {
+        return progressBar;
     }
 
     /**
-     * Saves the simulation configuration to a JSON file.
+     * Saves the simulation configuration to a JSON file on a background thread.
      *
-     * @param roomX           The width of the simulation room.
-     * @param roomY           The height of the simulation room.
-     * @param obstacles       The list of obstacles in the simulation.
-     * @param autoRobots      The list of autonomous robots in the simulation.
-     * @param controlledRobot The controlled robot in the simulation.
-     * @param filePath        The path to save the JSON file.
+     * @param config   The copy of the room to save.
+     * @param filePath The path to save the JSON file.
      */
-    public static void saveJSONToFile(int roomX, int roomY, List<Obstacle> obstacles, List<Autorobot> autoRobots, ControlledRobot controlledRobot, String filePath) {
-        JSONObject json = new JSONObject();
-        json.put("roomX", roomX);
-        json.put("roomY", roomY);
-        json.put("obstacles", ConfigParser.obstaclesToJson(obstacles));
-        json.put("autoRobots", ConfigParser.autoRobotsToJson(autoRobots));
-        json.put("controlledRobot", ConfigParser.robotsToJson(controlledRobot));
+    private void saveInBackground(SceneConfig config, String filePath) {
+        Task<Void> save = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                ConfigWriter.save(config, Path.of(filePath), this::updateProgress);
+                return null;
+            }
+        };
+        save.setOnSucceeded(e -> finishSave());
+        save.setOnFailed(e -> {
+            finishSave();
+            Throwable error = save.getException();
+            error.printStackTrace();
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Could not save " + filePath + ": " + error.getMessage());
+            alert.setHeaderText("Save failed");
+            alert.show();
+        });
 
-        try (FileWriter file = new FileWriter(filePath)) {
-            file.write(json.toString());
-            file.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        progressBar.progressProperty().bind(save.progressProperty());
+        progressBar.setVisible(true);
+        setDisable(true);
+        // not a daemon, so closing the window waits for the save to complete
+        new Thread(save, "config-save").start();
+    }
+
+    private void finishSave() {
+        progressBar.progressProperty().unbind();
+        progressBar.setVisible(false);
+        setDisable(false);
     }
 
     /**
@@ -74,9 +92,7 @@ public class ConfigButton extends Button {
 
         Optional<String> result = dialog.showAndWait();
         String path = result.orElse("config.json");
-        saveJSONToFile((int) room.getWidth(), (int) room.getHeight(), room.getObstacles(), room.getRobots(), room.getControlledRobot(), path);
-        //Parse into config HERE
-        //result.ifPresent(name -> System.out.println("Saved to config file: " + name));
+        // the copy is taken on the application thread, between two frames of the simulation
+        saveInBackground(ConfigWriter.snapshot(room), path);
     }
 }
-
@@ -1,21 +1,20 @@
 package org.openjfx.javaproject.ui.buttons;
 
 import javafx.scene.control.Button;
-import javafx.scene.layout.Pane;
 import org.openjfx.javaproject.RobotSimulator;
 import org.openjfx.javaproject.room.Room;
+import org.openjfx.javaproject.ui.Viewport;
 
 /**
  * A button to clear all elements from the room and reset the simulation.
  */
 
 public class ResetButton extends Button {
-    public ResetButton(RobotSimulator simulation, Room room, Pane roomPane){
+    public ResetButton(RobotSimulator simulation, Room room, Viewport viewport){
         super("Clear all");
         this.setOnAction(e -> {
             room.clearAll();
-            roomPane.getChildren().clear();
-            roomPane.getChildren().add(room.create());
+            viewport.reset();
             simulation.resetTimer();
         });
 
@@ -0,0 +1,62 @@
+package org.openjfx.javaproject.ui.buttons;
+
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.util.StringConverter;
+import org.openjfx.javaproject.engine.SimulationEngine;
+
+/**
+ * A choice of how fast the simulation runs compared to real time, with the speed actually achieved below it.
+ */
+public final class SpeedSelector extends VBox {
+    private static final Double[] SPEEDS = {1.0, 2.0, 5.0, 10.0, 50.0, 100.0, 500.0, 1000.0};
+
+    private final SimulationEngine engine;
+    private final Label achievedLabel = new Label();
+    private double shownSpeed = -1;
+
+    public SpeedSelector(SimulationEngine engine) {
+        super(4);
+        this.engine = engine;
+
+        ComboBox<Double> speedBox = new ComboBox<>();
+        speedBox.getItems().addAll(SPEEDS);
+        speedBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Double speed) {
+                return speed == null ? "" : "Speed " + formatSpeed(speed);
+            }
+
+            @Override
+            public Double fromString(String text) {
+                return null;
+            }
+        });
+        if (!speedBox.getItems().contains(engine.getSpeed())) {
+            speedBox.getItems().add(engine.getSpeed());
+        }
+        speedBox.setValue(engine.getSpeed());
+        speedBox.setOnAction(e -> engine.setSpeed(speedBox.getValue()));
+        speedBox.setPrefWidth(135);
+
+        achievedLabel.setStyle("-fx-text-fill: white;");
+        getChildren().addAll(speedBox, achievedLabel);
+        refresh();
+    }
+
+    /**
+     * Shows the latest achieved speed, called once per frame.
+     */
+    public void refresh() {
+        double achieved = engine.getAchievedSpeed();
+        if (achieved != shownSpeed) {
+            shownSpeed = achieved;
+            achievedLabel.setText("Achieved " + formatSpeed(achieved));
+        }
+    }
+
+    private static String formatSpeed(double speed) {
+        return (speed >= 10 ? String.format("%.0f", speed) : String.format("%.1f", speed)) + "×";
+    }
+}